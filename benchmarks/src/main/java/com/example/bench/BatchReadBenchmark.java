@@ -0,0 +1,62 @@
+package com.example.bench;
+
+import com.example.demoproject.EnhancedPathResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 200 expressions against one order: mostly per-SKU lookups ({@code order.lines[sku='SKU-n'].price})
+ * plus shared-prefix dotted paths, resolved one {@code read} at a time versus one {@code readAll}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchReadBenchmark {
+
+    @Param({"small", "medium"})
+    public String size;
+
+    private Map<String, Object> payload;
+    private final Map<String, String> expressions = new LinkedHashMap<>();
+
+    @Setup
+    public void setup() {
+        int lines = Payloads.lineCount(size);
+        payload = Payloads.order(lines);
+        for (int i = 0; i < 180; i++) {
+            expressions.put("price" + i, "order.lines[sku='SKU-" + (i % lines) + "'].price");
+        }
+        for (int i = 0; i < 20; i++) {
+            expressions.put("zip" + i, "order.shipping.address.geo.zip");
+        }
+    }
+
+    @Benchmark
+    public void readEach(Blackhole bh) {
+        for (String path : expressions.values()) {
+            bh.consume(EnhancedPathResolver.read(payload, path));
+        }
+    }
+
+    @Benchmark
+    public Object readAll() {
+        return EnhancedPathResolver.readAll(payload, expressions);
+    }
+}
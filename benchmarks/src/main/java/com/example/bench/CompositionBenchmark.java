@@ -0,0 +1,120 @@
+package com.example.bench;
+
+import com.example.pdf.controller.GenerateRequest;
+import com.example.pdf.model.MappingDocument;
+import com.example.pdf.service.MappingComposer;
+import com.example.pdf.service.MappingService;
+import com.example.pdf.service.MappingTrees;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The stages of mapping composition on generated fragments: unflatten of the flat property maps,
+ * deepMerge of the nested layers, convertValue into MappingDocument, and the whole
+ * MappingComposer / MappingService path with the config server replaced by an in-memory client.
+ * Run with {@code -prof gc} to see bytes allocated per composition.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompositionBenchmark {
+
+    @Param({"6"})
+    public int layers;
+
+    @Param({"200", "2000"})
+    public int fieldsPerLayer;
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    private List<Map<String, Object>> flatLayers;
+    private Map<String, Object> merged;
+    private MappingComposer composer;
+    private MappingService service;
+    private GenerateRequest req;
+
+    @Setup
+    public void setup() {
+        flatLayers = Fragments.layers(layers, fieldsPerLayer);
+        merged = unflattenAndMerge();
+        composer = new MappingComposer(Fragments.inMemoryClient(flatLayers));
+        service = new MappingService(Fragments.inMemoryClient(flatLayers));
+        req = Fragments.request();
+    }
+
+    /** deepMerge mutates its inputs, so each invocation gets freshly unflattened layers. */
+    @State(Scope.Thread)
+    public static class NestedLayers {
+        List<Map<String, Object>> nested;
+
+        @Setup(Level.Invocation)
+        public void setup(CompositionBenchmark b) {
+            nested = new ArrayList<>(b.flatLayers.size());
+            for (Map<String, Object> flat : b.flatLayers) {
+                nested.add(MappingTrees.unflatten(flat));
+            }
+        }
+    }
+
+    @Benchmark
+    public Object unflatten() {
+        List<Map<String, Object>> out = new ArrayList<>(flatLayers.size());
+        for (Map<String, Object> flat : flatLayers) {
+            out.add(MappingTrees.unflatten(flat));
+        }
+        return out;
+    }
+
+    @Benchmark
+    public Object deepMerge(NestedLayers layers) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (Map<String, Object> nested : layers.nested) {
+            MappingTrees.deepMerge(out, nested);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public MappingDocument convertValue() {
+        return json.convertValue(merged, MappingDocument.class);
+    }
+
+    @Benchmark
+    public Object composerCompose() {
+        return composer.compose(req, "main", Arrays.asList(Fragments.LAYERS).subList(0, Math.min(layers, Fragments.LAYERS.length)));
+    }
+
+    @Benchmark
+    public MappingDocument composeMappingDocument() throws Exception {
+        return service.composeMappingDocument(req);
+    }
+
+    private Map<String, Object> unflattenAndMerge() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (Map<String, Object> flat : flatLayers) {
+            MappingTrees.deepMerge(out, MappingTrees.wrapRootPdf(MappingTrees.unflatten(flat)));
+        }
+        return out;
+    }
+}
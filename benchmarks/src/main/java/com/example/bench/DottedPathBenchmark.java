@@ -0,0 +1,66 @@
+package com.example.bench;
+
+import com.example.demoproject.EnhancedPathResolver;
+import com.example.pdf.service.MappingService;
+import com.jayway.jsonpath.JsonPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plain dotted paths, the only shape all three resolvers understand: EnhancedPathResolver,
+ * MappingService.resolvePath and Jayway json-path (compiled once).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DottedPathBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    @Param({"shallow", "deep"})
+    public String depth;
+
+    private Map<String, Object> payload;
+    private String path;
+    private JsonPath jsonPath;
+    private MappingService mappingService;
+
+    @Setup
+    public void setup() {
+        payload = Payloads.order(Payloads.lineCount(size));
+        path = "shallow".equals(depth) ? "customer.name" : "order.shipping.address.geo.zip";
+        jsonPath = JsonPath.compile("$." + path);
+        mappingService = new MappingService();
+    }
+
+    @Benchmark
+    public Object enhancedPathResolver() {
+        return EnhancedPathResolver.read(payload, path);
+    }
+
+    @Benchmark
+    public Object mappingServiceResolvePath() {
+        return mappingService.resolvePath(payload, path);
+    }
+
+    @Benchmark
+    public Object jaywayJsonPath() {
+        return jsonPath.read(payload);
+    }
+}
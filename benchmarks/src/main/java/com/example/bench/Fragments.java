@@ -0,0 +1,77 @@
+package com.example.bench;
+
+import com.example.pdf.controller.GenerateRequest;
+import com.example.pdf.service.ConfigServerClient;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Synthetic mapping fragments at composition scale. Each layer is a flat dotted property map as
+ * the config server returns it; consecutive layers override half of the previous layer's fields.
+ */
+public final class Fragments {
+
+    public static final String[] LAYERS = {
+            "mappings/base-application",
+            "mappings/templates/invoice-v2",
+            "mappings/products/medicare",
+            "mappings/markets/group",
+            "mappings/states/CA",
+            "mappings/templates/medicare/invoice-v2"
+    };
+
+    private Fragments() {
+    }
+
+    public static List<Map<String, Object>> layers(int layers, int fieldsPerLayer) {
+        List<Map<String, Object>> out = new ArrayList<>(layers);
+        for (int l = 0; l < layers; l++) {
+            Map<String, Object> flat = new LinkedHashMap<>();
+            flat.put("template.type", "fillable");
+            flat.put("template.url", "https://example.com/templates/layer-" + l + ".pdf");
+            int first = l * fieldsPerLayer / 2;
+            for (int i = first; i < first + fieldsPerLayer; i++) {
+                flat.put("mapping.pdf.field.field" + i, "payload.section" + (i % 40) + ".item" + i + ".value");
+            }
+            flat.put("metadata.layer", String.valueOf(l));
+            out.add(flat);
+        }
+        return out;
+    }
+
+    public static GenerateRequest request() {
+        GenerateRequest req = new GenerateRequest();
+        req.setTemplateName("invoice-v2");
+        req.setClientService("order-service");
+        req.setProductType("medicare");
+        req.setMarketCategory("group");
+        req.setState("CA");
+        req.setLabel("main");
+        return req;
+    }
+
+    /** Client that answers file lookups from memory instead of going over HTTP. */
+    public static ConfigServerClient inMemoryClient(List<Map<String, Object>> layers) {
+        Map<String, Map<String, Object>> byPath = new LinkedHashMap<>();
+        for (int i = 0; i < layers.size() && i < LAYERS.length; i++) {
+            byPath.put(LAYERS[i] + ".yml", layers.get(i));
+        }
+        return new ConfigServerClient(null, "http://localhost:0") {
+            @Override
+            public ConfigServerResponse getFile(String profile, String label, String pathWithExtension) {
+                Map<String, Object> source = byPath.get(pathWithExtension);
+                if (source == null) return null;
+                PropertySource ps = new PropertySource();
+                ps.name = pathWithExtension;
+                // fresh copy per call, like a parsed HTTP body
+                ps.source = new LinkedHashMap<>(source);
+                ConfigServerResponse resp = new ConfigServerResponse();
+                resp.propertySources = List.of(ps);
+                return resp;
+            }
+        };
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.bench;
+
+import com.example.demoproject.EnhancedPathResolver;
+import com.example.demoproject.jsonl.JsonlEvaluator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluating four expressions over every line of a generated JSONL file of small orders: the
+ * single-threaded read-a-line, parse, {@code readAll} loop versus {@link JsonlEvaluator} on a pool
+ * of {@code threads} workers. Both write their results to a discarding stream. Compare
+ * {@code parallel} at 1, 2, 4... threads against {@code sequential} for scaling ({@code sequential}
+ * ignores {@code threads}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JsonlEvaluatorBenchmark {
+
+    @Param({"200000"})
+    public int lines;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final Map<String, String> expressions = new LinkedHashMap<>();
+
+    private Path file;
+    private ForkJoinPool pool;
+    private JsonlEvaluator evaluator;
+
+    @Setup
+    public void setup() throws IOException {
+        expressions.put("id", "order.id");
+        expressions.put("zip", "order.shipping.address.geo.zip");
+        expressions.put("openBooks", "order.lines[status='OPEN' and product.category='books'].sku");
+        expressions.put("first", "order.lines[sku='SKU-0'].price");
+
+        file = Files.createTempFile("jsonl-bench", ".jsonl");
+        Random rnd = new Random(42);
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < lines; i++) {
+                w.write(json.writeValueAsString(Payloads.order(5 + rnd.nextInt(10))));
+                w.write('\n');
+            }
+        }
+        pool = new ForkJoinPool(threads);
+        evaluator = new JsonlEvaluator(expressions, pool);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long sequential() throws IOException {
+        long n = 0;
+        try (BufferedReader r = Files.newBufferedReader(file); OutputStream out = OutputStream.nullOutputStream()) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                Object doc = json.readValue(line, Object.class);
+                out.write(json.writeValueAsBytes(EnhancedPathResolver.readAll(doc, expressions)));
+                out.write('\n');
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Benchmark
+    public long parallel() throws IOException {
+        return evaluator.evaluate(file, OutputStream.nullOutputStream());
+    }
+}
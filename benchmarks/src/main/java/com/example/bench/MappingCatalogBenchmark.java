@@ -0,0 +1,104 @@
+package com.example.bench;
+
+import com.example.pdf.catalog.MappingCatalog;
+import com.example.pdf.catalog.MappingCatalogWriter;
+import com.example.pdf.controller.GenerateRequest;
+import com.example.pdf.service.CompiledMapping;
+import com.example.pdf.service.MappingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getting the field plan for one of {@code combinations} mappings and walking it: composing it
+ * with an in-memory config client, looking it up among heap-resident {@link CompiledMapping}s,
+ * and finding it in a memory-mapped {@link MappingCatalog}. Every heap combination holds its own
+ * copy of the field plan of a six-layer mapping, as distinct templates would. Compare the
+ * retained heap of the two stores with a heap histogram of the forked JVM; {@code -prof gc}
+ * shows the catalog's per-lookup decoding cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingCatalogBenchmark {
+
+    @Param({"10000"})
+    public int combinations;
+
+    @Param({"50"})
+    public int fieldsPerLayer;
+
+    private MappingService service;
+    private GenerateRequest req;
+    private Map<String, CompiledMapping> heap;
+    private Path file;
+    private MappingCatalog catalog;
+
+    @Setup
+    public void setup() throws Exception {
+        service = new MappingService(Fragments.inMemoryClient(Fragments.layers(6, fieldsPerLayer)));
+        req = Fragments.request();
+        CompiledMapping compiled = service.compileMapping(req);
+
+        heap = new HashMap<>();
+        MappingCatalogWriter writer = new MappingCatalogWriter();
+        for (int i = 0; i < combinations; i++) {
+            heap.put(template(i), new CompiledMapping(compiled.getDocument(), compiled.getFieldMap()));
+            writer.add(req.getClientService(), template(i), req.getProductType(), req.getMarketCategory(), req.getState(), "main", compiled);
+        }
+        file = Files.createTempFile("mappings", ".catalog");
+        writer.write(file);
+        catalog = MappingCatalog.open(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int compose() throws Exception {
+        return walk(service.compileMapping(req));
+    }
+
+    @Benchmark
+    public int heapLookup() {
+        return walk(heap.get(template(ThreadLocalRandom.current().nextInt(combinations))));
+    }
+
+    @Benchmark
+    public int catalogLookup() {
+        String template = template(ThreadLocalRandom.current().nextInt(combinations));
+        return walk(catalog.find(req.getClientService(), template, req.getProductType(), req.getMarketCategory(), req.getState(), "main", null));
+    }
+
+    private static String template(int i) {
+        return "template-" + i;
+    }
+
+    private static int walk(CompiledMapping compiled) {
+        int n = 0;
+        for (Map.Entry<String, String> e : compiled.getFieldMap().entrySet()) n += e.getValue().length();
+        return n;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.bench;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic payloads shaped like a generate request body: a small customer block,
+ * a deep shipping block and an order with {@code lines} line items. Built from LinkedHashMap/ArrayList
+ * so they look like what Jackson hands the resolvers.
+ */
+public final class Payloads {
+
+    public static final String[] CATEGORIES = {"books", "games", "music", "tools"};
+
+    private Payloads() {
+    }
+
+    public static int lineCount(String size) {
+        switch (size) {
+            case "small": return 10;
+            case "medium": return 1_000;
+            case "large": return 100_000;
+            default: throw new IllegalArgumentException("Unknown payload size: " + size);
+        }
+    }
+
+    public static Map<String, Object> order(int lines) {
+        Random rnd = new Random(42);
+
+        Map<String, Object> geo = new LinkedHashMap<>();
+        geo.put("zip", "94105");
+        geo.put("lat", 37.79);
+        Map<String, Object> address = new LinkedHashMap<>();
+        address.put("street", "1 Market St");
+        address.put("geo", geo);
+        Map<String, Object> shipping = new LinkedHashMap<>();
+        shipping.put("method", "ground");
+        shipping.put("address", address);
+
+        List<Object> items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            items.add(line(i, rnd));
+        }
+
+        Map<String, Object> order = new LinkedHashMap<>();
+        order.put("id", "ORD-1001");
+        order.put("shipping", shipping);
+        order.put("lines", items);
+
+        Map<String, Object> customer = new LinkedHashMap<>();
+        customer.put("name", "Alice");
+        customer.put("tier", "gold");
+
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("customer", customer);
+        root.put("order", order);
+        return root;
+    }
+
+    public static Map<String, Object> line(int i, Random rnd) {
+        Map<String, Object> product = new LinkedHashMap<>();
+        product.put("category", CATEGORIES[i % CATEGORIES.length]);
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("sku", "SKU-" + i);
+        line.put("qty", rnd.nextInt(10));
+        line.put("qtyText", String.valueOf(rnd.nextInt(10)));
+        line.put("price", Math.round(rnd.nextDouble() * 10_000) / 100.0);
+        line.put("status", i % 3 == 0 ? "CLOSED" : "OPEN");
+        line.put("product", product);
+        return line;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bench;
+
+import com.example.demoproject.EnhancedPathResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Cost of evaluating one compiled predicate against one node, without the list building done by
+ * {@code read}. Run with {@code -prof gc}: {@code gc.alloc.rate.norm} is bytes per evaluation and
+ * should stay at ~0 for the numeric filters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(PredicateEvaluationBenchmark.NODES)
+public class PredicateEvaluationBenchmark {
+
+    static final int NODES = 1024;
+
+    @Param({"qty>5", "price>=50.25", "qtyText>5", "status='OPEN'", "qty>5 and status='OPEN'",
+            "product.category in ('books', 'music', 'tools')", "status='CLOSED' or qty>5"})
+    public String predicate;
+
+    private Object[] nodes;
+    private Predicate<Object> filter;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(7);
+        nodes = new Object[NODES];
+        for (int i = 0; i < NODES; i++) {
+            nodes[i] = Payloads.line(i, rnd);
+        }
+        filter = EnhancedPathResolver.compileFilter(predicate);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        int matched = 0;
+        for (Object node : nodes) {
+            if (filter.test(node)) matched++;
+        }
+        return matched;
+    }
+}
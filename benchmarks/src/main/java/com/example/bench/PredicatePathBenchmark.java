@@ -0,0 +1,70 @@
+package com.example.bench;
+
+import com.example.demoproject.EnhancedPathResolver;
+import com.jayway.jsonpath.JsonPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtered paths over {@code order.lines}: a single string equality picking one element, a
+ * three-term {@code and} predicate that mixes numeric, string and nested-key conditions, and a
+ * three-value {@code in} list on a nested key.
+ * MappingService.resolvePath has no predicate support, so only EnhancedPathResolver and Jayway run here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PredicatePathBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    @Param({"single", "multi", "in"})
+    public String predicate;
+
+    private Map<String, Object> payload;
+    private String enhancedPath;
+    private JsonPath jsonPath;
+
+    @Setup
+    public void setup() {
+        int lines = Payloads.lineCount(size);
+        payload = Payloads.order(lines);
+        String sku = "SKU-" + (lines / 2);
+        if ("single".equals(predicate)) {
+            enhancedPath = "order.lines[sku='" + sku + "'].price";
+            jsonPath = JsonPath.compile("$.order.lines[?(@.sku == '" + sku + "')].price");
+        } else if ("multi".equals(predicate)) {
+            enhancedPath = "order.lines[qty>5 and status='OPEN' and product.category='books'].sku";
+            jsonPath = JsonPath.compile("$.order.lines[?(@.qty > 5 && @.status == 'OPEN' && @.product.category == 'books')].sku");
+        } else {
+            enhancedPath = "order.lines[product.category in ('books', 'music', 'tools')].sku";
+            jsonPath = JsonPath.compile("$.order.lines[?(@.product.category in ['books', 'music', 'tools'])].sku");
+        }
+    }
+
+    @Benchmark
+    public Object enhancedPathResolver() {
+        return EnhancedPathResolver.read(payload, enhancedPath);
+    }
+
+    @Benchmark
+    public Object jaywayJsonPath() {
+        return jsonPath.read(payload);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.bench;
+
+import com.example.demoproject.EnhancedPathResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The first line item's price: reading all of {@code order.lines.price} and taking element 0 in
+ * Java, as callers did before positional selectors, versus {@code order.lines[0].price}. The
+ * selector cost should not grow with {@code size}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SelectorBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private Map<String, Object> payload;
+
+    @Setup
+    public void setup() {
+        payload = Payloads.order(Payloads.lineCount(size));
+    }
+
+    @Benchmark
+    public Object readAllThenIndex() {
+        return ((List<?>) EnhancedPathResolver.read(payload, "order.lines.price")).get(0);
+    }
+
+    @Benchmark
+    public Object indexSelector() {
+        return EnhancedPathResolver.read(payload, "order.lines[0].price");
+    }
+
+    @Benchmark
+    public Object sliceSelector() {
+        return EnhancedPathResolver.read(payload, "order.lines[-10:].price");
+    }
+}
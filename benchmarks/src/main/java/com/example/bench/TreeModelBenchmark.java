@@ -0,0 +1,66 @@
+package com.example.bench;
+
+import com.example.demoproject.EnhancedPathResolver;
+import com.example.demoproject.NodeAdapter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A caller holding a Jackson {@link JsonNode}: converting the whole document to {@code Map}s with
+ * {@code convertValue} and reading that, versus reading the tree in place through
+ * {@link NodeAdapter#JACKSON} or a Jayway {@code JacksonJsonNodeJsonProvider} adapter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeModelBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    @Param({"order.shipping.address.geo.zip", "order.lines[status='OPEN' and product.category='books'].sku"})
+    public String path;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final NodeAdapter jayway = NodeAdapter.jsonProvider(new JacksonJsonNodeJsonProvider());
+
+    private JsonNode tree;
+
+    @Setup
+    public void setup() {
+        tree = json.valueToTree(Payloads.order(Payloads.lineCount(size)));
+    }
+
+    @Benchmark
+    public Object convertThenRead() {
+        return EnhancedPathResolver.read(json.convertValue(tree, Map.class), path);
+    }
+
+    @Benchmark
+    public Object jsonNode() {
+        return EnhancedPathResolver.read(tree, path);
+    }
+
+    @Benchmark
+    public Object jaywayProvider() {
+        return EnhancedPathResolver.read(tree, path, jayway);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bench.load;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Point-in-time view of the collectors and heap; the difference of two snapshots describes what
+ * the GC did during one phase of a run.
+ */
+final class GcStats {
+
+    final Map<String, long[]> collectors = new LinkedHashMap<>();
+    final long heapUsed;
+    final long takenAt = System.nanoTime();
+
+    private GcStats() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collectors.put(gc.getName(), new long[]{gc.getCollectionCount(), gc.getCollectionTime()});
+        }
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        heapUsed = heap.getUsed();
+    }
+
+    static GcStats take() {
+        return new GcStats();
+    }
+
+    String describeSince(GcStats before) {
+        StringBuilder sb = new StringBuilder();
+        double seconds = (takenAt - before.takenAt) / 1e9;
+        long pauseMillis = 0;
+        for (Map.Entry<String, long[]> e : collectors.entrySet()) {
+            long[] prev = before.collectors.getOrDefault(e.getKey(), new long[2]);
+            long count = e.getValue()[0] - prev[0];
+            long time = e.getValue()[1] - prev[1];
+            pauseMillis += time;
+            sb.append(String.format("    %-28s %6d collections %8d ms%n", e.getKey(), count, time));
+        }
+        sb.append(String.format("    %-28s %6.2f%% of wall time, heap used now %d MB%n", "gc time",
+                seconds > 0 ? pauseMillis / (seconds * 10) : 0.0, heapUsed / (1024 * 1024)));
+        return sb.toString();
+    }
+}
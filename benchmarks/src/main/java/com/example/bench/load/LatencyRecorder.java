@@ -0,0 +1,47 @@
+package com.example.bench.load;
+
+import java.util.Arrays;
+
+/**
+ * Collects raw latency samples (nanoseconds) and reports exact percentiles. Load runs are bounded
+ * by rate x duration, so keeping every sample is affordable and avoids histogram bucketing error
+ * in the tail.
+ */
+class LatencyRecorder {
+
+    private long[] samples = new long[1 << 14];
+    private int size;
+
+    synchronized void record(long nanos) {
+        if (size == samples.length) samples = Arrays.copyOf(samples, size * 2);
+        samples[size++] = nanos;
+    }
+
+    synchronized Snapshot snapshot() {
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        return new Snapshot(sorted);
+    }
+
+    static final class Snapshot {
+        private final long[] sorted;
+
+        Snapshot(long[] sorted) {
+            this.sorted = sorted;
+        }
+
+        int count() {
+            return sorted.length;
+        }
+
+        double percentileMillis(double p) {
+            if (sorted.length == 0) return Double.NaN;
+            int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(idx, sorted.length - 1))] / 1_000_000.0;
+        }
+
+        double maxMillis() {
+            return sorted.length == 0 ? Double.NaN : sorted[sorted.length - 1] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.bench.load;
+
+import com.example.pdf.PdfGenerationApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test for {@code POST /generate} on a single box with no network: starts an
+ * in-process {@link StubConfigServer} over {@code configfiles}, boots pdf-generation-service
+ * against it on a random port, and replays a weighted request mix open-loop at a fixed rate.
+ * Latency is measured from each request's scheduled send time, so a stalled server shows up in the
+ * percentiles instead of silently lowering the offered load. Each phase also reports the
+ * service's own per-stage timings and allocation from its meter registry.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.example.bench.load.LoadHarness \
+ *     --requests=../generate-composed.json --rate=200 --warmup=10 --duration=60 \
+ *     --stub-latency-ms=5 --stub-jitter-ms=20 --stub-error-rate=0.01
+ * </pre>
+ */
+public class LoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        Path mappings = Path.of(opts.getOrDefault("mappings", "../configfiles"));
+        Path requests = Path.of(opts.getOrDefault("requests", "../generate-composed.json"));
+        double rate = Double.parseDouble(opts.getOrDefault("rate", "50"));
+        int warmupSeconds = Integer.parseInt(opts.getOrDefault("warmup", "10"));
+        int durationSeconds = Integer.parseInt(opts.getOrDefault("duration", "30"));
+        long stubLatency = Long.parseLong(opts.getOrDefault("stub-latency-ms", "2"));
+        long stubJitter = Long.parseLong(opts.getOrDefault("stub-jitter-ms", "0"));
+        double stubErrorRate = Double.parseDouble(opts.getOrDefault("stub-error-rate", "0"));
+        int stubThreads = Integer.parseInt(opts.getOrDefault("stub-threads", "32"));
+        String profile = opts.getOrDefault("profile", "");
+
+        PrintStream report = System.out;
+
+        List<MixEntry> mix = loadMix(new ObjectMapper(), requests);
+
+        try (StubConfigServer stub = new StubConfigServer(mappings, stubLatency, stubJitter, stubErrorRate, stubThreads).start()) {
+            ConfigurableApplicationContext app = new SpringApplicationBuilder(PdfGenerationApplication.class)
+                    .run("--server.port=0",
+                            "--config-server.url=" + stub.url(),
+                            "--spring.profiles.active=" + profile,
+                            "--logging.level.root=WARN");
+            try {
+                int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+                URI target = URI.create("http://localhost:" + port + "/generate");
+                report.printf("pdf-generation-service on :%d (profiles: %s), stub config server at %s (latency %d+%d ms, error rate %.3f)%n",
+                        port, profile.isEmpty() ? "default" : profile, stub.url(), stubLatency, stubJitter, stubErrorRate);
+
+                ExecutorService clientPool = Executors.newCachedThreadPool();
+                HttpClient http = HttpClient.newBuilder()
+                        .executor(clientPool)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .build();
+
+                MeterRegistry registry = app.getBean(MeterRegistry.class);
+
+                Phase warmup = new Phase("warmup");
+                StageStats beforeWarmup = StageStats.take(registry);
+                run(http, target, mix, rate, warmupSeconds, warmup);
+                StageStats afterWarmup = StageStats.take(registry);
+                report.print(warmup.describe());
+                report.print(afterWarmup.describeSince(beforeWarmup));
+
+                Phase measure = new Phase("measure");
+                run(http, target, mix, rate, durationSeconds, measure);
+                report.print(measure.describe());
+                report.print(StageStats.take(registry).describeSince(afterWarmup));
+                report.printf("stub config server: %d served, %d not found, %d injected errors%n",
+                        stub.hits.sum(), stub.misses.sum(), stub.errors.sum());
+
+                clientPool.shutdownNow();
+            } finally {
+                app.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void run(HttpClient http, URI target, List<MixEntry> mix, double rate, int seconds, Phase phase)
+            throws InterruptedException {
+        long periodNanos = (long) (1_000_000_000L / rate);
+        long total = (long) (rate * seconds);
+        int totalWeight = mix.stream().mapToInt(m -> m.weight).sum();
+        AtomicInteger inFlight = new AtomicInteger();
+
+        phase.begin();
+        long start = System.nanoTime();
+        for (long n = 0; n < total; n++) {
+            long intended = start + n * periodNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            MixEntry entry = pick(mix, totalWeight);
+            HttpRequest req = HttpRequest.newBuilder(target)
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(entry.body))
+                    .build();
+            inFlight.incrementAndGet();
+            http.sendAsync(req, HttpResponse.BodyHandlers.discarding()).whenComplete((resp, err) -> {
+                long latency = System.nanoTime() - intended;
+                phase.record(entry.name, resp == null ? -1 : resp.statusCode(), latency);
+                inFlight.decrementAndGet();
+            });
+        }
+        // let the tail drain so slow requests are counted, not dropped
+        long drainUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        phase.end(total, seconds);
+    }
+
+    private static MixEntry pick(List<MixEntry> mix, int totalWeight) {
+        if (mix.size() == 1) return mix.get(0);
+        int r = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (MixEntry m : mix) {
+            r -= m.weight;
+            if (r < 0) return m;
+        }
+        return mix.get(mix.size() - 1);
+    }
+
+    /**
+     * A request file is either a single generate request (like generate-composed.json) or an array
+     * whose elements are requests or {@code {"name": ..., "weight": n, "request": {...}}} entries.
+     */
+    static List<MixEntry> loadMix(ObjectMapper mapper, Path file) throws Exception {
+        JsonNode root = mapper.readTree(file.toFile());
+        List<JsonNode> nodes = new ArrayList<>();
+        if (root.isArray()) root.forEach(nodes::add);
+        else nodes.add(root);
+
+        List<MixEntry> out = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            JsonNode n = nodes.get(i);
+            JsonNode request = n.has("request") ? n.get("request") : n;
+            int weight = n.has("weight") ? n.get("weight").asInt(1) : 1;
+            String name = n.has("name") ? n.get("name").asText()
+                    : request.path("clientService").asText("?") + "/" + request.path("templateName").asText("?");
+            out.add(new MixEntry(name, Math.max(1, weight), mapper.writeValueAsBytes(request)));
+        }
+        return out;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> out = new HashMap<>();
+        for (String a : args) {
+            if (!a.startsWith("--")) throw new IllegalArgumentException("Unexpected argument: " + a);
+            int eq = a.indexOf('=');
+            if (eq < 0) out.put(a.substring(2), "true");
+            else out.put(a.substring(2, eq), a.substring(eq + 1));
+        }
+        return out;
+    }
+
+    static final class MixEntry {
+        final String name;
+        final int weight;
+        final byte[] body;
+
+        MixEntry(String name, int weight, byte[] body) {
+            this.name = name;
+            this.weight = weight;
+            this.body = body;
+        }
+    }
+
+    static final class Phase {
+        private final String name;
+        private final LatencyRecorder all = new LatencyRecorder();
+        private final Map<String, LatencyRecorder> byEntry = new ConcurrentHashMap<>();
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private GcStats gcBefore;
+        private GcStats gcAfter;
+        private long startNanos;
+        private long endNanos;
+        private long offered;
+        private int seconds;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        void begin() {
+            gcBefore = GcStats.take();
+            startNanos = System.nanoTime();
+        }
+
+        void record(String entry, int status, long latencyNanos) {
+            all.record(latencyNanos);
+            byEntry.computeIfAbsent(entry, k -> new LatencyRecorder()).record(latencyNanos);
+            statuses.computeIfAbsent(status, k -> new LongAdder()).increment();
+        }
+
+        void end(long offered, int seconds) {
+            endNanos = System.nanoTime();
+            gcAfter = GcStats.take();
+            this.offered = offered;
+            this.seconds = seconds;
+        }
+
+        String describe() {
+            StringBuilder sb = new StringBuilder();
+            LatencyRecorder.Snapshot s = all.snapshot();
+            double elapsed = (endNanos - startNanos) / 1e9;
+            sb.append(String.format("%n== %s: %d offered over %ds, %d completed in %.1fs (%.1f req/s)%n",
+                    name, offered, seconds, s.count(), elapsed, s.count() / elapsed));
+            Map<String, Long> status = new TreeMap<>();
+            statuses.forEach((k, v) -> status.put(k < 0 ? "failed" : String.valueOf(k), v.sum()));
+            sb.append("  status: ").append(status).append('\n');
+            sb.append(String.format("  %-32s %8s %10s %10s %10s %10s%n", "latency (ms)", "count", "p50", "p99", "p999", "max"));
+            sb.append(row("all", s));
+            Map<String, LatencyRecorder> sorted = new LinkedHashMap<>(new TreeMap<>(byEntry));
+            if (sorted.size() > 1) sorted.forEach((k, v) -> sb.append(row(k, v.snapshot())));
+            sb.append("  gc:\n").append(gcAfter.describeSince(gcBefore));
+            return sb.toString();
+        }
+
+        private static String row(String label, LatencyRecorder.Snapshot s) {
+            return String.format("  %-32s %8d %10.2f %10.2f %10.2f %10.2f%n", label, s.count(),
+                    s.percentileMillis(50), s.percentileMillis(99), s.percentileMillis(99.9), s.maxMillis());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.bench.load;
+
+import com.example.pdf.metrics.GenerateMetrics;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-side view of a load phase, read from pdf-generation-service's meter registry: per
+ * generate stage and per fetch outcome, the request count, mean and approximate percentiles (from
+ * the published histogram buckets) plus mean bytes allocated per stage. Meters are cumulative, so
+ * a phase is the difference of two snapshots.
+ */
+final class StageStats {
+
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    private StageStats() {
+    }
+
+    static StageStats take(MeterRegistry registry) {
+        StageStats out = new StageStats();
+        for (Timer t : registry.find(GenerateMetrics.STAGE_TIMER).timers()) {
+            out.entry("stage " + t.getId().getTag("stage")).add(t.takeSnapshot());
+        }
+        for (DistributionSummary s : registry.find(GenerateMetrics.STAGE_ALLOCATION).summaries()) {
+            Entry e = out.entry("stage " + s.getId().getTag("stage"));
+            e.allocated += s.totalAmount();
+        }
+        for (Timer t : registry.find(GenerateMetrics.FETCH_TIMER).timers()) {
+            out.entry("fetch " + t.getId().getTag("layer") + " " + t.getId().getTag("outcome")).add(t.takeSnapshot());
+        }
+        return out;
+    }
+
+    private Entry entry(String name) {
+        return entries.computeIfAbsent(name, k -> new Entry());
+    }
+
+    String describeSince(StageStats before) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("  %-44s %8s %10s %10s %10s %12s%n", "server-side (ms)", "count", "mean", "~p99", "~p999", "alloc/op"));
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Entry now = e.getValue();
+            Entry prev = before.entries.getOrDefault(e.getKey(), new Entry());
+            long count = now.count - prev.count;
+            if (count <= 0) continue;
+            double meanMillis = (now.totalNanos - prev.totalNanos) / count / 1e6;
+            long[] buckets = new long[now.bucketCounts.length];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = now.bucketCounts[i] - (i < prev.bucketCounts.length ? prev.bucketCounts[i] : 0);
+            }
+            String alloc = now.allocated > 0 ? String.format("%,.0f B", (now.allocated - prev.allocated) / count) : "-";
+            sb.append(String.format("  %-44s %8d %10.2f %10.2f %10.2f %12s%n", e.getKey(), count, meanMillis,
+                    percentile(now.bucketBounds, buckets, count, 0.99), percentile(now.bucketBounds, buckets, count, 0.999), alloc));
+        }
+        return sb.toString();
+    }
+
+    // upper bound of the first bucket whose cumulative count reaches the quantile
+    private static double percentile(double[] boundsNanos, long[] cumulative, long count, double q) {
+        long rank = (long) Math.ceil(q * count);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (cumulative[i] >= rank) return boundsNanos[i] / 1e6;
+        }
+        return Double.NaN;
+    }
+
+    private static final class Entry {
+        long count;
+        double totalNanos;
+        double allocated;
+        double[] bucketBounds = new double[0];
+        long[] bucketCounts = new long[0];
+
+        void add(HistogramSnapshot snap) {
+            count += snap.count();
+            totalNanos += snap.total(TimeUnit.NANOSECONDS);
+            CountAtBucket[] hist = snap.histogramCounts();
+            if (bucketCounts.length == 0) {
+                bucketBounds = new double[hist.length];
+                bucketCounts = new long[hist.length];
+                for (int i = 0; i < hist.length; i++) bucketBounds[i] = hist[i].bucket(TimeUnit.NANOSECONDS);
+            }
+            for (int i = 0; i < hist.length && i < bucketCounts.length; i++) {
+                bucketCounts[i] += (long) hist[i].count();
+            }
+        }
+    }
+}
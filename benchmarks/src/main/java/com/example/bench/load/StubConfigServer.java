@@ -0,0 +1,124 @@
+package com.example.bench.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for config-server. Serves the file endpoint
+ * ({@code /{application}/{profile}/{label}/{path}}) straight from a directory such as
+ * {@code configfiles}, and answers environment lookups ({@code /{application}/{profile}/{label}})
+ * with an empty environment. Latency and a 5xx error rate can be injected per request.
+ */
+public class StubConfigServer implements AutoCloseable {
+
+    static {
+        // without TCP_NODELAY small responses sit behind delayed ACKs (~40ms per fetch)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        // the default of 200 idle keep-alive connections makes the server close pooled client
+        // connections under load, which reactive clients see as premature closes
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "4096");
+    }
+
+    private final Path root;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double errorRate;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    final LongAdder hits = new LongAdder();
+    final LongAdder misses = new LongAdder();
+    final LongAdder errors = new LongAdder();
+
+    public StubConfigServer(Path root, long latencyMillis, long jitterMillis, double errorRate, int threads) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+    }
+
+    public StubConfigServer start() {
+        server.start();
+        return this;
+    }
+
+    public String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try (ex) {
+            delay();
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                errors.increment();
+                respond(ex, 500, "text/plain", "injected error");
+                return;
+            }
+            // /{application}/{profile}/{label}[/{path}]
+            String[] seg = ex.getRequestURI().getPath().split("/", 5);
+            if (seg.length == 4) {
+                hits.increment();
+                String body = String.format("{\"name\":\"%s\",\"profiles\":[\"%s\"],\"label\":\"%s\",\"version\":\"stub\",\"propertySources\":[]}",
+                        seg[1], seg[2], seg[3]);
+                respond(ex, 200, "application/json", body);
+                return;
+            }
+            if (seg.length < 5) {
+                misses.increment();
+                respond(ex, 404, "text/plain", "not found");
+                return;
+            }
+            Path file = root.resolve(seg[4]).normalize();
+            if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+                misses.increment();
+                respond(ex, 404, "text/plain", "not found");
+                return;
+            }
+            hits.increment();
+            respond(ex, 200, "text/plain", Files.readString(file));
+        }
+    }
+
+    private void delay() {
+        long millis = latencyMillis;
+        if (jitterMillis > 0) millis += ThreadLocalRandom.current().nextLong(jitterMillis + 1);
+        if (millis <= 0) return;
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange ex, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", contentType);
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.configclient.snapshot;
+
+import org.springframework.boot.BootstrapRegistry;
+import org.springframework.boot.BootstrapRegistryInitializer;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.config.client.ConfigClientRequestTemplateFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.file.Path;
+
+/**
+ * Gives the config client ({@code spring.config.import: configserver:}) a RestTemplate that goes
+ * through {@link ConfigSnapshotInterceptor}, and publishes the interceptor as a bean for
+ * {@link ConfigSnapshotReconciler}. Registered in {@code META-INF/spring.factories}.
+ *
+ * <p>{@code config-snapshot.enabled} (default true) turns it off; {@code config-snapshot.path}
+ * (default {@code config-snapshot/<spring.cloud.config.name>.json}, i.e. the application name) is
+ * the snapshot file. Both are read before application.yml is applied, so they come from system
+ * properties, environment variables or the command line.
+ */
+public class ConfigSnapshotBootstrapper implements BootstrapRegistryInitializer {
+
+    private volatile ConfigSnapshotInterceptor interceptor;
+
+    @Override
+    public void initialize(BootstrapRegistry registry) {
+        registry.registerIfAbsent(RestTemplate.class, context -> {
+            ConfigClientRequestTemplateFactory factory = context.get(ConfigClientRequestTemplateFactory.class);
+            RestTemplate rest = factory.create();
+            Binder binder = context.get(Binder.class);
+            if (!binder.bind("config-snapshot.enabled", Boolean.class).orElse(true)) return rest;
+
+            String app = factory.getProperties().getName();
+            Path file = Path.of(binder.bind("config-snapshot.path", String.class).orElse("config-snapshot/" + app + ".json"));
+            interceptor = new ConfigSnapshotInterceptor(new ConfigSnapshotStore(file));
+            rest.getInterceptors().add(interceptor);
+            return rest;
+        });
+        registry.addCloseListener(event -> {
+            ConfigSnapshotInterceptor i = interceptor;
+            if (i != null) event.getApplicationContext().getBeanFactory().registerSingleton("configSnapshotInterceptor", i);
+        });
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.configclient.snapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sits on the config client's RestTemplate. Until {@link #goLive()} (the application is ready),
+ * a request that has a snapshot is answered from it without touching the network, so startup does
+ * not wait on config-server. After that requests go out with {@code If-None-Match}: 304 answers
+ * from the snapshot, 200 replaces it, and a failed or 5xx request falls back to it.
+ */
+public class ConfigSnapshotInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigSnapshotInterceptor.class);
+
+    private final ConfigSnapshotStore store;
+    private final Set<String> servedFromSnapshot = ConcurrentHashMap.newKeySet();
+    private volatile boolean live;
+
+    public ConfigSnapshotInterceptor(ConfigSnapshotStore store) {
+        this.store = store;
+    }
+
+    public ConfigSnapshotStore store() {
+        return store;
+    }
+
+    /** Request paths answered from the snapshot before going live. */
+    public Set<String> servedFromSnapshot() {
+        return servedFromSnapshot;
+    }
+
+    public void goLive() {
+        live = true;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if (request.getMethod() != HttpMethod.GET) return execution.execute(request, body);
+
+        String key = request.getURI().getRawPath() + (request.getURI().getRawQuery() == null ? "" : "?" + request.getURI().getRawQuery());
+        ConfigSnapshotStore.Entry held = store.get(key);
+        if (held != null && !live) {
+            servedFromSnapshot.add(key);
+            log.info("Serving {} from config snapshot (version {}, fetched {})", key, held.version, held.fetchedAt);
+            return new SnapshotResponse(held);
+        }
+        if (held != null && held.etag != null) request.getHeaders().setIfNoneMatch(held.etag);
+
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException ex) {
+            if (held == null) throw ex;
+            log.warn("Config server unreachable for {}, using snapshot version {}: {}", key, held.version, ex.toString());
+            return new SnapshotResponse(held);
+        }
+        HttpStatusCode status = response.getStatusCode();
+        if (held != null && (status.value() == HttpStatus.NOT_MODIFIED.value() || status.is5xxServerError())) {
+            response.close();
+            return new SnapshotResponse(held);
+        }
+        if (status.value() != HttpStatus.OK.value()) return response;
+
+        byte[] bytes;
+        try (InputStream in = response.getBody()) {
+            bytes = in.readAllBytes();
+        }
+        store.put(key, response.getHeaders().getETag(), bytes);
+        return new BufferedResponse(response, bytes);
+    }
+
+    private static final class SnapshotResponse implements ClientHttpResponse {
+        private final byte[] body;
+        private final HttpHeaders headers = new HttpHeaders();
+
+        SnapshotResponse(ConfigSnapshotStore.Entry entry) {
+            this.body = entry.body;
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setContentLength(body.length);
+            if (entry.etag != null) headers.setETag(entry.etag);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatus.OK;
+        }
+
+        @Override
+        public String getStatusText() {
+            return "OK";
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // the original response with its body already read into the snapshot
+    private static final class BufferedResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final byte[] body;
+
+        BufferedResponse(ClientHttpResponse delegate, byte[] body) {
+            this.delegate = delegate;
+            this.body = body;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
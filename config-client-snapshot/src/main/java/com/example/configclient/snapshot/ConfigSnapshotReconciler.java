@@ -0,0 +1,68 @@
+package com.example.configclient.snapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.context.refresh.ContextRefresher;
+import org.springframework.cloud.context.scope.refresh.RefreshScope;
+import org.springframework.context.event.EventListener;
+
+import java.util.Set;
+
+/**
+ * Once the application is ready, switches {@link ConfigSnapshotInterceptor} to the network and,
+ * if startup was served from the snapshot, re-imports the configuration in the background.
+ * Properties that changed since the snapshot are rebound and {@code @RefreshScope} beans rebuilt.
+ * Registered as auto-configuration, so applications pick it up from the dependency alone.
+ */
+@AutoConfiguration
+public class ConfigSnapshotReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigSnapshotReconciler.class);
+
+    private final ObjectProvider<ConfigSnapshotInterceptor> interceptor;
+    private final ObjectProvider<ContextRefresher> refresher;
+    private final ObjectProvider<RefreshScope> refreshScope;
+
+    public ConfigSnapshotReconciler(ObjectProvider<ConfigSnapshotInterceptor> interceptor,
+                                    ObjectProvider<ContextRefresher> refresher,
+                                    ObjectProvider<RefreshScope> refreshScope) {
+        this.interceptor = interceptor;
+        this.refresher = refresher;
+        this.refreshScope = refreshScope;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        ConfigSnapshotInterceptor i = interceptor.getIfAvailable();
+        if (i == null) return;
+        i.goLive();
+        if (i.servedFromSnapshot().isEmpty()) return;
+
+        Thread t = new Thread(this::reconcile, "config-snapshot-reconcile");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void reconcile() {
+        ContextRefresher r = refresher.getIfAvailable();
+        if (r == null) {
+            log.warn("Started from config snapshot but no ContextRefresher is available; restart to pick up changes");
+            return;
+        }
+        try {
+            Set<String> changed = r.refreshEnvironment();
+            if (changed.isEmpty()) {
+                log.info("No configuration changes after reconciling config snapshot");
+                return;
+            }
+            RefreshScope scope = refreshScope.getIfAvailable();
+            if (scope != null) scope.refreshAll();
+            log.info("Reconciled with config server; changed keys: {}", changed);
+        } catch (RuntimeException ex) {
+            log.warn("Reconciling config snapshot with config server failed: {}", ex.toString());
+        }
+    }
+}
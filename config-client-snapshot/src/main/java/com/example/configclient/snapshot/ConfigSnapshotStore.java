@@ -0,0 +1,124 @@
+package com.example.configclient.snapshot;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The last config-server responses this application received, kept in a local JSON file keyed by
+ * request path, each with its ETag and environment version. The file is rewritten through a
+ * temporary file and an atomic move, so a crash mid-write leaves the previous snapshot intact.
+ *
+ * <p>Bodies are stored as config-server sent them, which includes values it decrypted
+ * ({@code {cipher}...}) in plain text. On POSIX file systems the file is therefore readable by the
+ * owner only and a directory created for it is owner-only too; elsewhere protect the location with
+ * {@code config-snapshot.path}, or turn the snapshot off for applications holding secrets.
+ */
+public class ConfigSnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigSnapshotStore.class);
+    private static final ObjectMapper json = new ObjectMapper();
+    private static final Set<PosixFilePermission> OWNER_FILE = PosixFilePermissions.fromString("rw-------");
+    private static final Set<PosixFilePermission> OWNER_DIR = PosixFilePermissions.fromString("rwx------");
+
+    private final Path file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public ConfigSnapshotStore(Path file) {
+        this.file = file;
+        load();
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public Entry get(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(String key, String etag, byte[] body) {
+        Entry entry = new Entry(etag, versionOf(body), Instant.now().toString(), body);
+        entries.put(key, entry);
+        try {
+            ObjectNode root = json.createObjectNode();
+            entries.forEach((k, e) -> {
+                ObjectNode n = root.putObject(k);
+                n.put("etag", e.etag);
+                n.put("version", e.version);
+                n.put("fetchedAt", e.fetchedAt);
+                n.put("body", new String(e.body, StandardCharsets.UTF_8));
+            });
+            Path dir = file.toAbsolutePath().getParent();
+            boolean posix = dir.getFileSystem().supportedFileAttributeViews().contains("posix");
+            if (!Files.isDirectory(dir)) {
+                if (posix) Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(OWNER_DIR));
+                else Files.createDirectories(dir);
+            }
+            Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            // before anything is written; the move keeps them
+            if (posix) Files.setPosixFilePermissions(tmp, OWNER_FILE);
+            json.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), root);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Config snapshot for {} at version {} written to {}", key, entry.version, file);
+        } catch (IOException ex) {
+            // the in-memory entry still serves this process; the next write tries again
+            log.warn("Could not write config snapshot {}: {}", file, ex.toString());
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) return;
+        try {
+            JsonNode root = json.readTree(file.toFile());
+            for (Map.Entry<String, JsonNode> e : root.properties()) {
+                JsonNode n = e.getValue();
+                entries.put(e.getKey(), new Entry(n.path("etag").asText(null), n.path("version").asText(null),
+                        n.path("fetchedAt").asText(null), n.path("body").asText("").getBytes(StandardCharsets.UTF_8)));
+            }
+            log.info("Loaded config snapshot {} ({} responses)", file, entries.size());
+        } catch (IOException ex) {
+            log.warn("Ignoring unreadable config snapshot {}: {}", file, ex.toString());
+        }
+    }
+
+    private static String versionOf(byte[] body) {
+        try {
+            return json.readTree(body).path("version").asText(null);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    public static final class Entry {
+        final String etag;
+        final String version;
+        final String fetchedAt;
+        final byte[] body;
+
+        Entry(String etag, String version, String fetchedAt, byte[] body) {
+            this.etag = etag;
+            this.version = version;
+            this.fetchedAt = fetchedAt;
+            this.body = body;
+        }
+
+        public String version() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.configclient.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+class ConfigSnapshotInterceptorTest {
+
+    private static final String KEY = "/demoproject/default";
+    private static final String HELD = "{\"name\":\"demoproject\",\"version\":\"abc123\",\"propertySources\":[]}";
+
+    @TempDir
+    Path dir;
+
+    private ConfigSnapshotInterceptor interceptor(boolean live) {
+        ConfigSnapshotStore store = new ConfigSnapshotStore(dir.resolve("snapshot/demoproject.json"));
+        store.put(KEY, "\"abc123\"", HELD.getBytes(StandardCharsets.UTF_8));
+        ConfigSnapshotInterceptor interceptor = new ConfigSnapshotInterceptor(store);
+        if (live) interceptor.goLive();
+        return interceptor;
+    }
+
+    private static MockClientHttpRequest get() {
+        return new MockClientHttpRequest(HttpMethod.GET, URI.create("http://localhost:8888" + KEY));
+    }
+
+    private static String body(ClientHttpResponse response) throws IOException {
+        return new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void answersFromTheSnapshotWithoutTheNetworkUntilLive() throws Exception {
+        ConfigSnapshotInterceptor interceptor = interceptor(false);
+        AtomicInteger calls = new AtomicInteger();
+
+        ClientHttpResponse response = interceptor.intercept(get(), new byte[0], (req, b) -> {
+            calls.incrementAndGet();
+            return new MockClientHttpResponse(new byte[0], HttpStatus.SERVICE_UNAVAILABLE);
+        });
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(HELD, body(response));
+        assertEquals(0, calls.get());
+        assertTrue(interceptor.servedFromSnapshot().contains(KEY));
+    }
+
+    @Test
+    void notModifiedReplaysTheSnapshot() throws Exception {
+        ConfigSnapshotInterceptor interceptor = interceptor(true);
+
+        ClientHttpResponse response = interceptor.intercept(get(), new byte[0], (req, b) -> {
+            assertEquals("\"abc123\"", req.getHeaders().getIfNoneMatch().get(0));
+            return new MockClientHttpResponse(new byte[0], HttpStatus.NOT_MODIFIED);
+        });
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(HELD, body(response));
+    }
+
+    @Test
+    void serverErrorsAndOutagesFallBackToTheSnapshot() throws Exception {
+        ConfigSnapshotInterceptor interceptor = interceptor(true);
+
+        ClientHttpResponse failed = interceptor.intercept(get(), new byte[0],
+                (req, b) -> new MockClientHttpResponse(new byte[0], HttpStatus.SERVICE_UNAVAILABLE));
+        assertEquals(HttpStatus.OK, failed.getStatusCode());
+        assertEquals(HELD, body(failed));
+
+        ClientHttpResponse unreachable = interceptor.intercept(get(), new byte[0], (req, b) -> {
+            throw new ConnectException("Connection refused");
+        });
+        assertEquals(HELD, body(unreachable));
+    }
+
+    @Test
+    void newResponseReplacesTheSnapshotOnDiskReadableByTheOwnerOnly() throws Exception {
+        ConfigSnapshotInterceptor interceptor = interceptor(true);
+        String fresh = "{\"name\":\"demoproject\",\"version\":\"def456\",\"propertySources\":[]}";
+
+        ClientHttpResponse response = interceptor.intercept(get(), new byte[0], (req, b) -> {
+            MockClientHttpResponse ok = new MockClientHttpResponse(fresh.getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+            ok.getHeaders().setETag("\"def456\"");
+            return ok;
+        });
+        assertEquals(fresh, body(response));
+
+        Path file = interceptor.store().file();
+        assertEquals("def456", new ConfigSnapshotStore(file).get(KEY).version());
+        if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+            assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.getParent())));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.configserver.changes;
+
+import java.util.List;
+
+/**
+ * One event on the change feed. {@code type} is "change" when {@code label} moved from
+ * {@code from} to {@code version}, with {@code paths} the files that differ (null when unknown), or
+ * "reset" when the subscriber may have missed changes and should drop anything it holds for the
+ * label unless it is already at {@code version}. A reset without a label means drop everything.
+ */
+public class ConfigChange {
+
+    private final String type;
+    private final String label;
+    private final String from;
+    private final String version;
+    private final List<String> paths;
+
+    public ConfigChange(String type, String label, String from, String version, List<String> paths) {
+        this.type = type;
+        this.label = label;
+        this.from = from;
+        this.version = version;
+        this.paths = paths;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+}
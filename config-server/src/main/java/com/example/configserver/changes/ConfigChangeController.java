@@ -0,0 +1,30 @@
+package com.example.configserver.changes;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * {@code GET /changes}: a Server-Sent Events stream of label changes (see {@link ConfigChangeFeed}).
+ * Send the last event id seen back in {@code Last-Event-ID} to resume after a reconnect.
+ * Not offered with the snapshot cache disabled: nothing would ever be published, and a subscriber
+ * must not take a silent feed for a live one.
+ */
+@RestController
+@ConditionalOnProperty(name = "config-server.snapshot-cache.enabled", matchIfMissing = true)
+public class ConfigChangeController {
+
+    private final ConfigChangeFeed feed;
+
+    public ConfigChangeController(ConfigChangeFeed feed) {
+        this.feed = feed;
+    }
+
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return feed.subscribe(lastEventId);
+    }
+}
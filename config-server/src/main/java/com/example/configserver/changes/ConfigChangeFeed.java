@@ -0,0 +1,218 @@
+package com.example.configserver.changes;
+
+import com.example.configserver.snapshot.ConfigSnapshotCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fans label changes out to Server-Sent Events subscribers and keeps the last {@value #HISTORY}
+ * events, so a subscriber reconnecting with {@code Last-Event-ID} gets exactly what it missed. An
+ * event id is a position in this server's stream (an id for this run of the server, then a
+ * sequence number), and the resets a new subscriber gets carry the position they were sent at, so
+ * a subscriber can resume even when nothing has changed since it connected. A subscriber without
+ * an id this server can resume from (none, one from before a restart, or one older than the
+ * history) instead gets a "reset" without a label, telling it to drop everything it holds,
+ * followed by a "reset" per label with the version being served. The label-less reset matters
+ * after a restart, when no labels are cached yet.
+ *
+ * <p>Changes are published by {@link com.example.configserver.snapshot.SnapshotRefresher} when it
+ * swaps in a new snapshot, so {@code /changes} is only offered while the snapshot cache is enabled.
+ */
+@Component
+public class ConfigChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigChangeFeed.class);
+
+    static final int HISTORY = 256;
+    // subscribers reconnect (and resume) after this; keeps dead connections from piling up
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final GitChanges changes;
+    private final ObjectProvider<ConfigSnapshotCache> snapshots;
+    // ids from an earlier run of the server cannot be resumed from
+    private final String run = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final Deque<Event> history = new ArrayDeque<>();
+    // of the last event published; guarded by history
+    private long sequence;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    public ConfigChangeFeed(GitChanges changes, ObjectProvider<ConfigSnapshotCache> snapshots) {
+        this.changes = changes;
+        this.snapshots = snapshots;
+    }
+
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // queued under the history lock so nothing published meanwhile is missed or sent twice;
+        // sent outside it, so a slow subscriber holds up neither publishing nor other subscribers
+        synchronized (history) {
+            subscriber.queue(backlogAfter(lastEventId));
+            subscribers.add(subscriber);
+        }
+        subscriber.flush();
+        return emitter;
+    }
+
+    /** Record that {@code label} moved from {@code from} to {@code version} and tell subscribers. */
+    public void publish(String label, String from, String version) {
+        ConfigChange change = new ConfigChange("change", label, from, version, changes.between(from, version));
+        List<Subscriber> targets;
+        synchronized (history) {
+            Event event = new Event(run, ++sequence, change);
+            history.addLast(event);
+            while (history.size() > HISTORY) history.removeFirst();
+            targets = List.copyOf(subscribers);
+            for (Subscriber s : targets) s.queue(event);
+        }
+        for (Subscriber s : targets) s.flush();
+        log.info("Published change of {} {}..{} ({} paths) to {} subscribers", label, from, version,
+                change.getPaths() == null ? "unknown" : change.getPaths().size(), targets.size());
+    }
+
+    // keeps idle connections open through proxies and finds dead subscribers
+    @Scheduled(fixedDelay = 15_000)
+    public void heartbeat() {
+        for (Subscriber s : subscribers) {
+            try {
+                s.emitter.send(SseEmitter.event().comment("keepalive"));
+            } catch (IOException | IllegalStateException ex) {
+                subscribers.remove(s);
+            }
+        }
+    }
+
+    // under the history lock
+    private List<Event> backlogAfter(String lastEventId) {
+        List<Event> out = new ArrayList<>();
+        long after = position(lastEventId);
+        // resumable unless events after it have already been dropped from the history
+        if (after >= 0 && after <= sequence && (history.isEmpty() || after >= history.peekFirst().sequence - 1)) {
+            for (Event e : history) {
+                if (e.sequence > after) out.add(e);
+            }
+            return out;
+        }
+        out.add(new Event(run, sequence, new ConfigChange("reset", null, null, null, null)));
+        ConfigSnapshotCache cache = snapshots.getIfAvailable();
+        if (cache != null) {
+            for (String label : cache.labels()) {
+                out.add(new Event(run, sequence, new ConfigChange("reset", label, null, cache.version(label), null)));
+            }
+        }
+        return out;
+    }
+
+    // the sequence number in an id of this run, else -1
+    private long position(String id) {
+        if (id == null || !id.startsWith(run + ".")) return -1;
+        try {
+            return Long.parseLong(id.substring(run.length() + 1));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static void send(SseEmitter emitter, Event event) throws IOException {
+        emitter.send(SseEmitter.event().id(event.id).name(event.change.getType()).data(event.change, MediaType.APPLICATION_JSON));
+    }
+
+    private static final class Event {
+        final String id;
+        final long sequence;
+        final ConfigChange change;
+
+        Event(String run, long sequence, ConfigChange change) {
+            this.id = run + "." + sequence;
+            this.sequence = sequence;
+            this.change = change;
+        }
+    }
+
+    /**
+     * Events waiting to be sent to one subscriber, in the order they were published. Whichever thread
+     * finds it idle sends them; others only queue, so no thread waits on a subscriber another
+     * thread is already writing to. A subscriber that falls {@value #HISTORY} events behind is
+     * disconnected and resumes, or is reset, when it reconnects.
+     */
+    private final class Subscriber {
+        final SseEmitter emitter;
+        private final Deque<Event> pending = new ArrayDeque<>();
+        private boolean sending;
+        // nothing more is queued or sent; completed is whether the emitter was told
+        private boolean closed;
+        private boolean completed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // these are called under the history lock, so they never touch the emitter: completing waits for a send in progress
+        synchronized void queue(List<Event> backlog) {
+            pending.addAll(backlog);
+        }
+
+        synchronized void queue(Event event) {
+            if (closed) return;
+            pending.addLast(event);
+            if (pending.size() > HISTORY) close();
+        }
+
+        void flush() {
+            synchronized (this) {
+                if (sending) return;
+                sending = true;
+            }
+            while (true) {
+                Event next;
+                synchronized (this) {
+                    next = closed ? null : pending.pollFirst();
+                    if (next == null) {
+                        sending = false;
+                        break;
+                    }
+                }
+                try {
+                    send(emitter, next);
+                } catch (IOException | IllegalStateException ex) {
+                    synchronized (this) {
+                        close();
+                        completed = true;
+                        sending = false;
+                    }
+                    emitter.completeWithError(ex);
+                    return;
+                }
+            }
+            boolean complete;
+            synchronized (this) {
+                complete = closed && !completed;
+                completed |= complete;
+            }
+            if (complete) emitter.complete();
+        }
+
+        private void close() {
+            pending.clear();
+            closed = true;
+            subscribers.remove(this);
+        }
+    }
+}
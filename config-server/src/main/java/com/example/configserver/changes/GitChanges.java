@@ -0,0 +1,77 @@
+package com.example.configserver.changes;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.config.server.environment.JGitEnvironmentRepository;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Files that differ between two commits of the git backend, as paths relative to the configured
+ * search paths (the form clients use, e.g. {@code mappings/templates/invoice-v2.yml}).
+ */
+@Component
+public class GitChanges {
+
+    private static final Logger log = LoggerFactory.getLogger(GitChanges.class);
+
+    private final ObjectProvider<JGitEnvironmentRepository> gitRepositories;
+
+    public GitChanges(ObjectProvider<JGitEnvironmentRepository> gitRepositories) {
+        this.gitRepositories = gitRepositories;
+    }
+
+    /** Changed paths between {@code from} and {@code to}, or null when they cannot be determined. */
+    public List<String> between(String from, String to) {
+        JGitEnvironmentRepository git = gitRepositories.getIfAvailable();
+        if (git == null || from == null || to == null) return null;
+        try (Git g = Git.open(workingDir(git)); Repository repo = g.getRepository(); RevWalk walk = new RevWalk(repo);
+             DiffFormatter diff = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            RevCommit a = walk.parseCommit(ObjectId.fromString(from));
+            RevCommit b = walk.parseCommit(ObjectId.fromString(to));
+            diff.setRepository(repo);
+            TreeSet<String> paths = new TreeSet<>();
+            for (DiffEntry e : diff.scan(a.getTree(), b.getTree())) {
+                if (!DiffEntry.DEV_NULL.equals(e.getOldPath())) paths.add(relative(git.getSearchPaths(), e.getOldPath()));
+                if (!DiffEntry.DEV_NULL.equals(e.getNewPath())) paths.add(relative(git.getSearchPaths(), e.getNewPath()));
+            }
+            return List.copyOf(paths);
+        } catch (IOException | IllegalArgumentException ex) {
+            log.warn("Could not diff {}..{}: {}", from, to, ex.toString());
+            return null;
+        }
+    }
+
+    // a file: uri without clone-on-start is read in place rather than cloned into basedir
+    private static File workingDir(JGitEnvironmentRepository git) {
+        File basedir = git.getBasedir();
+        if (new File(basedir, ".git").exists() || git.getUri() == null || !git.getUri().startsWith("file:")) return basedir;
+        return new File(URI.create(git.getUri()));
+    }
+
+    // only literal search paths can be stripped; patterns with {application} etc. are left alone
+    static String relative(String[] searchPaths, String path) {
+        if (searchPaths != null) {
+            for (String sp : searchPaths) {
+                if (sp == null || sp.isEmpty() || sp.contains("{") || sp.contains("*")) continue;
+                String prefix = sp.endsWith("/") ? sp : sp + "/";
+                if (path.startsWith(prefix)) return path.substring(prefix.length());
+            }
+        }
+        return path;
+    }
+}
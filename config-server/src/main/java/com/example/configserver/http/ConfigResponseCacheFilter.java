@@ -0,0 +1,132 @@
+package com.example.configserver.http;
+
+import com.example.configserver.snapshot.ConfigSnapshotCache;
+import com.example.configserver.snapshot.RepositoryVersions;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Set;
+
+/**
+ * Validators for the environment ({@code /{application}/{profile}[/{label}]}) and file
+ * ({@code /{application}/{profile}/{label}/{path}}) endpoints.
+ *
+ * <p>The ETag is a hash of the label's commit and the request (path, query, Accept), so it is known
+ * before anything is resolved: a matching {@code If-None-Match} is answered with 304 without
+ * touching the repository or rendering a body. Every response also carries
+ * {@code Cache-Control: max-age} from {@code config-server.http-cache.max-age}. Backends without
+ * versions get neither header. Disabled with {@code config-server.http-cache.enabled=false}.
+ */
+@Component
+@ConditionalOnProperty(name = "config-server.http-cache.enabled", matchIfMissing = true)
+public class ConfigResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigResponseCacheFilter.class);
+
+    // first path segments that belong to other endpoints
+    private static final Set<String> OTHER_ENDPOINTS = Set.of("actuator", "mappings-manifest", "encrypt", "decrypt", "key", "monitor", "error");
+
+    private final ObjectProvider<ConfigSnapshotCache> snapshots;
+    private final RepositoryVersions versions;
+    private final String cacheControl;
+    private final String defaultLabel;
+
+    public ConfigResponseCacheFilter(ObjectProvider<ConfigSnapshotCache> snapshots, RepositoryVersions versions,
+                                     @Value("${config-server.http-cache.max-age:10s}") Duration maxAge,
+                                     @Value("${spring.cloud.config.server.git.default-label:main}") String defaultLabel) {
+        this.snapshots = snapshots;
+        this.versions = versions;
+        this.defaultLabel = defaultLabel;
+        this.cacheControl = CacheControl.maxAge(maxAge).getHeaderValue();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) return true;
+        String[] segments = segments(request);
+        if (segments.length < 2 || OTHER_ENDPOINTS.contains(segments[0])) return true;
+        // two segments is either /{application}/{profile} or /{label}/{application}-{profile}.yml
+        return segments.length == 2 && segments[1].contains(".");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String[] segments = segments(request);
+        // Spring Cloud Config clients leave the label out unless one is configured
+        String label = segments.length == 2 ? defaultLabel : segments[2].replace("(_)", "/");
+        String version;
+        try {
+            version = versionOf(label);
+        } catch (RuntimeException ex) {
+            // let the endpoint produce its own error for a label that cannot be resolved
+            log.debug("No version for label {}: {}", label, ex.toString());
+            version = null;
+        }
+        if (version == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String etag = etag(version, request);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    // the snapshot's commit when there is one, so the tag names what will actually be served
+    private String versionOf(String label) {
+        ConfigSnapshotCache cache = snapshots.getIfAvailable();
+        String version = cache == null ? null : cache.version(label);
+        return version != null ? version : versions.currentVersion(label);
+    }
+
+    private static String[] segments(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/")) path = path.substring(1);
+        return path.isEmpty() ? new String[0] : path.split("/");
+    }
+
+    static String etag(String version, HttpServletRequest request) {
+        String query = request.getQueryString();
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        String key = version + '\n' + request.getRequestURI() + '?' + (query == null ? "" : query) + '\n' + (accept == null ? "" : accept);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.equals("*") || c.equals(etag)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.configserver.manifest;
+
+import java.util.List;
+
+/**
+ * The mapping fragments that exist for one label at one repository version. Paths are
+ * repo-relative and without extension, e.g. {@code mappings/templates/invoice-v2}, which is how
+ * pdf-generation-service names its composition candidates.
+ */
+public class MappingManifest {
+
+    private String label;
+    private String version;
+    private List<String> paths;
+
+    public MappingManifest() {
+    }
+
+    public MappingManifest(String label, String version, List<String> paths) {
+        this.label = label;
+        this.version = version;
+        this.paths = paths;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public void setPaths(List<String> paths) {
+        this.paths = paths;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.configserver.manifest;
+
+import com.example.configserver.snapshot.RepositoryVersions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.config.server.environment.SearchPathLocator;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Publishes which mapping fragments exist under {@code mappings/} for a label, so clients can skip
+ * composition candidates that would only produce a 404.
+ *
+ * <p>{@code GET /mappings-manifest/{label}} answers with the manifest and an ETag of the repository
+ * version (the commit id for git). A request carrying that ETag in {@code If-None-Match} gets 304,
+ * so a client polling for changes only downloads the manifest again after a new commit. As on the
+ * environment and file endpoints, a {@code /} in the label is written {@code (_)}. The manifest is
+ * built once per (label, version) and only the latest version's is kept per label.
+ */
+@RestController
+public class MappingManifestController {
+
+    private static final Logger log = LoggerFactory.getLogger(MappingManifestController.class);
+    private static final String MAPPINGS_DIR = "mappings";
+
+    private final RepositoryVersions versions;
+    private final ResourceLoader resources = new DefaultResourceLoader();
+    // latest manifest per label; an older version is replaced, not kept alongside
+    private final Map<String, MappingManifest> built = new ConcurrentHashMap<>();
+
+    public MappingManifestController(RepositoryVersions versions) {
+        this.versions = versions;
+    }
+
+    @GetMapping("/mappings-manifest/{label}")
+    public ResponseEntity<MappingManifest> manifest(@PathVariable("label") String name,
+                                                    @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) throws IOException {
+        String label = name.replace("(_)", "/");
+        SearchPathLocator.Locations locations = versions.locate(label);
+        String version = locations.getVersion() == null ? "" : locations.getVersion();
+        String etag = "\"" + version + "\"";
+        if (!version.isEmpty() && etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        MappingManifest manifest = version.isEmpty() ? build(label, version, locations)
+                : built.compute(label, (k, held) -> held != null && version.equals(held.getVersion()) ? held : build(label, version, locations));
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(manifest);
+    }
+
+    private MappingManifest build(String label, String version, SearchPathLocator.Locations locations) {
+        TreeSet<String> paths = new TreeSet<>();
+        for (String location : locations.getLocations()) {
+            try {
+                Path root = resources.getResource(location).getFile().toPath();
+                Path mappings = root.resolve(MAPPINGS_DIR);
+                if (!Files.isDirectory(mappings)) continue;
+                try (Stream<Path> files = Files.walk(mappings)) {
+                    files.filter(Files::isRegularFile).forEach(f -> {
+                        String rel = root.relativize(f).toString().replace('\\', '/');
+                        String stripped = stripExtension(rel);
+                        if (stripped != null) paths.add(stripped);
+                    });
+                }
+            } catch (IOException e) {
+                log.warn("Skipping search location {} for mapping manifest: {}", location, e.toString());
+            }
+        }
+        log.info("Built mapping manifest for label {} at version {}: {} paths", label, version, paths.size());
+        return new MappingManifest(label, version, new ArrayList<>(paths));
+    }
+
+    // only files the config server can serve as mapping fragments
+    private static String stripExtension(String path) {
+        for (String ext : List.of(".yml", ".yaml", ".properties", ".json")) {
+            if (path.endsWith(ext)) return path.substring(0, path.length() - ext.length());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.configserver.snapshot;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.cloud.config.server.environment.SearchPathLocator;
+
+/**
+ * Serves {@code findOne} from {@link ConfigSnapshotCache}, which falls through to the wrapped
+ * (composite) repository on a miss. Search locations are passed through unchanged.
+ */
+public class CachingEnvironmentRepository implements EnvironmentRepository, SearchPathLocator {
+
+    private final EnvironmentRepository delegate;
+    private final ConfigSnapshotCache cache;
+
+    public CachingEnvironmentRepository(EnvironmentRepository delegate, ConfigSnapshotCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+        cache.bind(delegate);
+    }
+
+    @Override
+    public Environment findOne(String application, String profile, String label) {
+        return findOne(application, profile, label, false);
+    }
+
+    @Override
+    public Environment findOne(String application, String profile, String label, boolean includeOrigin) {
+        return cache.environment(application, profile, label, includeOrigin);
+    }
+
+    @Override
+    public Locations getLocations(String application, String profile, String label) {
+        return ((SearchPathLocator) delegate).getLocations(application, profile, label);
+    }
+}
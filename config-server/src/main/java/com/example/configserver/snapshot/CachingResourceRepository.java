@@ -0,0 +1,47 @@
+package com.example.configserver.snapshot;
+
+import org.springframework.cloud.config.server.resource.NoSuchResourceException;
+import org.springframework.cloud.config.server.resource.ResourceRepository;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * Serves repository files from {@link ConfigSnapshotCache} as in-memory resources; a file that does
+ * not exist keeps failing with {@link NoSuchResourceException} without touching the repository
+ * again until the snapshot changes.
+ */
+public class CachingResourceRepository implements ResourceRepository {
+
+    private final ConfigSnapshotCache cache;
+
+    public CachingResourceRepository(ResourceRepository delegate, ConfigSnapshotCache cache) {
+        this.cache = cache;
+        cache.bind(delegate);
+    }
+
+    @Override
+    public Resource findOne(String name, String profile, String label, String path) {
+        ConfigSnapshotCache.CachedFile file = cache.file(name, profile, label, path);
+        if (file == null) throw new NoSuchResourceException("Not found: " + path);
+        return new SnapshotResource(file);
+    }
+
+    private static final class SnapshotResource extends ByteArrayResource {
+        private final ConfigSnapshotCache.CachedFile file;
+
+        SnapshotResource(ConfigSnapshotCache.CachedFile file) {
+            super(file.content, "snapshot of " + file.filename);
+            this.file = file;
+        }
+
+        @Override
+        public String getFilename() {
+            return file.filename;
+        }
+
+        @Override
+        public long lastModified() {
+            return file.lastModified;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.configserver.snapshot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.cloud.config.server.resource.NoSuchResourceException;
+import org.springframework.cloud.config.server.resource.ResourceRepository;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolved environments and files per label, each label's set belonging to one commit. Files that
+ * do not exist are remembered too, since clients probe for optional mapping fragments on every
+ * request. A snapshot holds at most {@code max-environments} environments, {@code max-files} files
+ * and {@code max-missing-files} "not found" answers; past that a lookup is answered but not
+ * remembered, so requests for arbitrary names cannot grow the cache without bound.
+ *
+ * <p>Requests are served from the label's current snapshot and never check git for freshness;
+ * only the first request for a label resolves its version. {@link SnapshotRefresher} fetches in
+ * the background and, when a label's head has moved, {@link #refresh(String, String)} loads the
+ * environments and files of the old snapshot that were asked for while it was served at the new
+ * commit into a fresh snapshot and swaps it in whole, so a request never sees a mix of two
+ * commits. Entries nobody asked for, and "not found" answers, are learned again on demand, so
+ * the cost of a swap follows what clients use rather than everything ever requested.
+ *
+ * <p>Lookups are counted as {@code config.snapshot.requests} (kind, result), timed as
+ * {@code config.snapshot.serve} and summarised by {@code config.snapshot.hit.ratio}; snapshot size
+ * is published as {@code config.snapshot.entries} and {@code config.snapshot.bytes}.
+ */
+@Component
+@ConditionalOnProperty(name = "config-server.snapshot-cache.enabled", matchIfMissing = true)
+public class ConfigSnapshotCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigSnapshotCache.class);
+
+    static final String REQUESTS = "config.snapshot.requests";
+    static final String SERVE = "config.snapshot.serve";
+
+    private final RepositoryVersions versions;
+    private final MeterRegistry registry;
+    private final String defaultLabel;
+    private final int maxEnvironments;
+    private final int maxFiles;
+    private final int maxMissingFiles;
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    // by kind and result, registered on first use
+    private final Map<String, Counter> requests = new ConcurrentHashMap<>();
+    private final Map<String, Timer> serves = new ConcurrentHashMap<>();
+    private volatile EnvironmentRepository environments;
+    private volatile ResourceRepository resources;
+
+    public ConfigSnapshotCache(RepositoryVersions versions, MeterRegistry registry,
+                               @Value("${spring.cloud.config.server.git.default-label:main}") String defaultLabel,
+                               @Value("${config-server.snapshot-cache.max-environments:1000}") int maxEnvironments,
+                               @Value("${config-server.snapshot-cache.max-files:10000}") int maxFiles,
+                               @Value("${config-server.snapshot-cache.max-missing-files:10000}") int maxMissingFiles) {
+        this.versions = versions;
+        this.registry = registry;
+        this.defaultLabel = defaultLabel;
+        this.maxEnvironments = maxEnvironments;
+        this.maxFiles = maxFiles;
+        this.maxMissingFiles = maxMissingFiles;
+        Gauge.builder("config.snapshot.hit.ratio", this, ConfigSnapshotCache::hitRatio)
+                .description("Share of environment and file lookups answered from the snapshot cache")
+                .register(registry);
+        Gauge.builder("config.snapshot.entries", this, c -> c.snapshots.values().stream().mapToLong(Snapshot::entries).sum())
+                .description("Environments and files held across all label snapshots")
+                .register(registry);
+        Gauge.builder("config.snapshot.bytes", this, c -> c.snapshots.values().stream().mapToLong(Snapshot::fileBytes).sum())
+                .description("File content held across all label snapshots")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    // the repositories this cache fronts; set by SnapshotCacheConfig when it wraps them
+    void bind(EnvironmentRepository environments) {
+        this.environments = environments;
+    }
+
+    void bind(ResourceRepository resources) {
+        this.resources = resources;
+    }
+
+    public Environment environment(String application, String profile, String label, boolean includeOrigin) {
+        long start = System.nanoTime();
+        Snapshot snapshot = snapshotFor(label);
+        if (snapshot == null) return record("environment", false, start, loadEnvironment(application, profile, label, includeOrigin));
+
+        String key = application + "/" + profile + "/" + includeOrigin;
+        EnvEntry cached = snapshot.environments.get(key);
+        if (cached == null) {
+            Environment loaded = loadEnvironment(application, profile, label, includeOrigin);
+            // the clone may already be past this snapshot's commit; don't mix commits. Past the cap it is not remembered
+            if (snapshot.version.equals(loaded.getVersion()) && snapshot.environments.size() < maxEnvironments) {
+                snapshot.environments.putIfAbsent(key, new EnvEntry(application, profile, includeOrigin, copy(loaded)).use());
+            }
+            return record("environment", false, start, loaded);
+        }
+        return record("environment", true, start, copy(cached.use().environment));
+    }
+
+    /** Bytes of a repository file, or null when it does not exist at the label's snapshot. */
+    public CachedFile file(String application, String profile, String label, String path) {
+        long start = System.nanoTime();
+        Snapshot snapshot = snapshotFor(label);
+        if (snapshot == null) return record("file", false, start, loadFile(application, profile, label, path));
+
+        String key = application + "/" + profile + "/" + path;
+        CachedFile cached = snapshot.files.get(key);
+        if (cached == null) {
+            CachedFile loaded = loadFile(application, profile, label, path);
+            // past its cap a file or a miss is answered but not remembered
+            boolean keep = loaded == null
+                    ? snapshot.missing.get() < maxMissingFiles
+                    : snapshot.files.size() - snapshot.missing.get() < maxFiles;
+            // a resource carries no version, so ask the clone where it is now; don't mix commits
+            if (keep && snapshot.version.equals(versions.currentVersion(labelOrDefault(label)))
+                    && snapshot.files.putIfAbsent(key, loaded == null ? CachedFile.missing(application, profile, path) : loaded.use()) == null
+                    && loaded == null) {
+                snapshot.missing.incrementAndGet();
+            }
+            return record("file", false, start, loaded);
+        }
+        return record("file", true, start, cached.content == null ? null : cached.use());
+    }
+
+    /** Labels that have a snapshot, i.e. that clients have asked for. */
+    public Set<String> labels() {
+        return snapshots.keySet();
+    }
+
+    /** Version of the snapshot currently served for {@code label}, or null. */
+    public String version(String label) {
+        Snapshot s = snapshots.get(label);
+        return s == null ? null : s.version;
+    }
+
+    /**
+     * Build the snapshot for {@code version} from the entries of the current one that were asked for
+     * and swap it in. The repository clone must already be at {@code version}. Returns false when it
+     * was current.
+     */
+    boolean refresh(String label, String version) {
+        Snapshot current = snapshots.get(label);
+        if (current != null && current.version.equals(version)) return false;
+
+        Snapshot next = new Snapshot(version);
+        if (current != null) {
+            for (Map.Entry<String, EnvEntry> e : current.environments.entrySet()) {
+                EnvEntry old = e.getValue();
+                if (!old.used) continue;
+                try {
+                    Environment env = loadEnvironment(old.application, old.profile, label, old.includeOrigin);
+                    next.environments.put(e.getKey(), new EnvEntry(old.application, old.profile, old.includeOrigin, copy(env)));
+                } catch (RuntimeException ex) {
+                    log.warn("Not carrying {} into snapshot {} of {}: {}", e.getKey(), version, label, ex.toString());
+                }
+            }
+            for (Map.Entry<String, CachedFile> e : current.files.entrySet()) {
+                CachedFile old = e.getValue();
+                // a miss is cheap to learn again on demand; re-resolving every probe would make each swap slower
+                if (old.content == null || !old.used) continue;
+                try {
+                    CachedFile file = loadFile(old.application, old.profile, label, old.path);
+                    if (file != null) next.files.put(e.getKey(), file);
+                } catch (RuntimeException ex) {
+                    log.warn("Not carrying {} into snapshot {} of {}: {}", e.getKey(), version, label, ex.toString());
+                }
+            }
+        }
+        snapshots.put(label, next);
+        log.info("Label {} now served from snapshot {} ({} entries, {} file bytes)", label, version, next.entries(), next.fileBytes());
+        return true;
+    }
+
+    // null for backends without versions: nothing to key on, so nothing is cached
+    private Snapshot snapshotFor(String label) {
+        String l = labelOrDefault(label);
+        Snapshot s = snapshots.get(l);
+        if (s != null) return s;
+        String version = versions.currentVersion(l);
+        if (version == null) return null;
+        return snapshots.computeIfAbsent(l, k -> new Snapshot(version));
+    }
+
+    private String labelOrDefault(String label) {
+        return label == null || label.isBlank() ? defaultLabel : label;
+    }
+
+    private Environment loadEnvironment(String application, String profile, String label, boolean includeOrigin) {
+        return environments.findOne(application, profile, label, includeOrigin);
+    }
+
+    private CachedFile loadFile(String application, String profile, String label, String path) {
+        Resource resource;
+        try {
+            resource = resources.findOne(application, profile, label, path);
+        } catch (NoSuchResourceException e) {
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return new CachedFile(application, profile, path, resource.getFilename(), StreamUtils.copyToByteArray(in), resource.lastModified());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> T record(String kind, boolean hit, long startNanos, T value) {
+        (hit ? hits : misses).increment();
+        String result = hit ? "hit" : "miss";
+        String key = kind + "/" + result;
+        requests.computeIfAbsent(key, k -> Counter.builder(REQUESTS)
+                .description("Environment and file lookups by snapshot cache outcome")
+                .tag("kind", kind)
+                .tag("result", result)
+                .register(registry))
+                .increment();
+        serves.computeIfAbsent(key, k -> Timer.builder(SERVE)
+                .description("Time to resolve an environment or file, including repository access on a miss")
+                .tag("kind", kind)
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(registry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        return value;
+    }
+
+    private double hitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    // callers (the encryption wrapper, the controllers) may modify what they get back
+    private static Environment copy(Environment env) {
+        Environment out = new Environment(env.getName(), env.getProfiles(), env.getLabel(), env.getVersion(), env.getState());
+        for (PropertySource ps : env.getPropertySources()) {
+            out.add(new PropertySource(ps.getName(), new LinkedHashMap<>(ps.getSource())));
+        }
+        return out;
+    }
+
+    private static final class Snapshot {
+        final String version;
+        final Map<String, EnvEntry> environments = new ConcurrentHashMap<>();
+        final Map<String, CachedFile> files = new ConcurrentHashMap<>();
+        // "not found" entries in files
+        final AtomicInteger missing = new AtomicInteger();
+
+        Snapshot(String version) {
+            this.version = version;
+        }
+
+        long entries() {
+            return environments.size() + files.size();
+        }
+
+        long fileBytes() {
+            long n = 0;
+            for (CachedFile f : files.values()) n += f.content == null ? 0 : f.content.length;
+            return n;
+        }
+    }
+
+    private static final class EnvEntry {
+        final String application;
+        final String profile;
+        final boolean includeOrigin;
+        final Environment environment;
+        // asked for while this snapshot was served; only such entries are carried into the next
+        volatile boolean used;
+
+        EnvEntry(String application, String profile, boolean includeOrigin, Environment environment) {
+            this.application = application;
+            this.profile = profile;
+            this.includeOrigin = includeOrigin;
+            this.environment = environment;
+        }
+
+        EnvEntry use() {
+            if (!used) used = true;
+            return this;
+        }
+    }
+
+    /** File content captured from a repository resource; {@code content} is null for a missing file. */
+    public static final class CachedFile {
+        final String application;
+        final String profile;
+        final String path;
+        final String filename;
+        final byte[] content;
+        final long lastModified;
+        // asked for while its snapshot was served; only such files are carried into the next
+        volatile boolean used;
+
+        CachedFile(String application, String profile, String path, String filename, byte[] content, long lastModified) {
+            this.application = application;
+            this.profile = profile;
+            this.path = path;
+            this.filename = filename;
+            this.content = content;
+            this.lastModified = lastModified;
+        }
+
+        static CachedFile missing(String application, String profile, String path) {
+            return new CachedFile(application, profile, path, null, null, 0);
+        }
+
+        CachedFile use() {
+            if (!used) used = true;
+            return this;
+        }
+    }
+}
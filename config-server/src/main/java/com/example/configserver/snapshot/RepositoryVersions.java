@@ -0,0 +1,59 @@
+package com.example.configserver.snapshot;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.config.server.environment.JGitEnvironmentRepository;
+import org.springframework.cloud.config.server.environment.SearchPathLocator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the repository version (the commit id for git) and search locations of a label.
+ */
+@Component
+public class RepositoryVersions {
+
+    // resolved per call: the repositories being located may themselves be wrapped by the snapshot cache
+    private final ObjectProvider<SearchPathLocator> locators;
+    private final ObjectProvider<JGitEnvironmentRepository> gitRepositories;
+
+    public RepositoryVersions(ObjectProvider<SearchPathLocator> locators,
+                              ObjectProvider<JGitEnvironmentRepository> gitRepositories) {
+        this.locators = locators;
+        this.gitRepositories = gitRepositories;
+    }
+
+    /**
+     * The composite repository reports locations without a version, so prefer a backend that knows
+     * it. For git, resolving locations also brings the local clone up to date for the label.
+     */
+    public SearchPathLocator.Locations locate(String label) {
+        SearchPathLocator.Locations first = null;
+        for (SearchPathLocator locator : (Iterable<SearchPathLocator>) locators.orderedStream()::iterator) {
+            if (locator instanceof CachingEnvironmentRepository) continue;
+            SearchPathLocator.Locations locations = locator.getLocations("application", "default", label);
+            if (locations.getVersion() != null) return locations;
+            if (first == null) first = locations;
+        }
+        return first;
+    }
+
+    /** Current version of {@code label}, or null when the backend is not versioned. */
+    public String currentVersion(String label) {
+        SearchPathLocator.Locations locations = locate(label);
+        return locations == null ? null : locations.getVersion();
+    }
+
+    /**
+     * Fetch {@code label} from the remote regardless of {@code refresh-rate} and return the version
+     * the local clone is now at. Backends other than git are just asked for their current version.
+     */
+    public String fetchVersion(String label) {
+        String version = null;
+        for (JGitEnvironmentRepository git : (Iterable<JGitEnvironmentRepository>) gitRepositories.orderedStream()::iterator) {
+            // refresh() skips the fetch while the last one is younger than refresh-rate
+            git.setLastRefresh(0);
+            String v = git.refresh(label);
+            if (version == null) version = v;
+        }
+        return version != null ? version : currentVersion(label);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.configserver.snapshot;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.config.server.environment.SearchPathCompositeEnvironmentRepository;
+import org.springframework.cloud.config.server.resource.ResourceRepository;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Puts {@link ConfigSnapshotCache} in front of the config server's primary environment repository
+ * and its resource repository, so both the environment and the file endpoints are served from it,
+ * and schedules {@link SnapshotRefresher}.
+ * Disabled with {@code config-server.snapshot-cache.enabled=false}.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "config-server.snapshot-cache.enabled", matchIfMissing = true)
+public class SnapshotCacheConfig {
+
+    @Bean
+    public static BeanPostProcessor snapshotCachingRepositories(ObjectProvider<ConfigSnapshotCache> cache) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof SearchPathCompositeEnvironmentRepository) {
+                    return new CachingEnvironmentRepository((SearchPathCompositeEnvironmentRepository) bean, cache.getObject());
+                }
+                if (bean instanceof ResourceRepository && !(bean instanceof CachingResourceRepository)) {
+                    return new CachingResourceRepository((ResourceRepository) bean, cache.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.configserver.snapshot;
+
+import com.example.configserver.changes.ConfigChangeFeed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps {@link ConfigSnapshotCache} current without putting git on the request path: every
+ * {@code config-server.snapshot-cache.refresh-interval} it fetches each label clients have asked
+ * for and, when the head has moved, has the cache build and swap in the new commit's snapshot and
+ * announces the move on the {@link ConfigChangeFeed}.
+ * Each pass per label is timed as {@code config.snapshot.refresh} (result: unchanged, swapped,
+ * error).
+ */
+@Component
+@ConditionalOnProperty(name = "config-server.snapshot-cache.enabled", matchIfMissing = true)
+public class SnapshotRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotRefresher.class);
+
+    private final ConfigSnapshotCache cache;
+    private final RepositoryVersions versions;
+    private final MeterRegistry registry;
+    private final ConfigChangeFeed feed;
+
+    public SnapshotRefresher(ConfigSnapshotCache cache, RepositoryVersions versions, MeterRegistry registry, ConfigChangeFeed feed) {
+        this.cache = cache;
+        this.versions = versions;
+        this.registry = registry;
+        this.feed = feed;
+    }
+
+    @Scheduled(initialDelayString = "${config-server.snapshot-cache.refresh-interval:10s}",
+            fixedDelayString = "${config-server.snapshot-cache.refresh-interval:10s}")
+    public void refreshAll() {
+        for (String label : List.copyOf(cache.labels())) {
+            refresh(label);
+        }
+    }
+
+    void refresh(String label) {
+        long start = System.nanoTime();
+        String result = "error";
+        try {
+            String version = versions.fetchVersion(label);
+            if (version == null) {
+                log.warn("Label {} has no version after fetch; keeping snapshot {}", label, cache.version(label));
+            } else {
+                String previous = cache.version(label);
+                result = cache.refresh(label, version) ? "swapped" : "unchanged";
+                if (previous != null && !previous.equals(version)) feed.publish(label, previous, version);
+            }
+        } catch (RuntimeException ex) {
+            // keep serving the old snapshot; the next pass tries again
+            log.warn("Refreshing label {} failed: {}", label, ex.toString());
+        } finally {
+            Timer.builder("config.snapshot.refresh")
+                    .description("Background fetch of a label and, when it moved, rebuild of its snapshot")
+                    .tag("result", result)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.configserver;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A local git repository for the config server to clone, starting on {@code main}. Commits go to
+ * the branch named, which is created from the current one when it does not exist yet.
+ */
+public class GitRepoFixture {
+
+    private final Path dir;
+
+    public GitRepoFixture(Path dir) throws GitAPIException {
+        this.dir = dir;
+        Git.init().setDirectory(dir.toFile()).setInitialBranch("main").call().close();
+    }
+
+    public String uri() {
+        return dir.toUri().toString();
+    }
+
+    /** Write {@code content} to {@code path} on {@code branch} and commit it; returns the commit id. */
+    public String commit(String branch, String path, String content) throws IOException, GitAPIException {
+        try (Git git = Git.open(dir.toFile())) {
+            if (git.getRepository().resolve(Constants.HEAD) != null && !branch.equals(git.getRepository().getBranch())) {
+                boolean exists = git.getRepository().findRef(Constants.R_HEADS + branch) != null;
+                git.checkout().setName(branch).setCreateBranch(!exists).call();
+            }
+            Path file = dir.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, content, StandardCharsets.UTF_8);
+            git.add().addFilepattern(path).call();
+            return git.commit()
+                    .setMessage("Update " + path)
+                    .setAuthor("test", "test@example.com")
+                    .setCommitter("test", "test@example.com")
+                    .setSign(false)
+                    .call()
+                    .getName();
+        }
+    }
+
+    public String commit(String path, String content) throws IOException, GitAPIException {
+        return commit("main", path, content);
+    }
+}
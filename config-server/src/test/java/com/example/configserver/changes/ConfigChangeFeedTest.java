@@ -0,0 +1,138 @@
+package com.example.configserver.changes;
+
+import com.example.configserver.GitRepoFixture;
+import com.example.configserver.snapshot.SnapshotRefresher;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "config-server.snapshot-cache.refresh-interval=1h")
+@AutoConfigureMockMvc
+class ConfigChangeFeedTest {
+
+    private static final ObjectMapper json = new ObjectMapper();
+
+    @TempDir
+    static Path dir;
+    static GitRepoFixture repo;
+
+    @Autowired
+    MockMvc mvc;
+    @Autowired
+    SnapshotRefresher refresher;
+    @Autowired
+    ConfigChangeFeed feed;
+
+    @BeforeAll
+    static void createRepo() throws Exception {
+        repo = new GitRepoFixture(dir);
+        repo.commit("invoice-service.yml", "pdf:\n  title: Invoice\n");
+        repo.commit("mappings/base-application.yml", "mapping: {}\n");
+    }
+
+    @DynamicPropertySource
+    static void gitRepo(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.config.server.git.uri", repo::uri);
+    }
+
+    @Test
+    void subscriberResumesFromTheLastEventItSawOrIsReset() throws Exception {
+        // a label is only reset, and only moves, once clients have asked for it
+        mvc.perform(get("/invoice-service/default/main")).andExpect(status().isOk());
+        String from = version();
+
+        MvcResult fresh = subscribe(null);
+        Assertions.assertEquals(List.of("reset", "reset main " + from), events(fresh));
+        String connected = lastId(fresh);
+        // nothing happened since the resets, so there is nothing to replay and nothing to drop
+        Assertions.assertEquals(List.of(), events(subscribe(connected)));
+
+        String to = repo.commit("mappings/base-application.yml", "mapping:\n  pdf: {}\n");
+        refresher.refreshAll();
+        Assertions.assertEquals(List.of("reset", "reset main " + from, "change main " + to + " [mappings/base-application.yml]"),
+                events(fresh));
+        String changed = lastId(fresh);
+        Assertions.assertNotEquals(connected, changed);
+
+        Assertions.assertEquals(List.of("change main " + to + " [mappings/base-application.yml]"), events(subscribe(connected)));
+        Assertions.assertEquals(List.of(), events(subscribe(changed)));
+        // an id the server cannot resume from (it restarted, or the id is too old) starts over
+        Assertions.assertEquals(List.of("reset", "reset main " + to), events(subscribe("x" + changed)));
+        Assertions.assertEquals(List.of("reset", "reset main " + to), events(subscribe("main@" + to)));
+    }
+
+    @Test
+    void subscriberTooFarBehindIsReset() throws Exception {
+        String start = lastId(subscribe(null));
+        feed.publish("release", "0000", "0001");
+        String second = lastId(subscribe(null));
+        for (int i = 2; i <= ConfigChangeFeed.HISTORY + 1; i++) {
+            feed.publish("release", String.format("%04d", i - 1), String.format("%04d", i));
+        }
+
+        // the first change has just been dropped from the history, the ones after it not yet
+        Assertions.assertEquals(ConfigChangeFeed.HISTORY, events(subscribe(second)).size());
+        Assertions.assertEquals("reset", events(subscribe(start)).get(0));
+    }
+
+    private String version() throws Exception {
+        String body = mvc.perform(get("/invoice-service/default/main")).andReturn().getResponse().getContentAsString();
+        return json.readTree(body).get("version").asText();
+    }
+
+    private MvcResult subscribe(String lastEventId) throws Exception {
+        var req = get("/changes");
+        if (lastEventId != null) req.header("Last-Event-ID", lastEventId);
+        return mvc.perform(req).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    // "type label version [paths]" per event, leaving out what an event does not carry; keepalives are skipped
+    private static List<String> events(MvcResult result) throws Exception {
+        List<String> out = new ArrayList<>();
+        for (String block : blocks(result)) {
+            JsonNode data = null;
+            for (String line : block.split("\n")) {
+                if (line.startsWith("data:")) data = json.readTree(line.substring(5));
+            }
+            if (data == null) continue;
+            StringBuilder e = new StringBuilder(data.get("type").asText());
+            if (!data.get("label").isNull()) e.append(' ').append(data.get("label").asText());
+            if (!data.get("version").isNull()) e.append(' ').append(data.get("version").asText());
+            if (!data.get("paths").isNull()) e.append(' ').append(json.convertValue(data.get("paths"), List.class));
+            out.add(e.toString());
+        }
+        return out;
+    }
+
+    private static String lastId(MvcResult result) throws Exception {
+        String id = null;
+        for (String block : blocks(result)) {
+            for (String line : block.split("\n")) {
+                if (line.startsWith("id:")) id = line.substring(3);
+            }
+        }
+        return id;
+    }
+
+    private static String[] blocks(MvcResult result) throws Exception {
+        return result.getResponse().getContentAsString().split("\n\n");
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.configserver.http;
+
+import com.example.configserver.GitRepoFixture;
+import com.example.configserver.snapshot.SnapshotRefresher;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.file.Path;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "config-server.snapshot-cache.refresh-interval=1h")
+@AutoConfigureMockMvc
+class ConfigResponseCacheFilterTest {
+
+    @TempDir
+    static Path dir;
+    static GitRepoFixture repo;
+
+    @Autowired
+    MockMvc mvc;
+    @Autowired
+    SnapshotRefresher refresher;
+
+    @BeforeAll
+    static void createRepo() throws Exception {
+        repo = new GitRepoFixture(dir);
+        repo.commit("invoice-service.yml", "pdf:\n  title: Invoice\n");
+        repo.commit("mappings/base-application.yml", "mapping:\n  pdf:\n    field:\n      customerName: customer.name\n");
+        repo.commit("feature/x", "invoice-service.yml", "pdf:\n  title: Invoice (feature)\n");
+        repo.commit("main", "receipt-service.yml", "pdf:\n  title: Receipt\n");
+    }
+
+    @DynamicPropertySource
+    static void gitRepo(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.config.server.git.uri", repo::uri);
+    }
+
+    @Test
+    void environmentIsTaggedAndAMatchingTagIsAnsweredWith304() throws Exception {
+        MvcResult first = mvc.perform(get("/invoice-service/default/main"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=10"))
+                .andExpect(jsonPath("$.propertySources[0].source['pdf.title']").value("Invoice"))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotNull(etag);
+
+        mvc.perform(get("/invoice-service/default/main").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        mvc.perform(get("/invoice-service/default/main").header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag))
+                .andExpect(status().isNotModified());
+
+        // the tag names the request too, not just the commit
+        String other = mvc.perform(get("/receipt-service/default/main"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotEquals(etag, other);
+    }
+
+    @Test
+    void tagChangesOnceTheRefresherSwapsInANewCommit() throws Exception {
+        String etag = mvc.perform(get("/receipt-service/default/main"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        repo.commit("receipt-service.yml", "pdf:\n  title: Receipt v2\n");
+        // until the refresher fetches, the snapshot and so the tag stay at the old commit
+        mvc.perform(get("/receipt-service/default/main").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        refresher.refreshAll();
+        MvcResult after = mvc.perform(get("/receipt-service/default/main").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.propertySources[0].source['pdf.title']").value("Receipt v2"))
+                .andReturn();
+        String next = after.getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotNull(next);
+        Assertions.assertNotEquals(etag, next);
+        mvc.perform(get("/receipt-service/default/main").header(HttpHeaders.IF_NONE_MATCH, next))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void filesAreTaggedLikeEnvironments() throws Exception {
+        String etag = mvc.perform(get("/application/default/main/mappings/base-application.yml"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("customerName")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotNull(etag);
+
+        mvc.perform(get("/application/default/main/mappings/base-application.yml").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void labelDefaultsAndSlashesAreWrittenAsUnderscoreInParentheses() throws Exception {
+        String unlabelled = mvc.perform(get("/invoice-service/default"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotNull(unlabelled);
+        mvc.perform(get("/invoice-service/default").header(HttpHeaders.IF_NONE_MATCH, unlabelled))
+                .andExpect(status().isNotModified());
+
+        String feature = mvc.perform(get("/invoice-service/default/feature(_)x"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.propertySources[0].source['pdf.title']").value("Invoice (feature)"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotNull(feature);
+        mvc.perform(get("/invoice-service/default/feature(_)x").header(HttpHeaders.IF_NONE_MATCH, feature))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void otherEndpointsAreLeftAlone() throws Exception {
+        mvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+        mvc.perform(get("/main/invoice-service-default.yml"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.CACHE_CONTROL));
+    }
+}
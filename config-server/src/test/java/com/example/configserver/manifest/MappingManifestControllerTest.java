@@ -0,0 +1,95 @@
+package com.example.configserver.manifest;
+
+import com.example.configserver.GitRepoFixture;
+import com.example.configserver.snapshot.RepositoryVersions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Path;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "config-server.snapshot-cache.refresh-interval=1h")
+@AutoConfigureMockMvc
+class MappingManifestControllerTest {
+
+    @TempDir
+    static Path dir;
+    static GitRepoFixture repo;
+    static String feature;
+
+    @Autowired
+    MockMvc mvc;
+    @Autowired
+    RepositoryVersions versions;
+
+    @BeforeAll
+    static void createRepo() throws Exception {
+        repo = new GitRepoFixture(dir);
+        repo.commit("invoice-service.yml", "pdf:\n  title: Invoice\n");
+        repo.commit("mappings/base-application.yml", "mapping: {}\n");
+        repo.commit("mappings/README.md", "Fragments composed by pdf-generation-service\n");
+        repo.commit("mappings/templates/invoice-v2.yml", "mapping: {}\n");
+        feature = repo.commit("feature/x", "mappings/templates/receipt.yml", "mapping: {}\n");
+    }
+
+    @DynamicPropertySource
+    static void gitRepo(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.config.server.git.uri", repo::uri);
+    }
+
+    @Test
+    void listsServableMappingsTaggedWithTheCommit() throws Exception {
+        String version = versions.currentVersion("main");
+        String etag = "\"" + version + "\"";
+        mvc.perform(get("/mappings-manifest/main"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(jsonPath("$.label").value("main"))
+                .andExpect(jsonPath("$.version").value(version))
+                .andExpect(jsonPath("$.paths", hasItems("mappings/base-application", "mappings/templates/invoice-v2")))
+                .andExpect(jsonPath("$.paths", not(hasItem("mappings/README"))));
+
+        mvc.perform(get("/mappings-manifest/main").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    void newCommitIsServedOnceFetched() throws Exception {
+        String before = versions.currentVersion("main");
+        String added = repo.commit("main", "mappings/templates/statement.yml", "mapping: {}\n");
+        versions.fetchVersion("main");
+
+        mvc.perform(get("/mappings-manifest/main").header(HttpHeaders.IF_NONE_MATCH, "\"" + before + "\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + added + "\""))
+                .andExpect(jsonPath("$.paths", contains("mappings/base-application", "mappings/templates/invoice-v2",
+                        "mappings/templates/statement")));
+    }
+
+    @Test
+    void slashInTheLabelIsWrittenAsUnderscoreInParentheses() throws Exception {
+        mvc.perform(get("/mappings-manifest/feature(_)x"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + feature + "\""))
+                .andExpect(jsonPath("$.label").value("feature/x"))
+                .andExpect(jsonPath("$.paths", contains("mappings/base-application", "mappings/templates/invoice-v2",
+                        "mappings/templates/receipt")));
+    }
+}
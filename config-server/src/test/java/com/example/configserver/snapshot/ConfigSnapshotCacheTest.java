@@ -0,0 +1,121 @@
+package com.example.configserver.snapshot;
+
+import com.example.configserver.GitRepoFixture;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Path;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "config-server.snapshot-cache.refresh-interval=1h",
+        "config-server.snapshot-cache.max-missing-files=2"
+})
+@AutoConfigureMockMvc
+class ConfigSnapshotCacheTest {
+
+    @TempDir
+    static Path dir;
+    static GitRepoFixture repo;
+    static String first;
+
+    @Autowired
+    MockMvc mvc;
+    @Autowired
+    ConfigSnapshotCache cache;
+    @Autowired
+    SnapshotRefresher refresher;
+    @Autowired
+    MeterRegistry registry;
+
+    @BeforeAll
+    static void createRepo() throws Exception {
+        repo = new GitRepoFixture(dir);
+        repo.commit("invoice-service.yml", "pdf:\n  title: Invoice\n");
+        first = repo.commit("mappings/base-application.yml", "mapping:\n  pdf:\n    field:\n      customerName: customer.name\n");
+        // each test works on its own label, so entry counts can be compared before and after
+        repo.commit("carry", "invoice-service.yml", "pdf:\n  title: Carried\n");
+        repo.commit("probe", "invoice-service.yml", "pdf:\n  title: Probed\n");
+    }
+
+    @DynamicPropertySource
+    static void gitRepo(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.config.server.git.uri", repo::uri);
+    }
+
+    @Test
+    void servesOneCommitUntilTheRefresherSwapsInTheNext() throws Exception {
+        mvc.perform(get("/invoice-service/default/main"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(first))
+                .andExpect(jsonPath("$.propertySources[0].source['pdf.title']").value("Invoice"));
+        Assertions.assertEquals(first, cache.version("main"));
+
+        String second = repo.commit("main", "invoice-service.yml", "pdf:\n  title: Invoice v2\n");
+        mvc.perform(get("/invoice-service/default/main"))
+                .andExpect(jsonPath("$.version").value(first))
+                .andExpect(jsonPath("$.propertySources[0].source['pdf.title']").value("Invoice"));
+
+        refresher.refreshAll();
+        Assertions.assertEquals(second, cache.version("main"));
+        mvc.perform(get("/invoice-service/default/main"))
+                .andExpect(jsonPath("$.version").value(second))
+                .andExpect(jsonPath("$.propertySources[0].source['pdf.title']").value("Invoice v2"));
+    }
+
+    @Test
+    void onlyEntriesAskedForSinceTheLastSwapAreCarried() throws Exception {
+        double before = entries();
+        mvc.perform(get("/invoice-service/default/carry")).andExpect(status().isOk());
+        // the file endpoint resolves application/default too, for placeholders in the file
+        mvc.perform(get("/application/default/carry/mappings/base-application.yml")).andExpect(status().isOk());
+        Assertions.assertEquals(before + 3, entries());
+
+        repo.commit("carry", "invoice-service.yml", "pdf:\n  title: Carried v2\n");
+        refresher.refresh("carry");
+        Assertions.assertEquals(before + 3, entries());
+
+        // only one environment is asked for at the new commit, so the rest is left behind
+        mvc.perform(get("/invoice-service/default/carry"))
+                .andExpect(jsonPath("$.propertySources[0].source['pdf.title']").value("Carried v2"));
+        String third = repo.commit("carry", "invoice-service.yml", "pdf:\n  title: Carried v3\n");
+        refresher.refresh("carry");
+        Assertions.assertEquals(third, cache.version("carry"));
+        Assertions.assertEquals(before + 1, entries());
+    }
+
+    @Test
+    void missingFilesAreRememberedUpToTheCap() throws Exception {
+        double before = entries();
+        for (int i = 0; i < 5; i++) {
+            mvc.perform(get("/application/default/probe/mappings/missing-" + i + ".yml")).andExpect(status().isNotFound());
+        }
+        Assertions.assertEquals(before + 2, entries());
+
+        double hits = fileLookups("hit");
+        mvc.perform(get("/application/default/probe/mappings/missing-0.yml")).andExpect(status().isNotFound());
+        mvc.perform(get("/application/default/probe/mappings/missing-4.yml")).andExpect(status().isNotFound());
+        Assertions.assertEquals(hits + 1, fileLookups("hit"));
+    }
+
+    private double entries() {
+        return registry.get("config.snapshot.entries").gauge().value();
+    }
+
+    private double fileLookups(String result) {
+        var counter = registry.find(ConfigSnapshotCache.REQUESTS).tag("kind", "file").tag("result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
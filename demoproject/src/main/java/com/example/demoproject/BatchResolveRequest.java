@@ -0,0 +1,27 @@
+package com.example.demoproject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Body of {@code POST /resolve/batch}: one JSON document and the named paths to read from it. */
+public class BatchResolveRequest {
+
+    private Object document;
+    private Map<String, String> expressions = new LinkedHashMap<>();
+
+    public Object getDocument() {
+        return document;
+    }
+
+    public void setDocument(Object document) {
+        this.document = document;
+    }
+
+    public Map<String, String> getExpressions() {
+        return expressions;
+    }
+
+    public void setExpressions(Map<String, String> expressions) {
+        this.expressions = expressions;
+    }
+}
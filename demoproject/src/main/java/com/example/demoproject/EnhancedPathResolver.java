@@ -1,13 +1,29 @@
 package com.example.demoproject;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 public class EnhancedPathResolver {
 
     public static Object read(Object jsonContext, String simplePath) {
+        return read(jsonContext, simplePath, NodeAdapter.of(jsonContext));
+    }
+
+    /**
+     * Resolve a path over any tree model the adapter understands, walking the document in place.
+     * Results are the document's own nodes (e.g. {@code JsonNode}s for {@link NodeAdapter#JACKSON} or
+     * a Jackson-backed Jayway provider), a single node or a list of them as with {@code Map} documents;
+     * a JSON null is returned as {@code null}.
+     */
+    public static Object read(Object jsonContext, String simplePath, NodeAdapter adapter) {
         if (simplePath == null || simplePath.trim().isEmpty() || jsonContext == null) return null;
 
         List<Object> current = new ArrayList<>();
@@ -18,74 +34,126 @@ public class EnhancedPathResolver {
         for (String seg : segments) {
             String field = seg;
             String predicate = null;
+            Selector selector = null;
             int idx = seg.indexOf('[');
             if (idx >= 0) {
                 field = seg.substring(0, idx);
-                predicate = seg.substring(idx + 1, seg.lastIndexOf(']'));
-            }
-
-            List<Object> next = new ArrayList<>();
-            for (Object ctx : current) {
-                if (ctx instanceof Map) {
-                    Object val = ((Map<?, ?>) ctx).get(field);
-                    if (val == null) continue;
-                    if (val instanceof List) {
-                        next.addAll((List<?>) val);
-                    } else {
-                        next.add(val);
-                    }
-                } else if (ctx instanceof List) {
-                    for (Object item : (List<?>) ctx) {
-                        if (item instanceof Map) {
-                            Object val = ((Map<?, ?>) item).get(field);
-                            if (val == null) continue;
-                            if (val instanceof List) next.addAll((List<?>) val);
-                            else next.add(val);
-                        }
-                    }
-                }
+                predicate = bracketed(seg, idx);
+                selector = Selector.parse(predicate);
+                if (selector != null) predicate = null;
             }
 
-            if (predicate != null) {
-                List<Condition> conds = parsePredicate(predicate);
-                next = next.stream().filter(n -> matchesAllConditions(n, conds)).collect(Collectors.toList());
-            }
+            List<Object> next = project(current, field, selector, adapter);
+            if (predicate != null) next = filter(next, parsePredicate(predicate), adapter);
 
             current = next;
             if (current.isEmpty()) break;
         }
 
+        return finish(current);
+    }
+
+    /**
+     * Resolve many named paths against one document, with the same result per path as
+     * {@link #read}. Paths sharing a prefix walk it once, each distinct predicate is compiled once,
+     * and when several sibling paths filter the same nodes by equality on the same key (e.g.
+     * {@code lines[sku='A']}, {@code lines[sku='B']}) they are answered from one hash index over
+     * those nodes instead of a scan each. Results are keyed by name, in the order given.
+     */
+    public static Map<String, Object> readAll(Object jsonContext, Map<String, String> namedPaths) {
+        return compileAll(namedPaths).read(jsonContext);
+    }
+
+    /**
+     * Compile named paths once for use against many documents: {@link CompiledBatch#read} gives the
+     * same result as {@link #readAll} without re-splitting paths or re-parsing predicates. The
+     * compiled batch is immutable and may be shared between threads. A malformed path, such as one
+     * with an unclosed {@code [}, is an {@link IllegalArgumentException}.
+     */
+    public static CompiledBatch compileAll(Map<String, String> namedPaths) {
+        return new CompiledBatch(namedPaths);
+    }
+
+    private static Object finish(List<Object> current) {
         if (current.isEmpty()) return null;
         if (current.size() == 1) return current.get(0);
         return current;
     }
 
-    private static boolean matchesAllConditions(Object node, List<Condition> conditions) {
-        if (conditions.isEmpty()) return true;
-        if (!(node instanceof Map)) return false;
-        Map<?, ?> m = (Map<?, ?>) node;
-        for (Condition c : conditions) {
-            Object actual = getValueByPath(m, c.key);
-            if (!matchesWithOperator(actual, c.operator, c.expected)) return false;
+    // One path step: the field of every object in current, with arrays flattened one level, or
+    // only the selected elements of each array when there is a selector. An empty field with a
+    // selector (a path starting with [0]) selects from the current nodes themselves.
+    private static List<Object> project(List<Object> current, String field, Selector selector, NodeAdapter a) {
+        List<Object> next = new ArrayList<>();
+        for (Object ctx : current) {
+            if (selector != null && field.isEmpty()) {
+                select(next, ctx, selector, a);
+            } else if (a.isObject(ctx)) {
+                select(next, a.field(ctx, field), selector, a);
+            } else if (a.isArray(ctx)) {
+                for (int i = 0, n = a.size(ctx); i < n; i++) {
+                    Object item = a.element(ctx, i);
+                    if (a.isObject(item)) select(next, a.field(item, field), selector, a);
+                }
+            }
+        }
+        return next;
+    }
+
+    // Visits only the selected indexes, so [0] or [-1] of a large array is O(1)
+    private static void select(List<Object> next, Object val, Selector selector, NodeAdapter a) {
+        if (val == null) return;
+        if (!a.isArray(val)) {
+            if (selector == null || selector.all()) next.add(val);
+            return;
+        }
+        int n = a.size(val);
+        int from = selector == null ? 0 : selector.from(n);
+        int to = selector == null ? n : selector.to(n);
+        for (int i = from; i < to; i++) next.add(a.element(val, i));
+    }
+
+    private static List<Object> filter(List<Object> nodes, Filter f, NodeAdapter a) {
+        List<Object> filtered = new ArrayList<>();
+        for (Object n : nodes) {
+            if (f.matches(n, a)) filtered.add(n);
+        }
+        return filtered;
+    }
+
+    /**
+     * Compile a predicate expression (the part between brackets, e.g. {@code price>20 and type='home'}
+     * or {@code status in ('A','B') or qty>10}) into a reusable filter over candidate nodes.
+     */
+    public static Predicate<Object> compileFilter(String predicate) {
+        Filter f = parsePredicate(predicate);
+        return node -> f.matches(node, NodeAdapter.of(node));
+    }
+
+    private static boolean matchesAllConditions(Object node, List<Condition> conditions, NodeAdapter a) {
+        for (int i = 0; i < conditions.size(); i++) {
+            Condition c = conditions.get(i);
+            Object actual = a.value(getValueByPath(node, c.keyParts, a));
+            if (!c.matches(actual)) return false;
         }
         return true;
     }
 
-    private static Object getValueByPath(Object node, String keyPath) {
-        if (node == null || keyPath == null || keyPath.isEmpty()) return null;
-        String[] parts = keyPath.split("\\.");
+    private static Object getValueByPath(Object node, String[] parts, NodeAdapter a) {
+        if (node == null || parts.length == 0) return null;
         Object cur = node;
         for (String p : parts) {
             if (cur == null) return null;
-            if (cur instanceof Map) {
-                cur = ((Map<?, ?>) cur).get(p);
-            } else if (cur instanceof List) {
-                // if it's a list, we can't resolve a nested property directly;
+            if (a.isObject(cur)) {
+                cur = a.field(cur, p);
+            } else if (a.isArray(cur)) {
+                // if it's an array, we can't resolve a nested property directly;
                 // try to find the property on any element and return the first match
                 Object found = null;
-                for (Object item : (List<?>) cur) {
-                    if (item instanceof Map) {
-                        Object v = ((Map<?, ?>) item).get(p);
+                for (int i = 0, n = a.size(cur); i < n; i++) {
+                    Object item = a.element(cur, i);
+                    if (a.isObject(item)) {
+                        Object v = a.field(item, p);
                         if (v != null) { found = v; break; }
                     }
                 }
@@ -98,121 +166,159 @@ public class EnhancedPathResolver {
         return cur;
     }
 
-    private static boolean matchesWithOperator(Object actual, String operator, Object expected) {
-        if (operator == null || operator.isEmpty()) operator = "=";
-        if (expected == null) {
-            boolean eq = actual == null;
-            return "!=".equals(operator) ? !eq : eq;
+    /**
+     * Terms joined by {@code and} bind tighter than {@code or}; a term is {@code key op value} or
+     * {@code key in (v1, v2, ...)}. Keywords inside quotes or an {@code in} list are not split on.
+     * Terms that do not parse are ignored, and a predicate without any matches every object.
+     */
+    private static Filter parsePredicate(String predicate) {
+        List<List<Condition>> anyOf = new ArrayList<>();
+        for (String group : splitOnKeyword(predicate, "or")) {
+            List<Condition> allOf = new ArrayList<>();
+            for (String term : splitOnKeyword(group, "and")) {
+                Condition c = parseCondition(term.trim());
+                if (c != null) allOf.add(c);
+            }
+            if (!allOf.isEmpty()) anyOf.add(allOf);
+        }
+        return new Filter(foldEqualities(anyOf));
+    }
+
+    // k='A' or k='B' or k in ('C') becomes the single hashed condition k in ('A','B','C')
+    private static List<List<Condition>> foldEqualities(List<List<Condition>> anyOf) {
+        if (anyOf.size() < 2) return anyOf;
+        String[] key = anyOf.get(0).get(0).keyParts;
+        for (List<Condition> allOf : anyOf) {
+            if (allOf.size() != 1) return anyOf;
+            Condition c = allOf.get(0);
+            if ((c.operator != Operator.EQ && c.operator != Operator.IN) || !Arrays.equals(key, c.keyParts)) return anyOf;
         }
+        ValueSet values = new ValueSet();
+        for (List<Condition> allOf : anyOf) values.add(allOf.get(0));
+        List<List<Condition>> folded = new ArrayList<>(1);
+        folded.add(List.of(Condition.in(key, values)));
+        return folded;
+    }
 
-        // Boolean handling
-        if (expected instanceof Boolean) {
-            Boolean exp = (Boolean) expected;
-            Boolean act = null;
-            if (actual instanceof Boolean) act = (Boolean) actual;
-            else {
-                String s = stringValue(actual);
-                if (s != null) act = Boolean.valueOf(s);
-            }
-            if (act == null) return false;
-            return "!=".equals(operator) ? !exp.equals(act) : exp.equals(act);
-        }
-
-        // Numeric handling
-        if (expected instanceof Number) {
-            Double expD = ((Number) expected).doubleValue();
-            Double actD = null;
-            if (actual instanceof Number) actD = ((Number) actual).doubleValue();
-            else {
-                String s = stringValue(actual);
-                if (s != null) {
-                    try { actD = Double.parseDouble(s); } catch (NumberFormatException e) { return false; }
+    private static Condition parseCondition(String expr) {
+        int in = indexOfKeyword(expr, "in", 0);
+        if (in > 0) {
+            String list = expr.substring(in + 2).trim();
+            if (list.startsWith("(") && list.endsWith(")")) {
+                ValueSet values = new ValueSet();
+                for (String item : splitOnComma(list.substring(1, list.length() - 1))) {
+                    String rawVal = item.trim();
+                    if (rawVal.isEmpty()) continue;
+                    boolean quoted = isQuoted(rawVal);
+                    if (quoted) rawVal = rawVal.substring(1, rawVal.length() - 1);
+                    values.add(Condition.of("", Operator.EQ, rawVal, quoted));
                 }
+                return Condition.in(expr.substring(0, in).trim().split("\\."), values);
             }
-            if (actD == null) return false;
-            switch (operator) {
-                case "!":
-                case "!=": return Double.compare(actD, expD) != 0;
-                case ">": return Double.compare(actD, expD) > 0;
-                case "<": return Double.compare(actD, expD) < 0;
-                case ">=": return Double.compare(actD, expD) >= 0;
-                case "<=": return Double.compare(actD, expD) <= 0;
-                default: return Double.compare(actD, expD) == 0;
+        }
+        Operator operator = null;
+        String key = null;
+        String rawVal = null;
+        // check for multi-char operators first
+        for (Operator op : Operator.PARSE_ORDER) {
+            int pos = expr.indexOf(op.symbol);
+            if (pos > 0) {
+                operator = op;
+                key = expr.substring(0, pos).trim();
+                rawVal = expr.substring(pos + op.symbol.length()).trim();
+                break;
             }
         }
+        if (operator == null || key == null || rawVal == null) return null;
+        boolean quoted = isQuoted(rawVal);
+        if (quoted) rawVal = rawVal.substring(1, rawVal.length() - 1);
+        return Condition.of(key, operator, rawVal, quoted);
+    }
 
-        // String/fallback handling
-        String a = stringValue(actual);
-        String e = String.valueOf(expected);
-        if (a == null) return false;
-        switch (operator) {
-            case "!":
-            case "!=": return !a.equals(e);
-            case ">": return a.compareTo(e) > 0;
-            case "<": return a.compareTo(e) < 0;
-            case ">=": return a.compareTo(e) >= 0;
-            case "<=": return a.compareTo(e) <= 0;
-            default: return a.equals(e);
-        }
+    private static boolean isQuoted(String v) {
+        return v.length() >= 2 && ((v.startsWith("'") && v.endsWith("'")) || (v.startsWith("\"") && v.endsWith("\"")));
     }
 
-    private static String stringValue(Object o) {
-        return o == null ? null : String.valueOf(o);
+    // Parts of s around each whitespace-delimited keyword outside quotes and parentheses
+    private static List<String> splitOnKeyword(String s, String word) {
+        List<String> parts = new ArrayList<>();
+        int from = 0;
+        int at;
+        while ((at = indexOfKeyword(s, word, from)) >= 0) {
+            parts.add(s.substring(from, at));
+            from = at + word.length();
+        }
+        parts.add(s.substring(from));
+        return parts;
     }
 
-    private static List<Condition> parsePredicate(String predicate) {
-        List<Condition> out = new ArrayList<>();
-        String[] parts = predicate.split("\\s+and\\s+");
-        for (String p : parts) {
-            String expr = p.trim();
-            String operator = null;
-            String key = null;
-            String rawVal = null;
-            // check for multi-char operators first
-            String[] ops = {"!=", ">=", "<=", ">", "<", "=", "=="};
-            for (String op : ops) {
-                int pos = expr.indexOf(op);
-                if (pos > 0) {
-                    operator = op.equals("==") ? "=" : op;
-                    key = expr.substring(0, pos).trim();
-                    rawVal = expr.substring(pos + op.length()).trim();
-                    break;
-                }
-            }
-            if (operator == null || key == null || rawVal == null) continue;
-            boolean quoted = false;
-            if ((rawVal.startsWith("'") && rawVal.endsWith("'")) || (rawVal.startsWith("\"") && rawVal.endsWith("\""))) {
-                rawVal = rawVal.substring(1, rawVal.length() - 1);
-                quoted = true;
+    // Position of word preceded by whitespace and followed by whitespace or '(', outside quotes and parentheses
+    private static int indexOfKeyword(String s, String word, int from) {
+        char quote = 0;
+        int depth = 0;
+        for (int i = from; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && i > from && Character.isWhitespace(s.charAt(i - 1)) && s.startsWith(word, i)) {
+                int end = i + word.length();
+                if (end < s.length() && (Character.isWhitespace(s.charAt(end)) || s.charAt(end) == '(')) return i;
             }
-            Object parsed = parseTypedValue(rawVal, quoted);
-            out.add(new Condition(key, operator, parsed));
         }
-        return out;
+        return -1;
     }
 
-    private static Object parseTypedValue(String rawVal, boolean quoted) {
-        if (!quoted) {
-            String low = rawVal.toLowerCase();
-            if ("true".equals(low) || "false".equals(low)) return Boolean.valueOf(low);
-            // integer
-            if (rawVal.matches("^-?\\d+$")) {
-                try {
-                    return Long.parseLong(rawVal);
-                } catch (NumberFormatException e) {
-                    // fallback to double
-                }
-            }
-            // decimal
-            if (rawVal.matches("^-?\\d+\\.\\d+$")) {
-                try {
-                    return Double.parseDouble(rawVal);
-                } catch (NumberFormatException e) {
-                    // fallback to string
-                }
+    private static List<String> splitOnComma(String s) {
+        List<String> items = new ArrayList<>();
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == ',') {
+                items.add(s.substring(start, i));
+                start = i + 1;
             }
         }
-        return rawVal;
+        items.add(s.substring(start));
+        return items;
+    }
+
+    // same shape as ^-?\\d+$ without going through the regex engine
+    private static boolean isInteger(String s) {
+        return isDigits(s, s.startsWith("-") ? 1 : 0, s.length());
+    }
+
+    // same shape as ^-?\\d+\\.\\d+$
+    private static boolean isDecimal(String s) {
+        int dot = s.indexOf('.');
+        if (dot < 0) return false;
+        return isDigits(s, s.startsWith("-") ? 1 : 0, dot) && isDigits(s, dot + 1, s.length());
+    }
+
+    private static boolean isDigits(String s, int from, int to) {
+        if (from >= to) return false;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    // The text between the '[' at open and the last ']'
+    private static String bracketed(String segment, int open) {
+        int close = segment.lastIndexOf(']');
+        if (close < open) throw new IllegalArgumentException("Unclosed '[' in path segment '" + segment + "'");
+        return segment.substring(open + 1, close);
     }
 
     private static List<String> splitPath(String path) {
@@ -234,10 +340,456 @@ public class EnhancedPathResolver {
         return segs;
     }
 
-    private static class Condition {
-        final String key;
-        final String operator;
-        final Object expected;
-        Condition(String k, String operator, Object expected) { this.key = k; this.operator = operator; this.expected = expected; }
+    // A trie of path segments: the paths of a batch that share a prefix share its node
+    private static final class BatchNode {
+        final String field;
+        final String predicate;
+        final Selector selector;
+        // siblings with the same key share one projection of the parent's nodes
+        final String projectionKey;
+        final Map<String, BatchNode> children = new LinkedHashMap<>();
+        final List<String> names = new ArrayList<>(1);
+        Filter filter;
+        // field + key path for a single string or number equality, null for anything else
+        String equalityKey;
+        // set on a parent: equality keys shared by two or more children, answered from an index
+        Set<String> indexedKeys = Set.of();
+
+        BatchNode(String segment) {
+            int idx = segment == null ? -1 : segment.indexOf('[');
+            this.field = idx >= 0 ? segment.substring(0, idx) : segment;
+            String inner = idx >= 0 ? bracketed(segment, idx) : null;
+            this.selector = inner == null ? null : Selector.parse(inner);
+            this.predicate = selector == null ? inner : null;
+            this.projectionKey = selector == null ? field : field + "[" + inner.trim() + "]";
+        }
+    }
+
+    /** Named paths compiled by {@link #compileAll}, ready to be resolved against any document. */
+    public static final class CompiledBatch {
+        private final List<String> allNames = new ArrayList<>();
+        private final BatchNode root = new BatchNode(null);
+
+        private CompiledBatch(Map<String, String> namedPaths) {
+            for (Map.Entry<String, String> e : namedPaths.entrySet()) {
+                allNames.add(e.getKey());
+                String path = e.getValue();
+                if (path == null || path.trim().isEmpty()) continue;
+                BatchNode node = root;
+                try {
+                    for (String seg : splitPath(path)) node = node.children.computeIfAbsent(seg, BatchNode::new);
+                } catch (IllegalArgumentException ex) {
+                    throw new IllegalArgumentException("Invalid path for '" + e.getKey() + "': " + ex.getMessage(), ex);
+                }
+                node.names.add(e.getKey());
+            }
+            prepare(root, new HashMap<>());
+        }
+
+        public Map<String, Object> read(Object jsonContext) {
+            return read(jsonContext, NodeAdapter.of(jsonContext));
+        }
+
+        /** As {@link #read(Object)}, over any tree model the adapter understands. */
+        public Map<String, Object> read(Object jsonContext, NodeAdapter adapter) {
+            Map<String, Object> out = new LinkedHashMap<>();
+            for (String name : allNames) out.put(name, null);
+            if (jsonContext == null) return out;
+
+            List<Object> start = new ArrayList<>(1);
+            start.add(jsonContext);
+            walk(root, start, out, adapter);
+            return out;
+        }
+
+        // each distinct predicate is parsed once per batch
+        private static void prepare(BatchNode node, Map<String, Filter> compiled) {
+            // an index pays off once two siblings filter the same field by equality on the same key
+            Map<String, Integer> equalityUses = new HashMap<>();
+            for (BatchNode child : node.children.values()) {
+                if (child.predicate != null) {
+                    child.filter = compiled.computeIfAbsent(child.predicate, EnhancedPathResolver::parsePredicate);
+                    child.equalityKey = equalityKey(child);
+                    if (child.equalityKey != null) equalityUses.merge(child.equalityKey, 1, Integer::sum);
+                }
+                prepare(child, compiled);
+            }
+            Set<String> indexed = new HashSet<>();
+            equalityUses.forEach((key, uses) -> { if (uses > 1) indexed.add(key); });
+            if (!indexed.isEmpty()) node.indexedKeys = indexed;
+        }
+
+        private static String equalityKey(BatchNode child) {
+            Condition c = child.filter.single();
+            if (c == null) return null;
+            if (c.operator != Operator.EQ || c.type == ValueType.BOOLEAN) return null;
+            return child.field + "[" + String.join(".", c.keyParts) + "]";
+        }
+
+        private static void walk(BatchNode node, List<Object> current, Map<String, Object> out, NodeAdapter a) {
+            if (!node.names.isEmpty()) {
+                Object result = finish(current);
+                for (String name : node.names) {
+                    // names on one node must not share a mutable list
+                    out.put(name, result instanceof List ? new ArrayList<>((List<?>) result) : result);
+                }
+            }
+            if (current.isEmpty() || node.children.isEmpty()) return;
+
+            Map<String, List<Object>> projections = new HashMap<>();
+            Map<String, EqualityIndex> indexes = new HashMap<>();
+            for (BatchNode child : node.children.values()) {
+                List<Object> projected = projections.computeIfAbsent(child.projectionKey, k -> project(current, child.field, child.selector, a));
+                List<Object> next = projected;
+                if (child.predicate != null) {
+                    if (child.equalityKey != null && node.indexedKeys.contains(child.equalityKey)) {
+                        Condition c = child.filter.single();
+                        next = indexes.computeIfAbsent(child.equalityKey, k -> new EqualityIndex(projected, c.keyParts, a)).lookup(c);
+                    } else {
+                        next = filter(projected, child.filter, a);
+                    }
+                }
+                walk(child, next, out, a);
+            }
+        }
+    }
+
+    /**
+     * Nodes grouped by the value at one key path, in their original order. Keys follow the
+     * conversions of {@link Condition#matches}: the string form for string equality, the parsed
+     * double for number equality (built on first use).
+     */
+    private static final class EqualityIndex {
+        private final List<Object> nodes;
+        private final String[] keyParts;
+        private final NodeAdapter adapter;
+        private Map<String, List<Object>> byString;
+        private Map<Double, List<Object>> byNumber;
+
+        EqualityIndex(List<Object> nodes, String[] keyParts, NodeAdapter adapter) {
+            this.nodes = nodes;
+            this.keyParts = keyParts;
+            this.adapter = adapter;
+        }
+
+        List<Object> lookup(Condition c) {
+            List<Object> hits;
+            if (c.type == ValueType.NUMBER) {
+                if (byNumber == null) byNumber = build(EnhancedPathResolver::numberOf);
+                hits = byNumber.get(c.expectedNum);
+            } else {
+                if (byString == null) byString = build(EnhancedPathResolver::stringOf);
+                hits = byString.get(c.expectedStr);
+            }
+            return hits == null ? new ArrayList<>() : hits;
+        }
+
+        private <K> Map<K, List<Object>> build(Function<Object, K> keyOf) {
+            Map<K, List<Object>> index = new HashMap<>();
+            for (Object n : nodes) {
+                if (!adapter.isObject(n)) continue;
+                Object actual = adapter.value(getValueByPath(n, keyParts, adapter));
+                if (actual == null) continue;
+                K key = keyOf.apply(actual);
+                if (key != null) index.computeIfAbsent(key, k -> new ArrayList<>()).add(n);
+            }
+            return index;
+        }
+    }
+
+    // Hash keys for equality: Double.equals is Double.compare == 0, the test Condition.matchesNumber applies
+    private static Double numberOf(Object actual) {
+        if (actual instanceof Number) return ((Number) actual).doubleValue();
+        try {
+            return Double.parseDouble(stringOf(actual));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String stringOf(Object actual) {
+        return actual instanceof String ? (String) actual : String.valueOf(actual);
+    }
+
+    /** A parsed predicate: any of its groups matching, where a group matches when all its conditions do. */
+    private static final class Filter {
+        private final List<List<Condition>> anyOf;
+
+        Filter(List<List<Condition>> anyOf) {
+            this.anyOf = anyOf;
+        }
+
+        boolean matches(Object node, NodeAdapter a) {
+            if (anyOf.isEmpty()) return true;
+            if (!a.isObject(node)) return false;
+            for (int i = 0; i < anyOf.size(); i++) {
+                if (matchesAllConditions(node, anyOf.get(i), a)) return true;
+            }
+            return false;
+        }
+
+        // the only condition of a one-term predicate, null otherwise
+        Condition single() {
+            return anyOf.size() == 1 && anyOf.get(0).size() == 1 ? anyOf.get(0).get(0) : null;
+        }
+    }
+
+    /**
+     * The values of an {@code in} list, hashed by the type each was written as, so membership is
+     * one lookup per type instead of a comparison per value. A node value matches when any of the
+     * equality tests of {@link Condition#matches} would: its string form against the strings, its
+     * double against the numbers, its truth value against the booleans.
+     */
+    private static final class ValueSet {
+        private final Set<String> strings = new HashSet<>();
+        private final Set<Double> numbers = new HashSet<>();
+        private boolean hasTrue;
+        private boolean hasFalse;
+
+        void add(Condition c) {
+            if (c.values != null) {
+                strings.addAll(c.values.strings);
+                numbers.addAll(c.values.numbers);
+                hasTrue |= c.values.hasTrue;
+                hasFalse |= c.values.hasFalse;
+                return;
+            }
+            switch (c.type) {
+                case BOOLEAN:
+                    if (c.expectedBool) hasTrue = true;
+                    else hasFalse = true;
+                    break;
+                case NUMBER:
+                    numbers.add(c.expectedNum);
+                    break;
+                default:
+                    strings.add(c.expectedStr);
+            }
+        }
+
+        boolean contains(Object actual) {
+            if (actual == null) return false;
+            if (!strings.isEmpty() && strings.contains(stringOf(actual))) return true;
+            if (!numbers.isEmpty()) {
+                Double d = numberOf(actual);
+                if (d != null && numbers.contains(d)) return true;
+            }
+            if (hasTrue || hasFalse) {
+                boolean act = actual instanceof Boolean ? (Boolean) actual : "true".equalsIgnoreCase(stringOf(actual));
+                return act ? hasTrue : hasFalse;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A positional bracket segment: an index ({@code [0]}, {@code [-1]} from the end), a slice
+     * ({@code [1:3]}, {@code [-2:]}, {@code [:10]}, end exclusive, bounds clamped to the array) or
+     * {@code [*]} for every element. Anything else between brackets is a predicate.
+     */
+    private static final class Selector {
+        private static final Selector ALL = new Selector(false, null, null);
+
+        private final boolean index;
+        private final Integer start;
+        private final Integer end;
+
+        private Selector(boolean index, Integer start, Integer end) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+        }
+
+        // null when inner is not a selector
+        static Selector parse(String inner) {
+            String s = inner.trim();
+            if ("*".equals(s)) return ALL;
+            if (isInteger(s)) {
+                Integer i = bound(s);
+                return i == null ? null : new Selector(true, i, null);
+            }
+            int colon = s.indexOf(':');
+            if (colon < 0) return null;
+            String lo = s.substring(0, colon).trim();
+            String hi = s.substring(colon + 1).trim();
+            Integer from = bound(lo);
+            Integer to = bound(hi);
+            if ((from == null && !lo.isEmpty()) || (to == null && !hi.isEmpty())) return null;
+            return new Selector(false, from, to);
+        }
+
+        // an int bound, or null for an empty or non-integer one
+        private static Integer bound(String s) {
+            if (!isInteger(s)) return null;
+            try {
+                return Integer.valueOf(s);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        boolean all() {
+            return this == ALL;
+        }
+
+        // [from, to) within an array of n elements; empty when from >= to
+        int from(int n) {
+            if (index) {
+                int i = start < 0 ? n + start : start;
+                return i >= 0 && i < n ? i : 0;
+            }
+            return start == null ? 0 : clamp(start, n);
+        }
+
+        int to(int n) {
+            if (index) {
+                int i = start < 0 ? n + start : start;
+                return i >= 0 && i < n ? i + 1 : 0;
+            }
+            return end == null ? n : clamp(end, n);
+        }
+
+        private static int clamp(int bound, int n) {
+            int i = bound < 0 ? n + bound : bound;
+            return Math.max(0, Math.min(i, n));
+        }
+    }
+
+    private enum Operator {
+        NE("!="), GE(">="), LE("<="), GT(">"), LT("<"), EQ("="), IN("in");
+
+        // order matters: two-char operators must be tried before their one-char prefixes; IN is a keyword, parsed separately
+        static final Operator[] PARSE_ORDER = {NE, GE, LE, GT, LT, EQ};
+
+        final String symbol;
+
+        Operator(String symbol) { this.symbol = symbol; }
+
+        boolean test(int cmp) {
+            switch (this) {
+                case NE: return cmp != 0;
+                case GT: return cmp > 0;
+                case LT: return cmp < 0;
+                case GE: return cmp >= 0;
+                case LE: return cmp <= 0;
+                default: return cmp == 0;
+            }
+        }
+    }
+
+    private enum ValueType { BOOLEAN, NUMBER, STRING }
+
+    /**
+     * A single predicate term compiled once per read: the key path is pre-split, the operator is
+     * resolved to an enum and the expected value is kept in primitive form, so evaluating a
+     * condition against a node does not box, split or re-parse anything on the common paths.
+     */
+    private static final class Condition {
+        final String[] keyParts;
+        final Operator operator;
+        final ValueType type;
+        final boolean expectedBool;
+        final double expectedNum;
+        final String expectedStr;
+        // the hashed values of an IN condition, null for the others
+        final ValueSet values;
+
+        private Condition(String[] keyParts, Operator operator, ValueType type, boolean expectedBool, double expectedNum, String expectedStr, ValueSet values) {
+            this.keyParts = keyParts;
+            this.operator = operator;
+            this.type = type;
+            this.expectedBool = expectedBool;
+            this.expectedNum = expectedNum;
+            this.expectedStr = expectedStr;
+            this.values = values;
+        }
+
+        private Condition(String key, Operator operator, ValueType type, boolean expectedBool, double expectedNum, String expectedStr) {
+            this(key.split("\\."), operator, type, expectedBool, expectedNum, expectedStr, null);
+        }
+
+        static Condition in(String[] keyParts, ValueSet values) {
+            return new Condition(keyParts, Operator.IN, null, false, 0, null, values);
+        }
+
+        static Condition of(String key, Operator operator, String rawVal, boolean quoted) {
+            if (!quoted) {
+                String low = rawVal.toLowerCase();
+                if ("true".equals(low) || "false".equals(low)) {
+                    return new Condition(key, operator, ValueType.BOOLEAN, Boolean.parseBoolean(low), 0, rawVal);
+                }
+                if (isInteger(rawVal)) {
+                    try {
+                        return new Condition(key, operator, ValueType.NUMBER, false, Long.parseLong(rawVal), rawVal);
+                    } catch (NumberFormatException e) {
+                        // fallback to double
+                    }
+                }
+                if (isDecimal(rawVal)) {
+                    try {
+                        return new Condition(key, operator, ValueType.NUMBER, false, Double.parseDouble(rawVal), rawVal);
+                    } catch (NumberFormatException e) {
+                        // fallback to string
+                    }
+                }
+            }
+            return new Condition(key, operator, ValueType.STRING, false, 0, rawVal);
+        }
+
+        boolean matches(Object actual) {
+            if (values != null) return values.contains(actual);
+            switch (type) {
+                case BOOLEAN: return matchesBoolean(actual);
+                case NUMBER: return matchesNumber(actual);
+                default: return matchesString(actual);
+            }
+        }
+
+        private boolean matchesBoolean(Object actual) {
+            boolean act;
+            if (actual instanceof Boolean) act = (Boolean) actual;
+            else if (actual instanceof String) act = "true".equalsIgnoreCase((String) actual);
+            else if (actual != null) act = "true".equalsIgnoreCase(String.valueOf(actual));
+            else return false;
+            // only != negates; ordering operators fall back to equality for booleans
+            return operator == Operator.NE ? act != expectedBool : act == expectedBool;
+        }
+
+        private boolean matchesNumber(Object actual) {
+            double act;
+            if (actual instanceof Number) {
+                act = ((Number) actual).doubleValue();
+            } else if (actual instanceof String) {
+                String s = (String) actual;
+                if (isInteger(s) && s.length() <= 18) {
+                    act = parseSmallLong(s);
+                } else {
+                    try { act = Double.parseDouble(s); } catch (NumberFormatException e) { return false; }
+                }
+            } else if (actual != null) {
+                try { act = Double.parseDouble(String.valueOf(actual)); } catch (NumberFormatException e) { return false; }
+            } else {
+                return false;
+            }
+            return operator.test(Double.compare(act, expectedNum));
+        }
+
+        private boolean matchesString(Object actual) {
+            if (actual == null) return false;
+            String a = actual instanceof String ? (String) actual : String.valueOf(actual);
+            return operator.test(a.compareTo(expectedStr));
+        }
+
+        // Digits-only strings of at most 18 chars fit in a long; parsing them by hand avoids the
+        // FloatingDecimal allocation of Double.parseDouble on the hot path.
+        private static double parseSmallLong(String s) {
+            boolean neg = s.charAt(0) == '-';
+            long v = 0;
+            for (int i = neg ? 1 : 0; i < s.length(); i++) {
+                v = v * 10 + (s.charAt(i) - '0');
+            }
+            if (neg) return v == 0 ? -0.0d : -v;
+            return v;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package com.example.demoproject;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+final class JsonNodeAdapter implements NodeAdapter {
+
+    static final JsonNodeAdapter INSTANCE = new JsonNodeAdapter();
+
+    private JsonNodeAdapter() {
+    }
+
+    @Override
+    public boolean isObject(Object node) {
+        return node instanceof JsonNode && ((JsonNode) node).isObject();
+    }
+
+    @Override
+    public boolean isArray(Object node) {
+        return node instanceof JsonNode && ((JsonNode) node).isArray();
+    }
+
+    @Override
+    public Object field(Object object, String name) {
+        return present(((JsonNode) object).get(name));
+    }
+
+    @Override
+    public int size(Object array) {
+        return ((JsonNode) array).size();
+    }
+
+    @Override
+    public Object element(Object array, int index) {
+        return present(((JsonNode) array).get(index));
+    }
+
+    @Override
+    public Object value(Object node) {
+        if (!(node instanceof JsonNode)) return node;
+        JsonNode n = (JsonNode) node;
+        if (n.isTextual()) return n.textValue();
+        if (n.isNumber()) return n.numberValue();
+        if (n.isBoolean()) return n.booleanValue();
+        if (n.isNull() || n.isMissingNode()) return null;
+        return n;
+    }
+
+    private static JsonNode present(JsonNode n) {
+        return n == null || n.isNull() || n.isMissingNode() ? null : n;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demoproject;
+
+import com.jayway.jsonpath.spi.json.JsonProvider;
+
+final class JsonProviderNodeAdapter implements NodeAdapter {
+
+    private final JsonProvider provider;
+
+    JsonProviderNodeAdapter(JsonProvider provider) {
+        this.provider = provider;
+    }
+
+    @Override
+    public boolean isObject(Object node) {
+        return node != null && provider.isMap(node);
+    }
+
+    @Override
+    public boolean isArray(Object node) {
+        return node != null && provider.isArray(node);
+    }
+
+    @Override
+    public Object field(Object object, String name) {
+        Object v = provider.getMapValue(object, name);
+        return v == JsonProvider.UNDEFINED ? null : present(v);
+    }
+
+    @Override
+    public int size(Object array) {
+        return provider.length(array);
+    }
+
+    @Override
+    public Object element(Object array, int index) {
+        return present(provider.getArrayIndex(array, index));
+    }
+
+    @Override
+    public Object value(Object node) {
+        return node == null ? null : provider.unwrap(node);
+    }
+
+    // Providers hand back their own nodes; a JSON null is whatever unwraps to null, e.g. a NullNode
+    private Object present(Object node) {
+        return node == null || provider.unwrap(node) == null ? null : node;
+    }
+}
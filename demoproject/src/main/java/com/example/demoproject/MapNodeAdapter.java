@@ -0,0 +1,42 @@
+package com.example.demoproject;
+
+import java.util.List;
+import java.util.Map;
+
+final class MapNodeAdapter implements NodeAdapter {
+
+    static final MapNodeAdapter INSTANCE = new MapNodeAdapter();
+
+    private MapNodeAdapter() {
+    }
+
+    @Override
+    public boolean isObject(Object node) {
+        return node instanceof Map;
+    }
+
+    @Override
+    public boolean isArray(Object node) {
+        return node instanceof List;
+    }
+
+    @Override
+    public Object field(Object object, String name) {
+        return ((Map<?, ?>) object).get(name);
+    }
+
+    @Override
+    public int size(Object array) {
+        return ((List<?>) array).size();
+    }
+
+    @Override
+    public Object element(Object array, int index) {
+        return ((List<?>) array).get(index);
+    }
+
+    @Override
+    public Object value(Object node) {
+        return node;
+    }
+}
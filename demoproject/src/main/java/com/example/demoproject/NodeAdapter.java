@@ -0,0 +1,44 @@
+package com.example.demoproject;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+
+/**
+ * How {@link EnhancedPathResolver} sees a document tree: which nodes are objects and arrays, how to
+ * step into them and how to read a scalar for a predicate. Adapters only look at the tree, they never
+ * copy it, so a {@link JsonNode} or a Jayway document is queried as it is instead of being converted
+ * to {@code Map}s first. Missing fields and JSON nulls are both reported as {@code null}.
+ */
+public interface NodeAdapter {
+
+    /** {@code java.util.Map} objects and {@code java.util.List} arrays, as Jackson and json-smart build them. */
+    NodeAdapter MAPS = MapNodeAdapter.INSTANCE;
+
+    /** Jackson {@link JsonNode} trees. */
+    NodeAdapter JACKSON = JsonNodeAdapter.INSTANCE;
+
+    /** Documents of any Jayway {@link JsonProvider}, e.g. the one a {@code DocumentContext} was parsed with. */
+    static NodeAdapter jsonProvider(JsonProvider provider) {
+        return new JsonProviderNodeAdapter(provider);
+    }
+
+    /** The built-in adapter for a document root: {@link #JACKSON} for a {@link JsonNode}, otherwise {@link #MAPS}. */
+    static NodeAdapter of(Object document) {
+        return document instanceof JsonNode ? JACKSON : MAPS;
+    }
+
+    boolean isObject(Object node);
+
+    boolean isArray(Object node);
+
+    /** The value of a field of an object node, or null when it is missing or null. */
+    Object field(Object object, String name);
+
+    int size(Object array);
+
+    /** An element of an array node, null for a JSON null. */
+    Object element(Object array, int index);
+
+    /** The plain Java value of a node for comparison: String, Number or Boolean for scalars, the node itself otherwise. */
+    Object value(Object node);
+}
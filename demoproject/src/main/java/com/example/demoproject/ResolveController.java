@@ -0,0 +1,30 @@
+package com.example.demoproject;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+@RestController
+public class ResolveController {
+
+    /**
+     * Resolve every expression against the document in one pass (see
+     * {@link EnhancedPathResolver#readAll}); answers {@code {"results": {name: value}}}, with null
+     * for paths that match nothing. A malformed expression is a 400.
+     */
+    @PostMapping("/resolve/batch")
+    public Map<String, Object> resolveBatch(@RequestBody BatchResolveRequest request) {
+        if (request.getExpressions() == null || request.getExpressions().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "expressions must not be empty");
+        }
+        try {
+            return Map.of("results", EnhancedPathResolver.readAll(request.getDocument(), request.getExpressions()));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+}
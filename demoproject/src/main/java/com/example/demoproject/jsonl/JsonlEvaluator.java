@@ -0,0 +1,239 @@
+package com.example.demoproject.jsonl;
+
+import com.example.demoproject.EnhancedPathResolver;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Evaluates a set of named {@link EnhancedPathResolver} expressions against every line of a
+ * newline-delimited JSON file, in parallel, writing one JSON line per input line in input order:
+ * {@code {"results": {name: value}}}, or {@code {"error": "..."}} for a line that is not valid JSON.
+ * Blank input lines are copied through as blank lines, so output line N always belongs to input
+ * line N.
+ *
+ * <p>The file is memory-mapped in chunks that end on a line boundary. Each chunk is a fork/join
+ * task that halves itself at line boundaries down to {@code leafBytes}; leaves parse and evaluate
+ * their lines and serialize the results, so the writer only copies finished bytes. At most
+ * {@code WINDOW} chunks are mapped or held at once, which bounds memory for files of any size.
+ * The expressions are compiled once ({@link EnhancedPathResolver#compileAll}) and shared by all
+ * workers.
+ */
+public class JsonlEvaluator {
+
+    public static final int DEFAULT_CHUNK_BYTES = 64 << 20;
+    public static final int DEFAULT_LEAF_BYTES = 256 << 10;
+
+    private static final ObjectMapper json = new ObjectMapper();
+    private static final byte[] BLANK = {'\n'};
+    // chunks mapped at once: one being written, the rest being evaluated
+    private static final int WINDOW = 3;
+
+    private final EnhancedPathResolver.CompiledBatch batch;
+    private final ForkJoinPool pool;
+    private final int chunkBytes;
+    private final int leafBytes;
+
+    public JsonlEvaluator(Map<String, String> expressions, ForkJoinPool pool) {
+        this(expressions, pool, DEFAULT_CHUNK_BYTES, DEFAULT_LEAF_BYTES);
+    }
+
+    public JsonlEvaluator(Map<String, String> expressions, ForkJoinPool pool, int chunkBytes, int leafBytes) {
+        if (leafBytes <= 0 || chunkBytes < leafBytes) {
+            throw new IllegalArgumentException("Need 0 < leafBytes <= chunkBytes, got " + leafBytes + " and " + chunkBytes);
+        }
+        this.batch = EnhancedPathResolver.compileAll(expressions);
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+        this.leafBytes = leafBytes;
+    }
+
+    /** Evaluate every line of {@code input}, writing results to {@code out}; returns the number of lines. */
+    public long evaluate(Path input, OutputStream out) throws IOException {
+        long lines = 0;
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            Deque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>();
+            while (position < size) {
+                ByteBuffer chunk = mapToLineEnd(channel, position, size);
+                position += chunk.limit();
+                inFlight.add(pool.submit(new Evaluate(chunk, 0, chunk.limit())));
+                if (inFlight.size() >= WINDOW) lines += write(inFlight.poll(), out);
+            }
+            while (!inFlight.isEmpty()) lines += write(inFlight.poll(), out);
+        }
+        out.flush();
+        return lines;
+    }
+
+    private static long write(ForkJoinTask<Chunk> task, OutputStream out) throws IOException {
+        Chunk chunk = task.join();
+        for (byte[] part : chunk.parts) out.write(part);
+        return chunk.lines;
+    }
+
+    /**
+     * Map up to chunkBytes from {@code start}, cut back to the last newline. A single line longer
+     * than the window doubles it until the line fits; the final chunk may end without a newline.
+     */
+    private MappedByteBuffer mapToLineEnd(FileChannel channel, long start, long size) throws IOException {
+        long length = Math.min(chunkBytes, size - start);
+        while (true) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            if (start + length == size) return mapped;
+            for (int i = (int) length - 1; i >= 0; i--) {
+                if (mapped.get(i) == '\n') {
+                    mapped.limit(i + 1);
+                    return mapped;
+                }
+            }
+            if (length >= Integer.MAX_VALUE) throw new IOException("Line at offset " + start + " does not fit in one mapping");
+            length = Math.min(Math.min(length * 2, Integer.MAX_VALUE), size - start);
+        }
+    }
+
+    /** Serialized output for a run of lines, as the byte arrays of its leaves in line order. */
+    private static final class Chunk {
+        final List<byte[]> parts;
+        final long lines;
+
+        Chunk(List<byte[]> parts, long lines) {
+            this.parts = parts;
+            this.lines = lines;
+        }
+    }
+
+    private final class Evaluate extends RecursiveTask<Chunk> {
+        private final ByteBuffer buf;
+        private final int from;
+        private final int to;
+
+        Evaluate(ByteBuffer buf, int from, int to) {
+            this.buf = buf;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Chunk compute() {
+            if (to - from > leafBytes) {
+                int mid = lineEndAfter(from + (to - from) / 2);
+                if (mid < to) {
+                    Evaluate left = new Evaluate(buf, from, mid);
+                    left.fork();
+                    Chunk right = new Evaluate(buf, mid, to).compute();
+                    Chunk l = left.join();
+                    List<byte[]> parts = new ArrayList<>(l.parts.size() + right.parts.size());
+                    parts.addAll(l.parts);
+                    parts.addAll(right.parts);
+                    return new Chunk(parts, l.lines + right.lines);
+                }
+            }
+            return leaf();
+        }
+
+        // index just past the first newline at or after pos, or to when there is none
+        private int lineEndAfter(int pos) {
+            for (int i = pos; i < to; i++) {
+                if (buf.get(i) == '\n') return i + 1;
+            }
+            return to;
+        }
+
+        private Chunk leaf() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, (to - from) / 2));
+            byte[] line = new byte[256];
+            long lines = 0;
+            int start = from;
+            while (start < to) {
+                int end = start;
+                while (end < to && buf.get(end) != '\n') end++;
+                int len = end - start;
+                if (len > 0 && buf.get(end - 1) == '\r') len--;
+                if (len > line.length) line = new byte[Math.max(len, line.length * 2)];
+                buf.get(start, line, 0, len);
+                evaluateLine(line, len, out);
+                lines++;
+                start = end + 1;
+            }
+            List<byte[]> parts = new ArrayList<>(1);
+            parts.add(out.toByteArray());
+            return new Chunk(parts, lines);
+        }
+
+        private void evaluateLine(byte[] line, int len, ByteArrayOutputStream out) {
+            if (isBlank(line, len)) {
+                out.writeBytes(BLANK);
+                return;
+            }
+            Map<String, Object> record = new LinkedHashMap<>(2);
+            try {
+                Object doc = json.readValue(line, 0, len, Object.class);
+                record.put("results", batch.read(doc));
+            } catch (JsonProcessingException e) {
+                record.put("error", e.getOriginalMessage());
+            } catch (IOException e) {
+                record.put("error", e.getMessage());
+            }
+            try {
+                out.writeBytes(json.writeValueAsBytes(record));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            out.write('\n');
+        }
+    }
+
+    private static boolean isBlank(byte[] line, int len) {
+        for (int i = 0; i < len; i++) {
+            byte b = line[i];
+            if (b != ' ' && b != '\t') return false;
+        }
+        return true;
+    }
+
+    /**
+     * {@code JsonlEvaluator <input.jsonl> <expressions.json> [output.jsonl]}: expressions.json is an
+     * object of name to path. Results go to stdout unless an output file is given; the pool uses
+     * every available core.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: JsonlEvaluator <input.jsonl> <expressions.json> [output.jsonl]");
+            System.exit(2);
+        }
+        Map<String, String> expressions = new LinkedHashMap<>();
+        json.readTree(Paths.get(args[1]).toFile()).properties()
+                .forEach(e -> expressions.put(e.getKey(), e.getValue().asText()));
+        JsonlEvaluator evaluator = new JsonlEvaluator(expressions, ForkJoinPool.commonPool());
+        long started = System.nanoTime();
+        long lines;
+        try (OutputStream out = new BufferedOutputStream(args.length > 2
+                ? Files.newOutputStream(Paths.get(args[2])) : System.out, 1 << 16)) {
+            lines = evaluator.evaluate(Paths.get(args[0]), out);
+        }
+        System.err.printf("%d lines in %d ms%n", lines, (System.nanoTime() - started) / 1_000_000);
+    }
+}
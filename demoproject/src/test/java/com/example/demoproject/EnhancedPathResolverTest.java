@@ -3,10 +3,18 @@ package com.example.demoproject;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
+
 import org.junit.jupiter.api.Test;
 
 public class EnhancedPathResolverTest {
@@ -170,4 +178,195 @@ void testNestedArrayFiltering() {
         assertNull(invalidCompare);
     }
 
-}
\ No newline at end of file
+    @Test
+    void testNumericPredicatesAgainstStringValues() {
+        Map<String, Object> data = Map.of(
+            "lines", List.of(
+                Map.of("qty", "3", "amount", "45.67", "sku", "A"),
+                Map.of("qty", "-2", "amount", "-0.5", "sku", "B"),
+                Map.of("qty", "12", "amount", "1e3", "sku", "C")
+            )
+        );
+
+        assertEquals("A", EnhancedPathResolver.read(data, "lines[qty=3].sku"));
+        assertEquals(List.of("A", "C"), EnhancedPathResolver.read(data, "lines[qty>0].sku"));
+        assertEquals("B", EnhancedPathResolver.read(data, "lines[qty<0 and amount<0].sku"));
+        assertEquals("C", EnhancedPathResolver.read(data, "lines[amount>=1000].sku"));
+        assertEquals("A", EnhancedPathResolver.read(data, "lines[amount=45.67].sku"));
+
+        // compiled filters are reusable across nodes
+        java.util.function.Predicate<Object> big = EnhancedPathResolver.compileFilter("qty>=12");
+        assertEquals(false, big.test(((List<?>) data.get("lines")).get(0)));
+        assertEquals(true, big.test(((List<?>) data.get("lines")).get(2)));
+    }
+
+
+    @Test
+    void testReadAllMatchesReadForEveryPath() {
+        Map<String, Object> data = Map.of("order", Map.of(
+                "id", "O-1",
+                "customer", Map.of("name", "Acme", "tier", "gold"),
+                "lines", List.of(
+                        Map.of("sku", "A", "qty", 2, "price", "10.5", "gift", true),
+                        Map.of("sku", "B", "qty", 1, "price", 99, "gift", false),
+                        Map.of("sku", "A", "qty", 5, "price", 3),
+                        Map.of("sku", 7, "qty", 7))));
+
+        Map<String, String> paths = new LinkedHashMap<>();
+        paths.put("id", "order.id");
+        paths.put("customer", "order.customer.name");
+        paths.put("skuA", "order.lines[sku='A'].qty");
+        paths.put("skuB", "order.lines[sku='B'].qty");
+        paths.put("skuMissing", "order.lines[sku='Z'].qty");
+        paths.put("sku7", "order.lines[sku=7].qty");
+        paths.put("qty5", "order.lines[qty=5].sku");
+        paths.put("qty2", "order.lines[qty=2].price");
+        paths.put("cheap", "order.lines[price<50].sku");
+        paths.put("gifts", "order.lines[gift=true].sku");
+        paths.put("allSkus", "order.lines.sku");
+        paths.put("nothing", "order.missing.field");
+        paths.put("blank", "");
+
+        Map<String, Object> batch = EnhancedPathResolver.readAll(data, paths);
+
+        assertEquals(List.copyOf(paths.keySet()), List.copyOf(batch.keySet()));
+        for (Map.Entry<String, String> e : paths.entrySet()) {
+            assertEquals(EnhancedPathResolver.read(data, e.getValue()), batch.get(e.getKey()), e.getKey());
+        }
+        assertEquals(List.of(2, 5), batch.get("skuA"));
+        assertNull(batch.get("skuMissing"));
+    }
+
+    @Test
+    void testJsonNodeAndJsonProviderDocumentsMatchConvertedMaps() throws Exception {
+        ObjectMapper json = new ObjectMapper();
+        JsonNode doc = json.readTree("{\"order\": {\"id\": \"O-1\", \"customer\": {\"name\": \"Acme\", \"note\": null},"
+                + " \"lines\": [{\"sku\": \"A\", \"qty\": 2, \"price\": \"10.5\", \"gift\": true},"
+                + " {\"sku\": \"B\", \"qty\": 1, \"price\": 99.5, \"gift\": false},"
+                + " {\"sku\": \"A\", \"qty\": 5, \"price\": 3, \"tags\": [{\"k\": \"x\"}]}]}}");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> converted = json.convertValue(doc, Map.class);
+
+        Map<String, String> paths = new LinkedHashMap<>();
+        paths.put("id", "order.id");
+        paths.put("note", "order.customer.note");
+        paths.put("skuA", "order.lines[sku='A'].qty");
+        paths.put("skuB", "order.lines[sku='B'].qty");
+        paths.put("cheap", "order.lines[price<50].sku");
+        paths.put("gifts", "order.lines[gift=true].sku");
+        paths.put("tagged", "order.lines[tags.k='x'].sku");
+        paths.put("allSkus", "order.lines.sku");
+        paths.put("tags", "order.lines.tags.k");
+        paths.put("nothing", "order.missing.field");
+
+        NodeAdapter jayway = NodeAdapter.jsonProvider(new JacksonJsonNodeJsonProvider());
+        Map<String, Object> batch = EnhancedPathResolver.readAll(doc, paths);
+        for (Map.Entry<String, String> e : paths.entrySet()) {
+            Object expected = EnhancedPathResolver.read(converted, e.getValue());
+            Object onTree = EnhancedPathResolver.read(doc, e.getValue());
+            // JsonNode and Jayway results are the document's own nodes
+            assertEquals(expected, json.convertValue(onTree, Object.class), e.getKey());
+            assertEquals(expected, json.convertValue(batch.get(e.getKey()), Object.class), e.getKey());
+            assertEquals(expected, json.convertValue(EnhancedPathResolver.read(doc, e.getValue(), jayway), Object.class), e.getKey());
+        }
+        assertSame(doc.get("order").get("customer"), EnhancedPathResolver.read(doc, "order.customer"));
+        assertSame(doc.get("order").get("customer"), EnhancedPathResolver.read(doc, "order.customer", jayway));
+    }
+
+    @Test
+    void testIndexSliceAndWildcardSelectors() throws Exception {
+        Map<String, Object> data = Map.of(
+            "orders", List.of(
+                Map.of("id", "O-1", "lines", List.of(
+                    Map.of("sku", "A", "qty", 1),
+                    Map.of("sku", "B", "qty", 2),
+                    Map.of("sku", "C", "qty", 3),
+                    Map.of("sku", "D", "qty", 4))),
+                Map.of("id", "O-2", "lines", List.of(
+                    Map.of("sku", "E", "qty", 5)))));
+
+        assertEquals("O-1", EnhancedPathResolver.read(data, "orders[0].id"));
+        assertEquals("O-2", EnhancedPathResolver.read(data, "orders[-1].id"));
+        assertNull(EnhancedPathResolver.read(data, "orders[2].id"));
+        assertNull(EnhancedPathResolver.read(data, "orders[-3].id"));
+        assertEquals(List.of("B", "C"), EnhancedPathResolver.read(data, "orders[0].lines[1:3].sku"));
+        assertEquals(List.of("C", "D"), EnhancedPathResolver.read(data, "orders[0].lines[-2:].sku"));
+        assertEquals(List.of("A", "B"), EnhancedPathResolver.read(data, "orders[0].lines[:2].sku"));
+        assertEquals(List.of("A", "B", "C", "D"), EnhancedPathResolver.read(data, "orders[0].lines[0:100].sku"));
+        assertNull(EnhancedPathResolver.read(data, "orders[0].lines[3:1].sku"));
+        assertEquals(List.of("A", "B", "C", "D", "E"), EnhancedPathResolver.read(data, "orders[*].lines[*].sku"));
+        // a selector applies to each array it is reached through: the first line of every order
+        assertEquals(List.of("A", "E"), EnhancedPathResolver.read(data, "orders.lines[0].sku"));
+        // bracket contents that are not positions are still predicates
+        assertEquals("D", EnhancedPathResolver.read(data, "orders.lines[qty=4].sku"));
+        // a leading selector picks from the document itself
+        assertEquals("O-2", EnhancedPathResolver.read(data.get("orders"), "[1].id"));
+
+        Map<String, String> paths = new LinkedHashMap<>();
+        paths.put("first", "orders[0].lines[0].sku");
+        paths.put("last", "orders[0].lines[-1].sku");
+        paths.put("all", "orders[0].lines.sku");
+        Map<String, Object> batch = EnhancedPathResolver.readAll(data, paths);
+        assertEquals("A", batch.get("first"));
+        assertEquals("D", batch.get("last"));
+        assertEquals(List.of("A", "B", "C", "D"), batch.get("all"));
+
+        JsonNode tree = new ObjectMapper().valueToTree(data);
+        assertEquals("D", ((JsonNode) EnhancedPathResolver.read(tree, "orders[0].lines[-1].sku")).textValue());
+    }
+
+    @Test
+    void testInAndOrPredicates() {
+        Map<String, Object> data = Map.of(
+            "lines", List.of(
+                Map.of("sku", "A", "status", "OPEN", "qty", 1, "gift", true),
+                Map.of("sku", "B", "status", "HELD", "qty", "2", "gift", false),
+                Map.of("sku", "C", "status", "CLOSED", "qty", 30),
+                Map.of("sku", "D", "status", "a or b", "qty", 4.0),
+                Map.of("sku", "E", "status", "OPEN", "qty", 50)
+            )
+        );
+
+        assertEquals(List.of("A", "B", "E"), EnhancedPathResolver.read(data, "lines[status in ('OPEN', 'HELD')].sku"));
+        assertEquals(List.of("A", "B", "E"), EnhancedPathResolver.read(data, "lines[status='OPEN' or status='HELD'].sku"));
+        // typed members: numbers compare numerically against numeric strings and doubles, booleans by truth value
+        assertEquals(List.of("B", "D"), EnhancedPathResolver.read(data, "lines[qty in (2, 4)].sku"));
+        assertEquals("B", EnhancedPathResolver.read(data, "lines[gift in (false)].sku"));
+        assertEquals("B", EnhancedPathResolver.read(data, "lines[qty in ('2')].sku"));
+        // and binds tighter than or
+        assertEquals(List.of("A", "C", "E"), EnhancedPathResolver.read(data, "lines[status='OPEN' and qty<10 or qty>=30].sku"));
+        assertEquals(List.of("A", "C"), EnhancedPathResolver.read(data, "lines[sku in ('A','C') or qty>100].sku"));
+        // keywords and commas inside quotes are values
+        assertEquals("D", EnhancedPathResolver.read(data, "lines[status in ('a or b', 'x,y')].sku"));
+        assertEquals("D", EnhancedPathResolver.read(data, "lines[status='a or b'].sku"));
+        assertNull(EnhancedPathResolver.read(data, "lines[status in ('NONE')].sku"));
+
+        java.util.function.Predicate<Object> heldOrBig = EnhancedPathResolver.compileFilter("status = 'HELD' or qty > 40");
+        List<?> lines = (List<?>) data.get("lines");
+        assertEquals(false, heldOrBig.test(lines.get(0)));
+        assertEquals(true, heldOrBig.test(lines.get(1)));
+        assertEquals(true, heldOrBig.test(lines.get(4)));
+
+        Map<String, String> paths = new LinkedHashMap<>();
+        paths.put("open", "lines[status in ('OPEN')].sku");
+        paths.put("openOrHeld", "lines[status='OPEN' or status='HELD'].sku");
+        paths.put("held", "lines[status='HELD'].sku");
+        paths.put("closed", "lines[status='CLOSED'].sku");
+        Map<String, Object> batch = EnhancedPathResolver.readAll(data, paths);
+        for (Map.Entry<String, String> e : paths.entrySet()) {
+            assertEquals(EnhancedPathResolver.read(data, e.getValue()), batch.get(e.getKey()), e.getKey());
+        }
+    }
+
+    @Test
+    void testUnclosedBracketIsAnIllegalArgument() {
+        Map<String, Object> data = Map.of("lines", List.of(Map.of("sku", "A")));
+        Map<String, String> paths = new LinkedHashMap<>();
+        paths.put("ok", "lines.sku");
+        paths.put("broken", "lines[sku='A'.sku");
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> EnhancedPathResolver.readAll(data, paths));
+        assertTrue(ex.getMessage().contains("broken"), ex.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> EnhancedPathResolver.read(data, "lines[0"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demoproject.jsonl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JsonlEvaluatorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesOneResultLinePerInputLineInOrder() throws Exception {
+        List<String> in = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            if (i % 97 == 5) {
+                in.add("");
+                expected.add("");
+            } else if (i % 211 == 3) {
+                in.add("{broken");
+                expected.add(null);
+            } else {
+                in.add("{\"id\":" + i + ",\"lines\":[{\"sku\":\"A\",\"qty\":" + (i % 7) + "},{\"sku\":\"B\",\"qty\":1}]}");
+                expected.add("{\"results\":{\"id\":" + i + ",\"qtyA\":" + (i % 7) + "}}");
+            }
+        }
+        Path input = dir.resolve("in.jsonl");
+        // no trailing newline, and one CRLF line, must not change the output
+        Files.writeString(input, String.join("\n", in).replaceFirst("\n", "\r\n"));
+
+        Map<String, String> expressions = new LinkedHashMap<>();
+        expressions.put("id", "id");
+        expressions.put("qtyA", "lines[sku='A'].qty");
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // small chunks and leaves so the input spans many mappings and splits
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long lines = new JsonlEvaluator(expressions, pool, 4096, 512).evaluate(input, out);
+
+            assertEquals(in.size(), lines);
+            String[] actual = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+            assertEquals(in.size() + 1, actual.length);
+            assertEquals("", actual[in.size()]);
+            for (int i = 0; i < in.size(); i++) {
+                if (expected.get(i) == null) {
+                    assertEquals(true, actual[i].startsWith("{\"error\":"), actual[i]);
+                } else {
+                    assertEquals(expected.get(i), actual[i], "line " + i);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
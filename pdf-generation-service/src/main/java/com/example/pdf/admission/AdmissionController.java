@@ -0,0 +1,386 @@
+package com.example.pdf.admission;
+
+import com.example.pdf.metrics.MetricTags;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for {@code /generate}, applied before any work is done for a request.
+ *
+ * <ul>
+ *   <li>Each clientService has its own rate (token bucket) and concurrency quota, so one tenant's
+ *       batch cannot take every slot.</li>
+ *   <li>Globally at most {@code maxConcurrent} requests run; {@code interactiveReserved} of those
+ *       slots are only handed to interactive requests.</li>
+ *   <li>A request that finds no free slot queues for one, first come first served: a freed slot is
+ *       handed to the longest waiting request that may use it, so new arrivals cannot take it ahead
+ *       of the queue. The wait is bounded CoDel-style on the sojourn times of queued requests: it is
+ *       {@code queueInterval} while they keep getting in within {@code queueTarget}, but once they
+ *       have all waited longer than that for a whole interval the queue is standing and requests are
+ *       shed after {@code queueTarget}, instead of every request timing out late. It stands until a
+ *       request finds a free slot with nobody waiting.</li>
+ * </ul>
+ *
+ * <p>A request only spends a rate token when it is admitted. Quotas of clientServices with nothing in flight are dropped once more than {@code maxClients} are
+ * tracked, so arbitrary clientService values cannot grow memory without bound.
+ *
+ * <p>Rejections are {@link AdmissionRejectedException}s (429 with {@code Retry-After}). Outcomes are
+ * counted as {@code pdf.admission}, tagged by clientService as bounded by {@link MetricTags}; waits
+ * are timed as {@code pdf.admission.wait}.
+ */
+@Component
+public class AdmissionController {
+
+    public static final String REQUEST_CLASS_HEADER = "X-Request-Class";
+    public static final String ADMISSION = "pdf.admission";
+    public static final String ADMISSION_WAIT = "pdf.admission.wait";
+
+    private final AdmissionProperties props;
+    private final MeterRegistry registry;
+    private final MetricTags tags;
+    private final SlotPool slots;
+    private final Map<String, ClientQuota> clients = new ConcurrentHashMap<>();
+    // by clientService tag, class and outcome; bounded since the clientService tag is
+    private final Map<List<String>, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> waits = new ConcurrentHashMap<>();
+
+    public AdmissionController(AdmissionProperties props, MeterRegistry registry, MetricTags tags) {
+        this.props = props;
+        this.registry = registry;
+        this.tags = tags;
+        int reservedSlots = Math.max(0, Math.min(props.getInteractiveReserved(), props.getMaxConcurrent()));
+        this.slots = new SlotPool(props.getMaxConcurrent() - reservedSlots, reservedSlots,
+                props.getQueueTarget().toNanos(), props.getQueueInterval().toNanos());
+        Gauge.builder("pdf.admission.available", slots, p -> p.free(Slot.SHARED))
+                .description("Free admission slots")
+                .tag("pool", "shared")
+                .register(registry);
+        Gauge.builder("pdf.admission.available", slots, p -> p.free(Slot.RESERVED))
+                .description("Free admission slots")
+                .tag("pool", "interactive")
+                .register(registry);
+        Gauge.builder("pdf.admission.queued", slots, SlotPool::queued)
+                .description("Requests waiting for an admission slot")
+                .register(registry);
+    }
+
+    /**
+     * Admit a request or throw {@link AdmissionRejectedException}. May block for up to the current
+     * queueing bound. The returned permit must be closed when the request completes.
+     */
+    public Permit admit(String clientService, String requestClass) throws InterruptedException {
+        if (!props.isEnabled()) return Permit.NONE;
+        String client = clientService == null || clientService.isBlank() ? "unknown" : clientService;
+        boolean interactive = isInteractive(client, requestClass);
+        String cls = interactive ? "interactive" : "batch";
+        ClientQuota quota = quota(client);
+
+        long waitForToken = quota.bucket.tryTake();
+        if (waitForToken > 0) {
+            throw reject(client, cls, "rate", TimeUnit.NANOSECONDS.toSeconds(waitForToken) + 1);
+        }
+        if (!quota.inFlight.tryAcquire()) {
+            quota.bucket.putBack();
+            throw reject(client, cls, "concurrency", 1);
+        }
+
+        long start = System.nanoTime();
+        Slot slot = null;
+        try {
+            slot = slots.acquire(interactive, start);
+        } finally {
+            if (slot == null) {
+                quota.inFlight.release();
+                quota.bucket.putBack();
+            }
+        }
+        long waited = System.nanoTime() - start;
+        waits.computeIfAbsent(cls, c -> Timer.builder(ADMISSION_WAIT)
+                .description("Time a request waited for an admission slot")
+                .tag("class", c)
+                .register(registry))
+                .record(waited, TimeUnit.NANOSECONDS);
+        if (slot == null) {
+            throw reject(client, cls, "queue", TimeUnit.NANOSECONDS.toSeconds(props.getQueueInterval().toNanos()) + 1);
+        }
+        count(client, cls, "admitted");
+        return new Permit(quota.inFlight, slots, slot);
+    }
+
+    // the header can only demote a request to batch, never promote a batch clientService
+    boolean isInteractive(String clientService, String requestClass) {
+        if (requestClass != null && "batch".equalsIgnoreCase(requestClass.trim())) return false;
+        return !props.getBatchClientServices().contains(clientService);
+    }
+
+    private ClientQuota quota(String client) {
+        ClientQuota quota = clients.get(client);
+        if (quota == null) {
+            if (clients.size() >= props.getMaxClients()) clients.values().removeIf(ClientQuota::idle);
+            quota = clients.computeIfAbsent(client, k -> new ClientQuota());
+        }
+        return quota;
+    }
+
+    int trackedClients() {
+        return clients.size();
+    }
+
+    int queued() {
+        return slots.queued();
+    }
+
+    private AdmissionRejectedException reject(String client, String cls, String reason, long retryAfterSeconds) {
+        count(client, cls, "rejected-" + reason);
+        return new AdmissionRejectedException(client, reason, retryAfterSeconds);
+    }
+
+    private void count(String client, String cls, String outcome) {
+        String clientTag = tags.clientService(client);
+        counters.computeIfAbsent(List.of(clientTag, cls, outcome), k -> Counter.builder(ADMISSION)
+                .description("Admission decisions for generate requests")
+                .tag("clientService", clientTag)
+                .tag("class", cls)
+                .tag("outcome", outcome)
+                .register(registry))
+                .increment();
+    }
+
+    private final class ClientQuota {
+        final int maxInFlight = Math.max(1, props.getPerClientMaxConcurrent());
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final TokenBucket bucket = new TokenBucket(props.getPerClientRate(), props.getPerClientBurst());
+
+        // forgetting it loses nothing: no request in flight and a full bucket, as a new quota would have
+        boolean idle() {
+            return inFlight.availablePermits() == maxInFlight && bucket.isFull();
+        }
+    }
+
+    enum Slot { SHARED, RESERVED }
+
+    /**
+     * The global slots and the requests queued for them. A freed shared slot goes to the head of the
+     * queue and a freed reserved slot to the first interactive waiter; only slots nobody is waiting
+     * for become free, so a request only gets one without queueing when nobody is ahead of it.
+     */
+    static final class SlotPool {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Deque<Waiter> queue = new ArrayDeque<>();
+        private final long targetNanos;
+        private final long intervalNanos;
+        private int freeShared;
+        private int freeReserved;
+        // CoDel state: sojourn times have been above target since aboveSince; once that has lasted an
+        // interval the queue is standing until a request finds a free slot with nobody waiting
+        private boolean above;
+        private long aboveSince;
+        private boolean standing;
+
+        SlotPool(int shared, int reserved, long targetNanos, long intervalNanos) {
+            this.freeShared = shared;
+            this.freeReserved = reserved;
+            this.targetNanos = targetNanos;
+            this.intervalNanos = intervalNanos;
+        }
+
+        // null when the request was shed or its wait ran out
+        Slot acquire(boolean interactive, long start) throws InterruptedException {
+            lock.lock();
+            try {
+                Slot slot = null;
+                if (queue.isEmpty() && freeShared > 0) {
+                    freeShared--;
+                    slot = Slot.SHARED;
+                } else if (interactive && freeReserved > 0) {
+                    freeReserved--;
+                    slot = Slot.RESERVED;
+                }
+                if (slot != null) {
+                    // shedding keeps the sojourns of admitted requests short, so only this ends a standing queue
+                    above = false;
+                    standing = false;
+                    return slot;
+                }
+
+                Waiter w = new Waiter(interactive, start, lock.newCondition());
+                queue.addLast(w);
+                try {
+                    while (w.slot == null) {
+                        long now = System.nanoTime();
+                        long waited = now - start;
+                        if (waited >= intervalNanos || (waited >= targetNanos && standing(now))) break;
+                        long recheck = waited < targetNanos ? targetNanos - waited : targetNanos;
+                        w.ready.awaitNanos(Math.min(intervalNanos - waited, recheck));
+                    }
+                } catch (InterruptedException ex) {
+                    if (w.slot == null) queue.remove(w);
+                    else release(w.slot);
+                    throw ex;
+                }
+                if (w.slot == null) queue.remove(w);
+                long now = System.nanoTime();
+                sojourn(now - start, now);
+                return w.slot;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release(Slot slot) {
+            lock.lock();
+            try {
+                for (Iterator<Waiter> it = queue.iterator(); it.hasNext(); ) {
+                    Waiter w = it.next();
+                    if (slot == Slot.SHARED || w.interactive) {
+                        it.remove();
+                        w.slot = slot;
+                        w.ready.signal();
+                        return;
+                    }
+                }
+                if (slot == Slot.SHARED) freeShared++;
+                else freeReserved++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // a request leaving the queue, admitted or not, after waiting nanos
+        private void sojourn(long nanos, long now) {
+            if (standing) return;
+            if (nanos <= targetNanos) {
+                above = false;
+            } else if (!above) {
+                above = true;
+                aboveSince = now - nanos + targetNanos;
+            }
+        }
+
+        // the oldest waiter counts too, so a queue that nobody leaves is seen as standing
+        private boolean standing(long now) {
+            if (standing) return true;
+            Waiter head = queue.peekFirst();
+            if (!above && head != null && now - head.start > targetNanos) {
+                above = true;
+                aboveSince = head.start + targetNanos;
+            }
+            standing = above && now - aboveSince >= intervalNanos;
+            return standing;
+        }
+
+        int free(Slot slot) {
+            lock.lock();
+            try {
+                return slot == Slot.SHARED ? freeShared : freeReserved;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int queued() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Waiter {
+        final boolean interactive;
+        final long start;
+        final Condition ready;
+        // handed over by release, guarded by the pool lock
+        Slot slot;
+
+        Waiter(boolean interactive, long start, Condition ready) {
+            this.interactive = interactive;
+            this.start = start;
+            this.ready = ready;
+        }
+    }
+
+    static final class TokenBucket {
+        private final double ratePerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastNanos = System.nanoTime();
+
+        TokenBucket(double perSecond, int burst) {
+            this.ratePerNano = perSecond / 1e9;
+            this.capacity = Math.max(1, burst);
+            this.tokens = capacity;
+        }
+
+        // 0 when a token was taken, otherwise nanos until one is available
+        synchronized long tryTake() {
+            if (ratePerNano <= 0) return 0;
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / ratePerNano);
+        }
+
+        // return a token taken for a request that was then not admitted
+        synchronized void putBack() {
+            if (ratePerNano <= 0) return;
+            refill();
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        synchronized boolean isFull() {
+            if (ratePerNano <= 0) return true;
+            refill();
+            return tokens >= capacity;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastNanos) * ratePerNano);
+            lastNanos = now;
+        }
+    }
+
+    /** Held for the lifetime of an admitted request; closing it frees the slots. */
+    public static class Permit implements AutoCloseable {
+
+        static final Permit NONE = new Permit(null, null, null);
+
+        private final Semaphore client;
+        private final SlotPool slots;
+        private final Slot slot;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Semaphore client, SlotPool slots, Slot slot) {
+            this.client = client;
+            this.slots = slots;
+            this.slot = slot;
+        }
+
+        @Override
+        public void close() {
+            if (client == null || !released.compareAndSet(false, true)) return;
+            slots.release(slot);
+            client.release();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.pdf.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Settings for {@link AdmissionController}, bound from {@code pdf.admission.*}.
+ */
+@Component
+@ConfigurationProperties(prefix = "pdf.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+    // requests in flight across all clientServices
+    private int maxConcurrent = 64;
+    // part of maxConcurrent that only interactive requests may use
+    private int interactiveReserved = 16;
+    private int perClientMaxConcurrent = 32;
+    // requests per second per clientService, 0 = unlimited
+    private double perClientRate = 0;
+    private int perClientBurst = 50;
+    // idle per-clientService quotas are dropped once more clientServices than this are tracked
+    private int maxClients = 1000;
+    // CoDel-style queueing: once queued requests have all waited longer than queueTarget for a whole
+    // queueInterval, waits are cut from queueInterval to queueTarget until the queue drains
+    private Duration queueTarget = Duration.ofMillis(50);
+    private Duration queueInterval = Duration.ofMillis(500);
+    // clientServices always treated as batch; X-Request-Class: batch demotes any other request
+    private Set<String> batchClientServices = new HashSet<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public int getInteractiveReserved() {
+        return interactiveReserved;
+    }
+
+    public void setInteractiveReserved(int interactiveReserved) {
+        this.interactiveReserved = interactiveReserved;
+    }
+
+    public int getPerClientMaxConcurrent() {
+        return perClientMaxConcurrent;
+    }
+
+    public void setPerClientMaxConcurrent(int perClientMaxConcurrent) {
+        this.perClientMaxConcurrent = perClientMaxConcurrent;
+    }
+
+    public double getPerClientRate() {
+        return perClientRate;
+    }
+
+    public void setPerClientRate(double perClientRate) {
+        this.perClientRate = perClientRate;
+    }
+
+    public int getPerClientBurst() {
+        return perClientBurst;
+    }
+
+    public void setPerClientBurst(int perClientBurst) {
+        this.perClientBurst = perClientBurst;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    public void setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    public Duration getQueueTarget() {
+        return queueTarget;
+    }
+
+    public void setQueueTarget(Duration queueTarget) {
+        this.queueTarget = queueTarget;
+    }
+
+    public Duration getQueueInterval() {
+        return queueInterval;
+    }
+
+    public void setQueueInterval(Duration queueInterval) {
+        this.queueInterval = queueInterval;
+    }
+
+    public Set<String> getBatchClientServices() {
+        return batchClientServices;
+    }
+
+    public void setBatchClientServices(Set<String> batchClientServices) {
+        this.batchClientServices = batchClientServices;
+    }
+}
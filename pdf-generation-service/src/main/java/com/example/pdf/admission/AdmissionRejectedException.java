@@ -0,0 +1,24 @@
+package com.example.pdf.admission;
+
+/**
+ * A request was shed by {@link AdmissionController}; answered with 429 and {@code Retry-After}.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final String reason;
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String clientService, String reason, long retryAfterSeconds) {
+        super("Request from clientService '" + clientService + "' rejected: " + reason);
+        this.reason = reason;
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.pdf.catalog;
+
+import com.example.pdf.model.MappingDocument;
+import com.example.pdf.service.CompiledMapping;
+import com.example.pdf.service.JacksonMappers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled mappings for many (clientService, template, productType, marketCategory, state, label)
+ * combinations in one memory-mapped file, written by {@link MappingCatalogWriter}. Nothing is
+ * loaded onto the heap when the catalog is opened: a lookup binary-searches the key hashes in the
+ * mapped file and returns a {@link CompiledMapping} whose field plan reads its strings from the
+ * file as it is iterated. Heap use therefore does not grow with the number of combinations, and
+ * a restart with the file in place serves from it at once.
+ *
+ * <p>Layout, big-endian: a header ({@link #MAGIC}, format version, string, label and entry
+ * counts, offsets of the tables); the string table, one offset per string followed by
+ * length-prefixed UTF-8, every distinct string stored once; per label, the config version it was
+ * compiled at; the index, (key hash, entry offset) sorted by hash; and the entries: six key
+ * string ids, flags, template url and type, metadata JSON, then (field, raw path, payload path)
+ * string ids per field. String id -1 is null.
+ *
+ * <p>A label is only served while its current config version is known and equal to the one it
+ * was compiled at. The current version comes from the change feed ({@link #observe}) or from the
+ * caller; a label that moves away and back to the compiled version is served again.
+ */
+public final class MappingCatalog {
+
+    static final int MAGIC = 0x4D434154; // "MCAT"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int KEY_PARTS = 6;
+    static final int HAS_TEMPLATE = 1;
+    static final int HAS_FIELDS = 2;
+
+    private final Path file;
+    private final ByteBuffer buf;
+    private final int stringCount;
+    private final int stringTable;
+    private final int entryCount;
+    private final int index;
+    private final Map<String, String> versions = new ConcurrentHashMap<>();
+    // latest version per label reported by the change feed
+    private final Map<String, String> observed = new ConcurrentHashMap<>();
+
+    private MappingCatalog(Path file, ByteBuffer buf) throws IOException {
+        this.file = file;
+        this.buf = buf;
+        if (buf.limit() < HEADER_BYTES || buf.getInt(0) != MAGIC) throw new IOException(file + " is not a mapping catalog");
+        if (buf.getInt(4) != FORMAT_VERSION) throw new IOException(file + " has catalog format " + buf.getInt(4) + ", expected " + FORMAT_VERSION);
+        this.stringCount = buf.getInt(8);
+        int labelCount = buf.getInt(12);
+        this.entryCount = buf.getInt(16);
+        this.stringTable = buf.getInt(20);
+        int labelTable = buf.getInt(24);
+        this.index = buf.getInt(28);
+        for (int i = 0; i < labelCount; i++) {
+            String label = string(buf.getInt(labelTable + 8 * i));
+            String version = string(buf.getInt(labelTable + 8 * i + 4));
+            if (label != null && version != null) versions.put(label, version);
+        }
+    }
+
+    public static MappingCatalog open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new MappingCatalog(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    /** Config version {@code label} was compiled at, or null when the builder did not know it. */
+    public String version(String label) {
+        return versions.get(label);
+    }
+
+    /**
+     * Record the current version of {@code label} as reported by the change feed; a null label
+     * (the feed could not say what changed) or a null version forgets what was observed.
+     */
+    public void observe(String label, String version) {
+        if (label == null) observed.clear();
+        else if (version == null) observed.remove(label);
+        else observed.put(label, version);
+    }
+
+    /** Forget every observed version, e.g. while the change feed is down and may miss commits. */
+    public void forgetObserved() {
+        observed.clear();
+    }
+
+    /** Version of {@code label} last reported by the change feed, or null. */
+    public String observed(String label) {
+        return observed.get(label);
+    }
+
+    /**
+     * The mapping for a combination, or null when it is not in the catalog or {@code currentVersion}
+     * is unknown or differs from the version the label was compiled at.
+     */
+    public CompiledMapping find(String clientService, String template, String product, String market, String state,
+                                String label, String currentVersion) {
+        if (currentVersion == null || !currentVersion.equals(versions.get(label))) return null;
+        String[] key = {clientService, template, product, market, state, label};
+        long hash = hash(key);
+        int lo = 0;
+        int hi = entryCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long h = buf.getLong(index + 12 * mid);
+            if (h < hash) lo = mid + 1;
+            else if (h > hash) hi = mid - 1;
+            else {
+                // equal hashes sit next to each other; step back to the first and compare keys
+                while (mid > 0 && buf.getLong(index + 12 * (mid - 1)) == hash) mid--;
+                for (int i = mid; i < entryCount && buf.getLong(index + 12 * i) == hash; i++) {
+                    int entry = buf.getInt(index + 12 * i + 8);
+                    if (keyEquals(entry, key)) return new CatalogMapping(entry);
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private boolean keyEquals(int entry, String[] key) {
+        for (int i = 0; i < KEY_PARTS; i++) {
+            if (!stringEquals(buf.getInt(entry + 4 * i), key[i])) return false;
+        }
+        return true;
+    }
+
+    // Compares ASCII in place; anything else is decoded
+    private boolean stringEquals(int id, String s) {
+        if (id < 0 || s == null) return id < 0 && s == null;
+        int pos = buf.getInt(stringTable + 4 * id);
+        int len = buf.getInt(pos);
+        if (len == s.length()) {
+            boolean ascii = true;
+            for (int i = 0; i < len; i++) {
+                byte b = buf.get(pos + 4 + i);
+                if (b < 0) {
+                    ascii = false;
+                    break;
+                }
+                if (b != s.charAt(i)) return false;
+            }
+            if (ascii) return true;
+        }
+        return s.equals(string(id));
+    }
+
+    private String string(int id) {
+        if (id < 0) return null;
+        if (id >= stringCount) throw new IllegalStateException("String id " + id + " out of range in " + file);
+        int pos = buf.getInt(stringTable + 4 * id);
+        int len = buf.getInt(pos);
+        byte[] bytes = new byte[len];
+        buf.get(pos + 4, bytes, 0, len);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** FNV-1a over the key's characters, with a separator after each part and a marker for null. */
+    static long hash(String[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (String part : key) {
+            if (part == null) {
+                h = (h ^ 0xFFFE) * 0x100000001b3L;
+            } else {
+                for (int i = 0; i < part.length(); i++) h = (h ^ part.charAt(i)) * 0x100000001b3L;
+            }
+            h = (h ^ 0xFFFF) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /** A catalog entry; field names and paths are decoded from the file on each iteration. */
+    private final class CatalogMapping extends CompiledMapping {
+        private final int entry;
+
+        CatalogMapping(int entry) {
+            super(new FieldPlan(entry, 2));
+            this.entry = entry;
+        }
+
+        @Override
+        public MappingDocument getDocument() {
+            int flags = buf.getInt(entry + 4 * KEY_PARTS);
+            MappingDocument doc = new MappingDocument();
+            if ((flags & HAS_TEMPLATE) != 0) {
+                MappingDocument.Template t = new MappingDocument.Template();
+                t.setUrl(string(buf.getInt(entry + 4 * KEY_PARTS + 4)));
+                t.setType(string(buf.getInt(entry + 4 * KEY_PARTS + 8)));
+                doc.setTemplate(t);
+            }
+            String metadata = string(buf.getInt(entry + 4 * KEY_PARTS + 12));
+            if (metadata != null) {
+                try {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> m = JacksonMappers.JSON.readValue(metadata, Map.class);
+                    doc.setMetadata(m);
+                } catch (IOException ex) {
+                    throw new IllegalStateException("Unreadable metadata in " + file, ex);
+                }
+            }
+            if ((flags & HAS_FIELDS) != 0) {
+                MappingDocument.Mapping.Pdf pdf = new MappingDocument.Mapping.Pdf();
+                pdf.setField(new LinkedHashMap<>(new FieldPlan(entry, 1)));
+                MappingDocument.Mapping mapping = new MappingDocument.Mapping();
+                mapping.setPdf(pdf);
+                doc.setMapping(mapping);
+            }
+            return doc;
+        }
+    }
+
+    /** Read-only map of field name to the path in column {@code column} (1 raw, 2 payload path) of an entry. */
+    private final class FieldPlan extends AbstractMap<String, String> {
+        private final int fields;
+        private final int count;
+        private final int column;
+
+        FieldPlan(int entry, int column) {
+            this.count = buf.getInt(entry + 4 * KEY_PARTS + 16);
+            this.fields = entry + 4 * KEY_PARTS + 20;
+            this.column = column;
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public Set<Map.Entry<String, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return count;
+                }
+
+                @Override
+                public Iterator<Map.Entry<String, String>> iterator() {
+                    return new Iterator<>() {
+                        private int i;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < count;
+                        }
+
+                        @Override
+                        public Map.Entry<String, String> next() {
+                            if (i >= count) throw new NoSuchElementException();
+                            int at = fields + 12 * i++;
+                            return new SimpleImmutableEntry<>(string(buf.getInt(at)), string(buf.getInt(at + 4 * column)));
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.pdf.catalog;
+
+import com.example.pdf.controller.GenerateRequest;
+import com.example.pdf.service.CompiledMapping;
+import com.example.pdf.service.ConfigServerClient;
+import com.example.pdf.service.JacksonMappers;
+import com.example.pdf.service.MappingService;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds a {@link MappingCatalog} offline by composing every listed combination against a running
+ * config-server, exactly as {@code /generate} would, and recording the version of each label so
+ * the service can tell when an entry has gone stale.
+ *
+ * <pre>
+ * java -cp pdf-generation-service.jar -Dloader.main=com.example.pdf.catalog.MappingCatalogBuilder \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher \
+ *     http://localhost:8888 combinations.json mappings.catalog
+ * </pre>
+ *
+ * {@code combinations.json} is one generate request or an array of them; only the mapping
+ * attributes (clientService, templateName, productType, marketCategory, state, label) are read.
+ */
+public final class MappingCatalogBuilder {
+
+    private MappingCatalogBuilder() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 3) {
+            System.err.println("usage: MappingCatalogBuilder <config-server-url> <combinations.json> <catalog-file>");
+            System.exit(2);
+        }
+        ConfigServerClient client = new ConfigServerClient(null, args[0]);
+        List<GenerateRequest> combinations = read(Path.of(args[1]));
+        long started = System.nanoTime();
+        MappingCatalogWriter writer = build(new MappingService(client), client, combinations);
+        writer.write(Path.of(args[2]));
+        System.err.printf("%d combinations written to %s in %d ms%n", writer.size(), args[2], (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** Compose every combination and record the current version of each label seen. */
+    public static MappingCatalogWriter build(MappingService service, ConfigServerClient client,
+                                             List<GenerateRequest> combinations) throws Exception {
+        MappingCatalogWriter writer = new MappingCatalogWriter();
+        Set<String> labels = new LinkedHashSet<>();
+        for (GenerateRequest req : combinations) {
+            if (StringUtils.hasText(req.getMappingOverride())) {
+                System.err.printf("Skipping %s/%s: inline overrides are not catalogued%n", req.getClientService(), req.getTemplateName());
+                continue;
+            }
+            String label = StringUtils.hasText(req.getLabel()) ? req.getLabel() : "main";
+            // read before composing, so a commit landing mid-build leaves entries stale rather than mislabelled
+            if (labels.add(label)) writer.labelVersion(label, version(client, label));
+            CompiledMapping compiled = service.compileMapping(req);
+            writer.add(req.getClientService(), req.getTemplateName(), req.getProductType(), req.getMarketCategory(),
+                    req.getState(), label, compiled);
+        }
+        return writer;
+    }
+
+    // null when config-server has no manifest endpoint; such a label is written but never served
+    private static String version(ConfigServerClient client, String label) {
+        try {
+            ConfigServerClient.MappingManifest m = client.getManifest(label, null);
+            return m == null ? null : m.version;
+        } catch (Exception ex) {
+            System.err.printf("No manifest version for label %s, its entries will not be served: %s%n", label, ex);
+            return null;
+        }
+    }
+
+    private static List<GenerateRequest> read(Path file) throws Exception {
+        JsonNode root = JacksonMappers.JSON.readTree(file.toFile());
+        List<GenerateRequest> out = new ArrayList<>();
+        if (root.isArray()) {
+            for (JsonNode n : root) out.add(JacksonMappers.JSON.treeToValue(n, GenerateRequest.class));
+        } else {
+            out.add(JacksonMappers.JSON.treeToValue(root, GenerateRequest.class));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.pdf.catalog;
+
+import com.example.pdf.model.MappingDocument;
+import com.example.pdf.service.CompiledMapping;
+import com.example.pdf.service.JacksonMappers;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects compiled mappings and writes them in the {@link MappingCatalog} format. Everything is
+ * held on the heap until {@link #write}, so this is for building a catalog, not for serving one.
+ */
+public class MappingCatalogWriter {
+
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+    private final Map<String, String> labelVersions = new LinkedHashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+
+    /** Add the mapping for one combination; a later add for the same combination replaces it. */
+    public void add(String clientService, String template, String product, String market, String state, String label,
+                    CompiledMapping mapping) {
+        String[] key = {clientService, template, product, market, state, label};
+        int[] keyIds = new int[key.length];
+        for (int i = 0; i < key.length; i++) keyIds[i] = intern(key[i]);
+        entries.removeIf(e -> Arrays.equals(e.keyIds, keyIds));
+
+        MappingDocument doc = mapping.getDocument();
+        Entry e = new Entry(MappingCatalog.hash(key), keyIds);
+        if (doc != null && doc.getTemplate() != null) {
+            e.flags |= MappingCatalog.HAS_TEMPLATE;
+            e.templateUrl = intern(doc.getTemplate().getUrl());
+            e.templateType = intern(doc.getTemplate().getType());
+        }
+        if (doc != null && doc.getMetadata() != null) {
+            try {
+                e.metadata = intern(JacksonMappers.JSON.writeValueAsString(doc.getMetadata()));
+            } catch (JsonProcessingException ex) {
+                throw new IllegalArgumentException("Metadata of " + String.join("/", String.valueOf(template), String.valueOf(label))
+                        + " cannot be written as JSON", ex);
+            }
+        }
+        Map<String, String> raw = doc == null || doc.getMapping() == null || doc.getMapping().getPdf() == null
+                ? null : doc.getMapping().getPdf().getField();
+        if (raw != null) e.flags |= MappingCatalog.HAS_FIELDS;
+        for (Map.Entry<String, String> f : mapping.getFieldMap().entrySet()) {
+            e.fields.add(new int[] {intern(f.getKey()), intern(raw == null ? f.getValue() : raw.get(f.getKey())), intern(f.getValue())});
+        }
+        entries.add(e);
+    }
+
+    /** Record the config commit a label's mappings were composed at; see {@link MappingCatalog#version}. */
+    public void labelVersion(String label, String version) {
+        labelVersions.put(label, version);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Write the catalog through a temporary file and an atomic move, so readers never see half a file. */
+    public void write(Path file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        List<Map.Entry<String, String>> labels = new ArrayList<>(labelVersions.entrySet());
+        for (Map.Entry<String, String> l : labels) {
+            intern(l.getKey());
+            intern(l.getValue());
+        }
+        List<byte[]> encoded = new ArrayList<>(strings.size());
+        for (String s : strings.keySet()) encoded.add(s.getBytes(StandardCharsets.UTF_8));
+
+        long total = MappingCatalog.HEADER_BYTES + 4L * encoded.size() + 8L * labels.size() + 12L * entries.size();
+        for (byte[] b : encoded) total += 4 + b.length;
+        for (Entry e : entries) total += e.bytes();
+        if (total > Integer.MAX_VALUE) throw new IOException("Catalog of " + total + " bytes exceeds one mapping (2 GB); split it by label");
+
+        int stringTable = MappingCatalog.HEADER_BYTES;
+        int labelTable = stringTable + 4 * encoded.size();
+        for (byte[] b : encoded) labelTable += 4 + b.length;
+        int index = labelTable + 8 * labels.size();
+        int entryBase = index + 12 * entries.size();
+
+        out.writeInt(MappingCatalog.MAGIC);
+        out.writeInt(MappingCatalog.FORMAT_VERSION);
+        out.writeInt(encoded.size());
+        out.writeInt(labels.size());
+        out.writeInt(entries.size());
+        out.writeInt(stringTable);
+        out.writeInt(labelTable);
+        out.writeInt(index);
+
+        int pos = stringTable + 4 * encoded.size();
+        for (byte[] b : encoded) {
+            out.writeInt(pos);
+            pos += 4 + b.length;
+        }
+        for (byte[] b : encoded) {
+            out.writeInt(b.length);
+            out.write(b);
+        }
+
+        for (Map.Entry<String, String> l : labels) {
+            out.writeInt(intern(l.getKey()));
+            out.writeInt(intern(l.getValue()));
+        }
+
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingLong(e -> e.hash));
+        pos = entryBase;
+        for (Entry e : sorted) {
+            out.writeLong(e.hash);
+            out.writeInt(pos);
+            pos += e.bytes();
+        }
+        for (Entry e : sorted) {
+            for (int id : e.keyIds) out.writeInt(id);
+            out.writeInt(e.flags);
+            out.writeInt(e.templateUrl);
+            out.writeInt(e.templateType);
+            out.writeInt(e.metadata);
+            out.writeInt(e.fields.size());
+            for (int[] f : e.fields) {
+                out.writeInt(f[0]);
+                out.writeInt(f[1]);
+                out.writeInt(f[2]);
+            }
+        }
+        out.flush();
+
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        Files.write(tmp, bytes.toByteArray());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // -1 stands for null
+    private int intern(String s) {
+        if (s == null) return -1;
+        return strings.computeIfAbsent(s, k -> strings.size());
+    }
+
+    private static final class Entry {
+        final long hash;
+        final int[] keyIds;
+        int flags;
+        int templateUrl = -1;
+        int templateType = -1;
+        int metadata = -1;
+        final List<int[]> fields = new ArrayList<>();
+
+        Entry(long hash, int[] keyIds) {
+            this.hash = hash;
+            this.keyIds = keyIds;
+        }
+
+        int bytes() {
+            return 4 * (MappingCatalog.KEY_PARTS + 5) + 12 * fields.size();
+        }
+    }
+}
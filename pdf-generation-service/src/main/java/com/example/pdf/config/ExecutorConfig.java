@@ -0,0 +1,96 @@
+package com.example.pdf.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulkhead between I/O and rendering. Config-server fetches run on {@code configFetchExecutor}:
+ * a virtual thread per task on Java 21+, otherwise a pool of platform threads. PDF rendering runs
+ * on {@code pdfRenderExecutor}: a fixed pool sized to the cores with a bounded queue that rejects
+ * when full. A burst of slow fetches therefore cannot take the render threads, and a burst of big
+ * renders cannot take the fetch threads.
+ *
+ * <p>Both pools report through Micrometer's {@code executor.*} meters (pool size, active, queued,
+ * task and idle time), tagged {@code name=pdf.config-fetch} / {@code name=pdf.render}; rejected
+ * renders are counted as {@code executor.rejected}. Attempts of hedged fetches (see
+ * {@code pdf.hedge}) run on {@code configHedgeExecutor}, tagged {@code name=pdf.config-hedge}.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutorConfig.class);
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService configFetchExecutor(MeterRegistry registry,
+                                               @Value("${pdf.fetch.platform-threads:64}") int platformThreads) {
+        ExecutorService executor = virtualThreadPerTask();
+        if (executor == null) {
+            log.info("Virtual threads unavailable on Java {}; config fetches use {} platform threads",
+                    Runtime.version().feature(), platformThreads);
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(platformThreads, platformThreads, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), named("config-fetch-"));
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        return ExecutorServiceMetrics.monitor(registry, executor, "pdf.config-fetch");
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService pdfRenderExecutor(MeterRegistry registry,
+                                             @Value("${pdf.render.threads:0}") int threads,
+                                             @Value("${pdf.render.queue:100}") int queue) {
+        int n = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        Counter rejected = Counter.builder("executor.rejected")
+                .description("Tasks rejected because the pool and its queue were full")
+                .tag("name", "pdf.render")
+                .register(registry);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(n, n, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queue), named("pdf-render-"), (task, executor) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Render queue full (" + queue + " waiting)");
+                });
+        return ExecutorServiceMetrics.monitor(registry, pool, "pdf.render");
+    }
+
+    // Attempts of hedged config fetches; separate from configFetchExecutor, whose tasks wait on them
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService configHedgeExecutor(MeterRegistry registry) {
+        ExecutorService executor = virtualThreadPerTask();
+        if (executor == null) executor = Executors.newCachedThreadPool(named("config-hedge-"));
+        return ExecutorServiceMetrics.monitor(registry, executor, "pdf.config-hedge");
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() without requiring Java 21 to compile
+    private static ExecutorService virtualThreadPerTask() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.pdf.config;
+
+import com.example.pdf.service.ReactiveConfigServerClient;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Beans for the reactive stack ({@code spring.profiles.active=reactive}): Netty as the server even
+ * though Tomcat is on the classpath for the servlet stack, a {@link WebClient} for the config
+ * server with the same timeouts as {@code ConfigServerClient}, and a scheduler over the bounded
+ * render pool that takes PDF rendering off the event loop.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveStackConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public ReactiveConfigServerClient reactiveConfigServerClient(WebClient.Builder builder,
+                                                                 @Value("${config-server.url:http://localhost:8888}") String configServerUrl) {
+        HttpClient http = HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 2_000)
+                .responseTimeout(Duration.ofSeconds(5));
+        return new ReactiveConfigServerClient(builder
+                .baseUrl(configServerUrl)
+                .clientConnector(new ReactorClientHttpConnector(http))
+                .build());
+    }
+
+    // Rendering shares the servlet stack's bounded pool, so a full queue is rejected the same way
+    @Bean
+    public Scheduler renderScheduler(@Qualifier("pdfRenderExecutor") ExecutorService renderExecutor) {
+        return Schedulers.fromExecutorService(renderExecutor, "pdf-render");
+    }
+}
@@ -1,66 +1,97 @@
 package com.example.pdf.controller;
 
+import com.example.pdf.admission.AdmissionController;
+import com.example.pdf.metrics.GenerateMetrics;
+import com.example.pdf.model.CompositionExplanation;
+import com.example.pdf.service.CompiledMapping;
 import com.example.pdf.service.MappingService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.pdf.service.PdfRenderer;
+import com.example.pdf.trace.RequestTrace;
+import com.example.pdf.trace.RequestTracer;
 import jakarta.validation.Valid;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.io.ByteArrayOutputStream;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+// Servlet stack; ReactiveGenerateController serves the same endpoints under the "reactive" profile
 @RestController
+@Profile("!reactive")
 @RequestMapping("/generate")
 public class GenerateController {
 
     private final MappingService mappingService;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final GenerateMetrics metrics;
+    private final PdfRenderer renderer;
+    private final RequestTracer tracer;
+    private final ExecutorService renderExecutor;
+    private final AdmissionController admission;
 
-    public GenerateController(MappingService mappingService) {
+    public GenerateController(MappingService mappingService, GenerateMetrics metrics, PdfRenderer renderer, RequestTracer tracer,
+                              @Qualifier("pdfRenderExecutor") ExecutorService renderExecutor, AdmissionController admission) {
         this.mappingService = mappingService;
+        this.metrics = metrics;
+        this.renderer = renderer;
+        this.tracer = tracer;
+        this.renderExecutor = renderExecutor;
+        this.admission = admission;
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<ByteArrayResource> generate(@Valid @RequestBody GenerateRequest req) throws Exception {
-        System.out.println("Received generate request: " + mapper.writeValueAsString(req));
-        // Resolve mapping document: either override or fetch from config server
-        com.example.pdf.model.MappingDocument doc = mappingService.composeMappingDocument(req);
+    public ResponseEntity<ByteArrayResource> generate(@RequestHeader(value = RequestTracer.TRACE_HEADER, required = false) String traceHeader,
+                                                      @RequestHeader(value = AdmissionController.REQUEST_CLASS_HEADER, required = false) String requestClass,
+                                                      @Valid @RequestBody GenerateRequest req) throws Exception {
+        try (AdmissionController.Permit permit = admission.admit(req.getClientService(), requestClass)) {
+            RequestTrace trace = tracer.begin(req, traceHeader);
+            try {
+                return generate(req, trace);
+            } finally {
+                trace.finish();
+            }
+        }
+    }
 
-        System.out.println("Resolved mapping document: " + mapper.writeValueAsString(doc));
+    /**
+     * Compose the mapping for a request without rendering: candidates tried, per-fragment fetch
+     * timings, the provenance of every merged value and each field's resolved payload value.
+     */
+    @PostMapping(value = "/explain", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CompositionExplanation> explain(@Valid @RequestBody GenerateRequest req) throws Exception {
+        return ResponseEntity.ok(mappingService.explainComposition(req));
+    }
 
-        // Extract the pdf field->payloadPath map
-        Map<String, String> fieldMap = mappingService.extractFieldMap(doc);
-        System.out.println("Extracted field map: " + mapper.writeValueAsString(fieldMap));
+    private ResponseEntity<ByteArrayResource> generate(GenerateRequest req, RequestTrace trace) throws Exception {
+        trace.event("request", req);
 
-        // Apply mapping: for each mapping entry, resolve payload path
-        Map<String, Object> resolved = new LinkedHashMap<>();
-        Map<String, Object> payload = req.getPayload() == null ? Map.of() : req.getPayload();
-        System.out.println("Using payload: " + mapper.writeValueAsString(payload));
-        for (Map.Entry<String, String> e : fieldMap.entrySet()) {
-            String pdfField = e.getKey();
-            String payloadPath = e.getValue();
-            System.out.println("Mapping PDF field '" + pdfField + "' to payload path '" + payloadPath + "'");
-            Object value = mappingService.
-            resolvePath(payload, payloadPath);
-            System.out.println("  Resolved value: " + (value == null ? "null" : mapper.writeValueAsString(value)));
-            resolved.put(pdfField, value == null ? "" : value);
+        // Resolve mapping document and its pdf field->payloadPath map: either override or fetch from config server
+        CompiledMapping compiled;
+        try (GenerateMetrics.Stage stage = metrics.stage(GenerateMetrics.COMPOSE, req.getTemplateName(), req.getClientService())) {
+            compiled = mappingService.compileMapping(req);
         }
-        System.out.println("Final resolved PDF data: " + mapper.writeValueAsString(resolved));
+        // catalog mappings build their document on demand, so only when it is traced
+        if (trace.isActive()) trace.event("compose", compiled.getDocument());
 
-        // Create a tiny PDF with resolved key-values
-        byte[] pdf = createPdfFromMap(resolved);
+        // CPU-bound tail on the render pool; a full render queue is rejected (503) rather than queued here
+        Future<byte[]> pdf = renderExecutor.submit(() -> renderer.render(req, compiled, trace));
+        try {
+            return pdfResponse(req, pdf.get());
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
 
+    static ResponseEntity<ByteArrayResource> pdfResponse(GenerateRequest req, byte[] pdf) {
         ByteArrayResource resource = new ByteArrayResource(pdf);
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
@@ -70,26 +101,4 @@ public class GenerateController {
         return ResponseEntity.ok().headers(headers).body(resource);
     }
 
-    private byte[] createPdfFromMap(Map<String, Object> data) throws Exception {
-        try (PDDocument doc = new PDDocument()) {
-            PDPage page = new PDPage();
-            doc.addPage(page);
-            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
-                cs.beginText();
-                cs.setFont(PDType1Font.HELVETICA, 12);
-                cs.newLineAtOffset(50, 700);
-                for (Map.Entry<String, Object> e : data.entrySet()) {
-                    String line = String.format("%s: %s", e.getKey(), String.valueOf(e.getValue()));
-                    cs.showText(line);
-                    cs.newLineAtOffset(0, -15);
-                }
-                cs.endText();
-            }
-            try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-                doc.save(baos);
-                return baos.toByteArray();
-            }
-        }
-    }
-
 }
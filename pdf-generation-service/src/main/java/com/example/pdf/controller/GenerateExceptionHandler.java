@@ -0,0 +1,33 @@
+package com.example.pdf.controller;
+
+import com.example.pdf.admission.AdmissionRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Overload responses shared by the servlet and reactive controllers.
+ */
+@RestControllerAdvice
+public class GenerateExceptionHandler {
+
+    // shed by admission control: over the clientService's quota or the admission queue is standing
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<String> admissionRejected(AdmissionRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
+
+    // the render pool and its queue are full: shed the request instead of queueing it unbounded
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> renderQueueFull(RejectedExecutionException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Render capacity exhausted, retry later");
+    }
+}
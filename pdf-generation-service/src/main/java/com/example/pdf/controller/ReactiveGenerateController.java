@@ -0,0 +1,92 @@
+package com.example.pdf.controller;
+
+import com.example.pdf.admission.AdmissionController;
+import com.example.pdf.metrics.GenerateMetrics;
+import com.example.pdf.model.CompositionExplanation;
+import com.example.pdf.service.MappingService;
+import com.example.pdf.service.PdfRenderer;
+import com.example.pdf.service.ReactiveMappingService;
+import com.example.pdf.trace.RequestTrace;
+import com.example.pdf.trace.RequestTracer;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@link GenerateController} on WebFlux. Mapping fragments are fetched without blocking a thread;
+ * resolve, render and serialize run on the bounded render pool. The compose stage is
+ * timed across threads, so it records latency but no allocation.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/generate")
+public class ReactiveGenerateController {
+
+    private final ReactiveMappingService reactiveMappingService;
+    private final MappingService mappingService;
+    private final GenerateMetrics metrics;
+    private final PdfRenderer renderer;
+    private final RequestTracer tracer;
+    private final Scheduler renderScheduler;
+    private final AdmissionController admission;
+
+    public ReactiveGenerateController(ReactiveMappingService reactiveMappingService, MappingService mappingService,
+                                      GenerateMetrics metrics, PdfRenderer renderer, RequestTracer tracer,
+                                      Scheduler renderScheduler, AdmissionController admission) {
+        this.reactiveMappingService = reactiveMappingService;
+        this.mappingService = mappingService;
+        this.metrics = metrics;
+        this.renderer = renderer;
+        this.tracer = tracer;
+        this.renderScheduler = renderScheduler;
+        this.admission = admission;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<ByteArrayResource>> generate(@RequestHeader(value = RequestTracer.TRACE_HEADER, required = false) String traceHeader,
+                                                            @RequestHeader(value = AdmissionController.REQUEST_CLASS_HEADER, required = false) String requestClass,
+                                                            @Valid @RequestBody GenerateRequest req) {
+        // admission may wait for a slot, so it is acquired off the event loop
+        return Mono.using(() -> admission.admit(req.getClientService(), requestClass),
+                        permit -> generate(req, tracer.begin(req, traceHeader)),
+                        AdmissionController.Permit::close)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<ResponseEntity<ByteArrayResource>> generate(GenerateRequest req, RequestTrace trace) {
+        trace.event("request", req);
+        return Mono.using(
+                        () -> metrics.asyncStage(GenerateMetrics.COMPOSE, req.getTemplateName(), req.getClientService()),
+                        stage -> reactiveMappingService.compileMapping(req),
+                        GenerateMetrics.Stage::close)
+                .doOnNext(compiled -> {
+                    if (trace.isActive()) trace.event("compose", compiled.getDocument());
+                })
+                .publishOn(renderScheduler)
+                .map(compiled -> {
+                    try {
+                        return GenerateController.pdfResponse(req, renderer.render(req, compiled, trace));
+                    } catch (Exception e) {
+                        throw new IllegalStateException("PDF rendering failed", e);
+                    }
+                })
+                .doFinally(signal -> trace.finish());
+    }
+
+    // The blocking explain path runs off the event loop
+    @PostMapping(value = "/explain", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<CompositionExplanation>> explain(@Valid @RequestBody GenerateRequest req) {
+        return Mono.fromCallable(() -> ResponseEntity.ok(mappingService.explainComposition(req)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.pdf.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Meters for the generate pipeline. Every request is split into stages (compose, resolve, render,
+ * serialize) and each stage records its latency and the bytes allocated on the request thread,
+ * tagged by template and clientService. Mapping fetches are timed per candidate layer and outcome.
+ *
+ * <p>Template and clientService tags are bounded by {@link MetricTags}. Meters are registered once
+ * per tag set and kept, so recording on the request path does not build and look them up again.
+ *
+ * <p>Exposed through the actuator {@code metrics} and {@code prometheus} endpoints.
+ */
+@Component
+public class GenerateMetrics {
+
+    public static final String STAGE_TIMER = "pdf.generate.stage";
+    public static final String STAGE_ALLOCATION = "pdf.generate.stage.allocated";
+    public static final String FETCH_TIMER = "pdf.mapping.fetch";
+    public static final String FIELDS = "pdf.generate.fields";
+    public static final String PDF_SIZE = "pdf.generate.pdf.size";
+    public static final String OVERRIDE_CACHE = "pdf.mapping.override.cache";
+    public static final String CATALOG = "pdf.mapping.catalog";
+    public static final String CONFIG_CHANGES = "pdf.config.changes";
+    public static final String CONFIG_INVALIDATED = "pdf.config.invalidated";
+    public static final String HEDGE = "pdf.config.hedge";
+
+    public static final String COMPOSE = "compose";
+    public static final String RESOLVE = "resolve";
+    public static final String RENDER = "render";
+    public static final String SERIALIZE = "serialize";
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    private final MeterRegistry registry;
+    private final MetricTags tags;
+    // by meter name and tag values
+    private final Map<MeterKey, Object> meters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GenerateMetrics(MeterRegistry registry, MetricTags tags) {
+        this.registry = registry;
+        this.tags = tags;
+    }
+
+    /** Tags every template and clientService by name; for tests and tools with few distinct values. */
+    public GenerateMetrics(MeterRegistry registry) {
+        this(registry, null);
+    }
+
+    /** Instance for code constructed outside Spring; reports through Micrometer's global registry. */
+    public static GenerateMetrics global() {
+        return new GenerateMetrics(Metrics.globalRegistry);
+    }
+
+    public Stage stage(String stage, String template, String clientService) {
+        return new Stage(stage, template, clientService, true);
+    }
+
+    /** A stage that may complete on another thread; only its latency is recorded. */
+    public Stage asyncStage(String stage, String template, String clientService) {
+        return new Stage(stage, template, clientService, false);
+    }
+
+    public void recordFetch(String layer, String outcome, long nanos) {
+        this.<Timer>meter(k -> Timer.builder(FETCH_TIMER)
+                .description("Latency of fetching one mapping candidate from the config server")
+                .tag("layer", layer)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry), FETCH_TIMER, layer, outcome)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFields(String template, String clientService, int mapped, int resolved) {
+        fields(template(template), clientService(clientService), "mapped").record(mapped);
+        fields(template(template), clientService(clientService), "resolved").record(resolved);
+    }
+
+    private DistributionSummary fields(String template, String clientService, String result) {
+        return meter(k -> DistributionSummary.builder(FIELDS)
+                .description("Fields in the mapping plan")
+                .tag("template", template)
+                .tag("clientService", clientService)
+                .tag("result", result)
+                .register(registry), FIELDS, template, clientService, result);
+    }
+
+    public void recordPdfSize(String template, String clientService, int bytes) {
+        String t = template(template);
+        String c = clientService(clientService);
+        this.<DistributionSummary>meter(k -> DistributionSummary.builder(PDF_SIZE)
+                .description("Size of the rendered PDF")
+                .baseUnit("bytes")
+                .tag("template", t)
+                .tag("clientService", c)
+                .publishPercentileHistogram()
+                .register(registry), PDF_SIZE, t, c)
+                .record(bytes);
+    }
+
+    public void recordOverrideCache(boolean hit) {
+        counter(OVERRIDE_CACHE, "Lookups of compiled mappingOverride documents", "result", hit ? "hit" : "miss").increment();
+    }
+
+    public void recordCatalog(boolean hit) {
+        counter(CATALOG, "Lookups of composed mappings in the memory-mapped mapping catalog", "result", hit ? "hit" : "miss").increment();
+    }
+
+    public void recordConfigChange(String type, int invalidated) {
+        counter(CONFIG_CHANGES, "Events received on config-server's change feed", "type", tagValue(type)).increment();
+        counter(CONFIG_INVALIDATED, "Held config-server responses dropped because of change feed events", "type", tagValue(type))
+                .increment(invalidated);
+    }
+
+    /** One {@link com.example.pdf.service.RequestHedger} event: call, sent, won or denied. */
+    public void recordHedge(String event) {
+        counter(HEDGE, "Hedged config-server fetches: calls, hedges sent, hedges that answered first, hedges denied by the budget",
+                "event", event).increment();
+    }
+
+    private Counter counter(String name, String description, String tag, String value) {
+        return meter(k -> Counter.builder(name).description(description).tag(tag, value).register(registry), name, tag, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <M> M meter(Function<MeterKey, M> register, String... key) {
+        return (M) meters.computeIfAbsent(new MeterKey(key), register);
+    }
+
+    private String template(String template) {
+        return tags == null ? tagValue(template) : tags.template(template);
+    }
+
+    private String clientService(String clientService) {
+        return tags == null ? tagValue(clientService) : tags.clientService(clientService);
+    }
+
+    private static String tagValue(String v) {
+        return v == null || v.isBlank() ? "unknown" : v;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+            if (sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled()) return sun;
+        }
+        return null;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * One timed stage on the current thread; close it when the stage ends. Allocation is only
+     * meaningful if the stage does not hop threads.
+     */
+    public final class Stage implements AutoCloseable {
+        private final Timer timer;
+        private final DistributionSummary allocation;
+        private final long startNanos = System.nanoTime();
+        private final long startAllocated;
+
+        private Stage(String stage, String template, String clientService, boolean sameThread) {
+            String t = template(template);
+            String c = clientService(clientService);
+            this.timer = meter(k -> Timer.builder(STAGE_TIMER)
+                    .description("Latency of one generate pipeline stage")
+                    .tag("stage", stage)
+                    .tag("template", t)
+                    .tag("clientService", c)
+                    .publishPercentileHistogram()
+                    .register(registry), STAGE_TIMER, stage, t, c);
+            this.allocation = THREADS == null || !sameThread ? null : meter(k -> DistributionSummary.builder(STAGE_ALLOCATION)
+                    .description("Bytes allocated on the request thread during one generate pipeline stage")
+                    .baseUnit("bytes")
+                    .tag("stage", stage)
+                    .tag("template", t)
+                    .tag("clientService", c)
+                    .register(registry), STAGE_ALLOCATION, stage, t, c);
+            this.startAllocated = allocation != null ? allocatedBytes() : 0;
+        }
+
+        @Override
+        public void close() {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            if (allocation != null) allocation.record(allocatedBytes() - startAllocated);
+        }
+    }
+
+    // meter name followed by its tag values
+    private static final class MeterKey {
+        private final String[] parts;
+        private final int hash;
+
+        MeterKey(String[] parts) {
+            this.parts = parts;
+            this.hash = Arrays.hashCode(parts);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MeterKey && Arrays.equals(parts, ((MeterKey) o).parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
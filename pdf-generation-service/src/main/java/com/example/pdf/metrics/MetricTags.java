@@ -0,0 +1,55 @@
+package com.example.pdf.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Values allowed in tags that come from requests, bound from {@code pdf.metrics.*}. Every distinct
+ * tag value is a meter that lives as long as the registry, so anything not configured here is
+ * tagged {@value #OTHER}.
+ */
+@Component
+@ConfigurationProperties(prefix = "pdf.metrics")
+public class MetricTags {
+
+    public static final String OTHER = "other";
+
+    // clientServices tagged by name; the rest are tagged "other"
+    private Set<String> clientServices = new HashSet<>();
+    // templates tagged by name; the rest are tagged "other"
+    private Set<String> templates = new HashSet<>();
+
+    public Set<String> getClientServices() {
+        return clientServices;
+    }
+
+    public void setClientServices(Set<String> clientServices) {
+        this.clientServices = clientServices;
+    }
+
+    public Set<String> getTemplates() {
+        return templates;
+    }
+
+    public void setTemplates(Set<String> templates) {
+        this.templates = templates;
+    }
+
+    /** Tag value for a clientService: itself when configured, "unknown" when missing, else "other". */
+    public String clientService(String clientService) {
+        return bounded(clientService, clientServices);
+    }
+
+    /** Tag value for a template: itself when configured, "unknown" when missing, else "other". */
+    public String template(String template) {
+        return bounded(template, templates);
+    }
+
+    private static String bounded(String value, Set<String> allowed) {
+        if (value == null || value.isBlank()) return "unknown";
+        return allowed.contains(value) ? value : OTHER;
+    }
+}
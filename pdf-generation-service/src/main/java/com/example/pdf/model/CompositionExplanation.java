@@ -0,0 +1,64 @@
+package com.example.pdf.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dry-run view of how a mapping document was composed: every candidate that was tried with its
+ * outcome and fetch time, the merged document, and for each merged value the candidate that
+ * supplied it.
+ */
+public class CompositionExplanation {
+
+    private String label;
+    private List<Candidate> candidates = new ArrayList<>();
+    private Map<String, String> provenance = new LinkedHashMap<>();
+    private Map<String, Field> fields = new LinkedHashMap<>();
+    private MappingDocument document;
+
+    public String getLabel() { return label; }
+    public void setLabel(String label) { this.label = label; }
+    public List<Candidate> getCandidates() { return candidates; }
+    public void setCandidates(List<Candidate> candidates) { this.candidates = candidates; }
+    public Map<String, String> getProvenance() { return provenance; }
+    public void setProvenance(Map<String, String> provenance) { this.provenance = provenance; }
+    public Map<String, Field> getFields() { return fields; }
+    public void setFields(Map<String, Field> fields) { this.fields = fields; }
+    public MappingDocument getDocument() { return document; }
+    public void setDocument(MappingDocument document) { this.document = document; }
+
+    public static class Candidate {
+        private String name;
+        private String layer;
+        // hit, missing or error
+        private String outcome;
+        private double fetchMillis;
+        private String error;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public String getLayer() { return layer; }
+        public void setLayer(String layer) { this.layer = layer; }
+        public String getOutcome() { return outcome; }
+        public void setOutcome(String outcome) { this.outcome = outcome; }
+        public double getFetchMillis() { return fetchMillis; }
+        public void setFetchMillis(double fetchMillis) { this.fetchMillis = fetchMillis; }
+        public String getError() { return error; }
+        public void setError(String error) { this.error = error; }
+    }
+
+    public static class Field {
+        private String path;
+        private String source;
+        private Object value;
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+        public String getSource() { return source; }
+        public void setSource(String source) { this.source = source; }
+        public Object getValue() { return value; }
+        public void setValue(Object value) { this.value = value; }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.pdf.service;
+
+import com.example.pdf.model.MappingDocument;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A mapping document together with its field plan (pdf field -> payload path). Instances coming
+ * from {@link MappingOverrideCache} are shared between requests and must not be modified.
+ */
+public class CompiledMapping {
+
+    private final MappingDocument document;
+    private final Map<String, String> fieldMap;
+
+    public CompiledMapping(MappingDocument document, Map<String, String> fieldMap) {
+        this.document = document;
+        this.fieldMap = Collections.unmodifiableMap(new LinkedHashMap<>(fieldMap));
+    }
+
+    /**
+     * For mappings backed by storage outside the heap: {@code fieldMap} is used as given and must
+     * already be read-only, and the subclass builds {@link #getDocument()} when asked.
+     */
+    protected CompiledMapping(Map<String, String> fieldMap) {
+        this.document = null;
+        this.fieldMap = fieldMap;
+    }
+
+    public MappingDocument getDocument() {
+        return document;
+    }
+
+    public Map<String, String> getFieldMap() {
+        return fieldMap;
+    }
+}
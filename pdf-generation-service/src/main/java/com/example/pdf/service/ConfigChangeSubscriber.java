@@ -0,0 +1,159 @@
+package com.example.pdf.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Follows config-server's {@code /changes} Server-Sent Events feed and hands events to
+ * {@link MappingService}, so held fragments can live for {@code pdf.fragment-cache.ttl} and still
+ * be dropped as soon as a commit touches them.
+ *
+ * <p>On a dropped connection it reconnects with backoff, sending the last event id so the server
+ * replays what was missed. A connection that did not resume from an id (there was none, or the
+ * server answered with resets because it restarted or the id is too old) drops everything held
+ * for every label first, since the server may not know about those labels any more. The resets
+ * per label that follow then give the versions being served. While disconnected, held responses
+ * are revalidated on every use.
+ */
+@Component
+@ConditionalOnProperty(name = "pdf.change-feed.enabled", matchIfMissing = true)
+public class ConfigChangeSubscriber implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigChangeSubscriber.class);
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final MappingService mappings;
+    private final URI feed;
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private final Map<String, String> versions = new ConcurrentHashMap<>();
+    private volatile String lastEventId;
+    // whether everything held was dropped since this connection was made; feed thread only
+    private boolean startedOver;
+    private volatile boolean running;
+    private volatile Stream<String> current;
+    private Thread thread;
+
+    public ConfigChangeSubscriber(MappingService mappings, @Value("${config-server.url:http://localhost:8888}") String configServerUrl) {
+        this.mappings = mappings;
+        this.feed = URI.create(configServerUrl + "/changes");
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "config-change-feed");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Stream<String> s = current;
+        if (s != null) s.close();
+        if (thread != null) thread.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        long backoff = 1000;
+        while (running) {
+            try {
+                HttpRequest.Builder req = HttpRequest.newBuilder(feed).header("Accept", "text/event-stream").GET();
+                if (lastEventId != null) req.header("Last-Event-ID", lastEventId);
+                HttpResponse<Stream<String>> resp = http.send(req.build(), HttpResponse.BodyHandlers.ofLines());
+                if (resp.statusCode() != 200) {
+                    resp.body().close();
+                    throw new IllegalStateException("HTTP " + resp.statusCode());
+                }
+                log.info("Subscribed to config changes at {}", feed);
+                current = resp.body();
+                // dropped before going live, so nothing stale is used without revalidation
+                startedOver = false;
+                if (lastEventId == null) startOver();
+                mappings.onChangeFeed(true);
+                backoff = 1000;
+                read(resp.body().iterator());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception ex) {
+                if (running) log.debug("Config change feed unavailable: {}", ex.toString());
+            } finally {
+                mappings.onChangeFeed(false);
+                Stream<String> s = current;
+                current = null;
+                if (s != null) s.close();
+            }
+            if (!running) return;
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    // SSE framing: fields until a blank line, comments start with ':'
+    private void read(Iterator<String> lines) {
+        String id = null;
+        StringBuilder data = new StringBuilder();
+        while (running && lines.hasNext()) {
+            String line = lines.next();
+            if (line.isEmpty()) {
+                if (data.length() > 0) dispatch(id, data.toString());
+                id = null;
+                data.setLength(0);
+            } else if (line.startsWith("id:")) {
+                id = line.substring(3).trim();
+            } else if (line.startsWith("data:")) {
+                if (data.length() > 0) data.append('\n');
+                data.append(line.substring(5).trim());
+            }
+        }
+    }
+
+    private void dispatch(String id, String data) {
+        try {
+            ConfigServerClient.ConfigChange change = JacksonMappers.JSON.readValue(data, ConfigServerClient.ConfigChange.class);
+            // the server answers an id it cannot resume from with resets
+            if ("reset".equals(change.type) && !startedOver) startOver();
+            if (change.label != null) {
+                String seen = change.version == null ? null : versions.put(change.label, change.version);
+                // a reset for a version already held here means nothing was missed
+                if (!"reset".equals(change.type) || seen == null || !seen.equals(change.version)) {
+                    mappings.onConfigChange(change);
+                }
+            }
+            // resets carry the position they were sent at, so a reconnect resumes from there
+            if (id != null) lastEventId = id;
+        } catch (Exception ex) {
+            log.warn("Ignoring unreadable config change event {}: {}", data, ex.toString());
+        }
+    }
+
+    private void startOver() {
+        startedOver = true;
+        versions.clear();
+        mappings.dropAll();
+    }
+}
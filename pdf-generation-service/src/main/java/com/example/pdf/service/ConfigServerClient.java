@@ -3,18 +3,24 @@ package com.example.pdf.service;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class ConfigServerClient {
 
@@ -22,64 +28,227 @@ public class ConfigServerClient {
 
     private final RestTemplate rest;
     private final String baseUrl;
-    private final ObjectMapper json = new ObjectMapper();
-    private final ObjectMapper yaml = new ObjectMapper(new YAMLFactory());
+    private static final ObjectMapper json = JacksonMappers.JSON;
+    private static final ObjectMapper yaml = JacksonMappers.YAML;
+    // last body and ETag per URL, for If-None-Match; bodies are re-parsed because callers merge
+    // into what they get back. URLs carry request values (clientService, templateName), so it is
+    // an LRU of at most maxHeld entries; guarded by itself
+    private final Map<String, Validated> validated;
+    private volatile int maxHeld = 1000;
+    // while the change feed is live, held bodies younger than this are used without a request
+    private volatile long holdNanos;
+    private volatile boolean changeFeedLive;
+    private volatile RequestHedger hedger;
 
     public ConfigServerClient(RestTemplate rest, String baseUrl) {
         // ensure timeouts are set on provided RestTemplate or create one
         if (rest == null) {
-            SimpleClientHttpRequestFactory f = new SimpleClientHttpRequestFactory();
-            f.setConnectTimeout(2_000);
-            f.setReadTimeout(5_000);
+            // java.net.http rather than HttpURLConnection: its blocking paths use j.u.c locks, not
+            // synchronized, so fetches on virtual threads do not pin their carrier thread
+            HttpClient http = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(2))
+                    .build();
+            JdkClientHttpRequestFactory f = new JdkClientHttpRequestFactory(http);
+            f.setReadTimeout(Duration.ofSeconds(5));
             this.rest = new RestTemplate(f);
         } else {
             this.rest = rest;
         }
         this.baseUrl = baseUrl == null ? "http://localhost:8888" : baseUrl;
+        this.validated = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Validated> eldest) {
+                return size() > maxHeld;
+            }
+        };
     }
 
     public ConfigServerResponse getApplicationConfig(String application, String profile, String label) {
         String url = String.format("%s/%s/%s/%s", baseUrl, application, profile, label);
         log.debug("Fetching application config from {}", url);
-        return rest.getForObject(url, ConfigServerResponse.class);
+        String body = conditionalGet(url, label, null);
+        if (body == null || body.isBlank()) return null;
+        try {
+            return json.readValue(body, ConfigServerResponse.class);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Unreadable config server response from " + url, ex);
+        }
     }
 
+    /**
+     * Fetch a repo file through the config server's file endpoint. Returns null when the file does
+     * not exist or its body cannot be parsed; transport and server errors propagate so callers can
+     * tell a missing fragment from a failed fetch.
+     */
     public ConfigServerResponse getFile(String profile, String label, String pathWithExtension) {
         // pathWithExtension should be like "mappings/base-application.yml" or "mappings/templates/invoice-v2.yml"
         String url = String.format("%s/application/%s/%s/%s", baseUrl, profile, label, pathWithExtension);
         log.debug("Fetching file config from {}", url);
         try {
-            ResponseEntity<String> resp = rest.exchange(url, HttpMethod.GET, HttpEntity.EMPTY, String.class);
-            String body = resp.getBody();
-            if (body == null || body.isBlank()) return null;
-
-            // Try to parse as a ConfigServerResponse JSON first (some endpoints return JSON)
-            try {
-                return json.readValue(body, ConfigServerResponse.class);
-            } catch (Exception je) {
-                log.debug("Response not JSON ConfigServerResponse, will try YAML/props parsing");
-            }
+            return parseFile(conditionalGet(url, label, pathWithExtension), pathWithExtension);
+        } catch (HttpClientErrorException.NotFound ex) {
+            log.debug("File {} not found on config server", url);
+            return null;
+        }
+    }
+
+    /**
+     * Fetch config-server's manifest of existing mapping paths for a label. Returns null when
+     * {@code etag} (the version of a manifest already held) still matches; errors propagate, so a
+     * server without the manifest endpoint surfaces as a 404.
+     */
+    public MappingManifest getManifest(String label, String etag) {
+        String url = String.format("%s/mappings-manifest/%s", baseUrl, label);
+        HttpHeaders headers = new HttpHeaders();
+        if (etag != null) headers.setIfNoneMatch(etag);
+        ResponseEntity<MappingManifest> resp = rest.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), MappingManifest.class);
+        if (resp.getStatusCode().value() == 304) return null;
+        return resp.getBody();
+    }
+
+    /**
+     * Use held bodies without revalidating them for up to {@code ttl}, but only while
+     * {@link #setChangeFeedLive(boolean) the change feed is live} to invalidate them.
+     */
+    public void holdFor(Duration ttl) {
+        this.holdNanos = ttl.toNanos();
+    }
+
+    /** Keep bodies for at most {@code maxEntries} URLs, dropping the least recently used. */
+    public void holdAtMost(int maxEntries) {
+        this.maxHeld = Math.max(0, maxEntries);
+    }
+
+    public void setChangeFeedLive(boolean live) {
+        this.changeFeedLive = live;
+    }
+
+    /** Hedge mapping and application config fetches through {@code hedger}; null turns hedging off. */
+    public void hedgeWith(RequestHedger hedger) {
+        this.hedger = hedger;
+    }
+
+    /**
+     * Drop held bodies for {@code label}: files whose path is in {@code changedPaths}, application
+     * configs when anything outside {@code mappings/} changed, everything when it is null.
+     * Returns how many were dropped.
+     */
+    public int invalidate(String label, Collection<String> changedPaths) {
+        boolean outsideMappings = changedPaths == null || changedPaths.stream().anyMatch(p -> !p.startsWith("mappings/"));
+        int[] dropped = {0};
+        synchronized (validated) {
+            validated.values().removeIf(v -> {
+                boolean hit = v.label.equals(label)
+                        && (changedPaths == null || (v.path == null ? outsideMappings : changedPaths.contains(v.path)));
+                if (hit) dropped[0]++;
+                return hit;
+            });
+        }
+        return dropped[0];
+    }
+
+    /** Labels that held bodies belong to. */
+    public Set<String> heldLabels() {
+        Set<String> labels = new HashSet<>();
+        synchronized (validated) {
+            for (Validated v : validated.values()) labels.add(v.label);
+        }
+        return labels;
+    }
+
+    /**
+     * GET {@code url}, revalidating the body held from the last 200 with {@code If-None-Match}; on
+     * 304 that body is returned without being transferred again. {@code path} is the repo file
+     * behind the URL, null for an application config.
+     */
+    private String conditionalGet(String url, String label, String path) {
+        Validated held = held(url);
+        if (held != null && changeFeedLive && System.nanoTime() - held.checkedNanos < holdNanos) return held.body;
+
+        HttpHeaders headers = new HttpHeaders();
+        if (held != null) headers.setIfNoneMatch(held.etag);
+        ResponseEntity<String> resp;
+        try {
+            HttpEntity<Void> request = new HttpEntity<>(headers);
+            RequestHedger h = hedger;
+            resp = h == null ? rest.exchange(url, HttpMethod.GET, request, String.class)
+                    : h.call(() -> rest.exchange(url, HttpMethod.GET, request, String.class));
+        } catch (HttpClientErrorException.NotFound ex) {
+            hold(url, null);
+            throw ex;
+        }
+        if (resp.getStatusCode().value() == 304 && held != null) {
+            hold(url, new Validated(label, path, held.etag, held.body));
+            return held.body;
+        }
+
+        String etag = resp.getHeaders().getETag();
+        hold(url, etag != null && resp.getBody() != null ? new Validated(label, path, etag, resp.getBody()) : null);
+        return resp.getBody();
+    }
+
+    private Validated held(String url) {
+        synchronized (validated) {
+            return validated.get(url);
+        }
+    }
+
+    // null forgets the URL
+    private void hold(String url, Validated v) {
+        synchronized (validated) {
+            if (v == null) validated.remove(url);
+            else validated.put(url, v);
+        }
+    }
+
+    int heldCount() {
+        synchronized (validated) {
+            return validated.size();
+        }
+    }
+
+    private static final class Validated {
+        final String label;
+        final String path;
+        final String etag;
+        final String body;
+        final long checkedNanos = System.nanoTime();
+
+        Validated(String label, String path, String etag, String body) {
+            this.label = label;
+            this.path = path;
+            this.etag = etag;
+            this.body = body;
+        }
+    }
+
+    // A file body is either a ConfigServerResponse JSON document or plain YAML/properties
+    static ConfigServerResponse parseFile(String body, String pathWithExtension) {
+        if (body == null || body.isBlank()) return null;
+
+        // Try to parse as a ConfigServerResponse JSON first (some endpoints return JSON)
+        try {
+            return json.readValue(body, ConfigServerResponse.class);
+        } catch (Exception je) {
+            log.debug("Response not JSON ConfigServerResponse, will try YAML/props parsing");
+        }
 
-            // Try parsing as YAML into a Map of properties
-            try {
-                Map<?,?> parsed = yaml.readValue(body, Map.class);
-                // If parsed contains propertySources, attempt to map to typed response
-                if (parsed.containsKey("propertySources")) {
-                    return json.convertValue(parsed, ConfigServerResponse.class);
-                }
-                // Otherwise, treat the parsed map as the 'source' of a single propertySource
-                ConfigServerResponse out = new ConfigServerResponse();
-                PropertySource ps = new PropertySource();
-                ps.name = pathWithExtension;
-                ps.source = (Map<String, Object>) parsed;
-                out.propertySources = List.of(ps);
-                return out;
-            } catch (Exception ye) {
-                log.warn("Failed to parse file response as YAML: {}", ye.toString());
-                return null;
+        // Try parsing as YAML into a Map of properties
+        try {
+            Map<?,?> parsed = yaml.readValue(body, Map.class);
+            // If parsed contains propertySources, attempt to map to typed response
+            if (parsed.containsKey("propertySources")) {
+                return json.convertValue(parsed, ConfigServerResponse.class);
             }
-        } catch (Exception ex) {
-            log.warn("HTTP error fetching file {}: {}", url, ex.toString());
+            // Otherwise, treat the parsed map as the 'source' of a single propertySource
+            ConfigServerResponse out = new ConfigServerResponse();
+            PropertySource ps = new PropertySource();
+            ps.name = pathWithExtension;
+            ps.source = (Map<String, Object>) parsed;
+            out.propertySources = List.of(ps);
+            return out;
+        } catch (Exception ye) {
+            log.warn("Failed to parse file response as YAML: {}", ye.toString());
             return null;
         }
     }
@@ -105,4 +274,29 @@ public class ConfigServerClient {
         @JsonProperty("source")
         public Map<String, Object> source;
     }
+
+    /** An event from config-server's {@code /changes} feed. */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ConfigChange {
+        @JsonProperty("type")
+        public String type;
+        @JsonProperty("label")
+        public String label;
+        @JsonProperty("from")
+        public String from;
+        @JsonProperty("version")
+        public String version;
+        @JsonProperty("paths")
+        public List<String> paths;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class MappingManifest {
+        @JsonProperty("label")
+        public String label;
+        @JsonProperty("version")
+        public String version;
+        @JsonProperty("paths")
+        public List<String> paths;
+    }
 }
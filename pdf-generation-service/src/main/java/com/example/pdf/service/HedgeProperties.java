@@ -0,0 +1,63 @@
+package com.example.pdf.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings for {@link RequestHedger}, bound from {@code pdf.hedge.*}.
+ */
+@Component
+@ConfigurationProperties(prefix = "pdf.hedge")
+public class HedgeProperties {
+
+    private boolean enabled = false;
+    // hedge a fetch once it has taken longer than this percentile of recent fetch latencies
+    private double percentile = 0.95;
+    // bounds on that delay; maxDelay is also used until enough latencies have been seen
+    private Duration minDelay = Duration.ofMillis(10);
+    private Duration maxDelay = Duration.ofSeconds(1);
+    // hedges allowed per fetch on average: each fetch earns this fraction of a hedge, each hedge spends one
+    private double budget = 0.05;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public void setPercentile(double percentile) {
+        this.percentile = percentile;
+    }
+
+    public Duration getMinDelay() {
+        return minDelay;
+    }
+
+    public void setMinDelay(Duration minDelay) {
+        this.minDelay = minDelay;
+    }
+
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    public void setMaxDelay(Duration maxDelay) {
+        this.maxDelay = maxDelay;
+    }
+
+    public double getBudget() {
+        return budget;
+    }
+
+    public void setBudget(double budget) {
+        this.budget = budget;
+    }
+}
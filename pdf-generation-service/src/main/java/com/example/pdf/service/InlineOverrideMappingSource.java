@@ -2,7 +2,6 @@ package com.example.pdf.service;
 
 import com.example.pdf.controller.GenerateRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 
 import java.util.Map;
 import java.util.Optional;
@@ -12,7 +11,7 @@ import java.util.Optional;
  */
 public class InlineOverrideMappingSource implements MappingSource {
 
-    private final ObjectMapper yaml = new ObjectMapper(new YAMLFactory());
+    private final ObjectMapper yaml = JacksonMappers.YAML;
 
     @Override
     public Optional<Map<String, Object>> fetch(GenerateRequest req, String label) throws Exception {
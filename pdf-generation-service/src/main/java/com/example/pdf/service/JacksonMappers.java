@@ -0,0 +1,18 @@
+package com.example.pdf.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+/**
+ * Jackson mappers shared across the service. An {@link ObjectMapper} is thread-safe once
+ * configured and caches serializers and deserializers per type, so building one per client,
+ * source or request throws that work away.
+ */
+public final class JacksonMappers {
+
+    public static final ObjectMapper JSON = new ObjectMapper();
+    public static final ObjectMapper YAML = new ObjectMapper(new YAMLFactory());
+
+    private JacksonMappers() {
+    }
+}
@@ -1,12 +1,19 @@
 package com.example.pdf.service;
 
 import com.example.pdf.controller.GenerateRequest;
+import com.example.pdf.metrics.GenerateMetrics;
+import com.example.pdf.model.CompositionExplanation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Compose mapping fragments by fetching candidate fragments (via mapping sources)
@@ -17,9 +24,36 @@ public class MappingComposer {
     private static final Logger log = LoggerFactory.getLogger(MappingComposer.class);
 
     private final ConfigServerClient client;
+    private final GenerateMetrics metrics;
+    private final Executor fetchExecutor;
+    private final MappingManifestCache manifests;
 
     public MappingComposer(ConfigServerClient client) {
+        this(client, GenerateMetrics.global());
+    }
+
+    public MappingComposer(ConfigServerClient client, GenerateMetrics metrics) {
+        this(client, metrics, null);
+    }
+
+    /**
+     * With a {@code fetchExecutor} all candidates are fetched concurrently on it and merged in
+     * candidate order once they arrive; without one they are fetched one after another on the
+     * calling thread.
+     */
+    public MappingComposer(ConfigServerClient client, GenerateMetrics metrics, Executor fetchExecutor) {
+        this(client, metrics, fetchExecutor, null);
+    }
+
+    /**
+     * With {@code manifests}, repo-file candidates missing from the label's manifest are skipped
+     * (outcome "pruned") instead of fetched.
+     */
+    public MappingComposer(ConfigServerClient client, GenerateMetrics metrics, Executor fetchExecutor, MappingManifestCache manifests) {
         this.client = client;
+        this.metrics = metrics;
+        this.fetchExecutor = fetchExecutor;
+        this.manifests = manifests;
     }
 
     /**
@@ -28,73 +62,129 @@ public class MappingComposer {
      * it is treated as an application name (ApplicationMappingSource).
      */
     public Map<String, Object> compose(GenerateRequest req, String label, List<String> candidates) {
+        return compose(req, label, candidates, null);
+    }
+
+    /**
+     * Same as {@link #compose(GenerateRequest, String, List)}, additionally recording each
+     * candidate's outcome and timing, and which candidate supplied each merged leaf, into
+     * {@code explain} when it is not null.
+     */
+    public Map<String, Object> compose(GenerateRequest req, String label, List<String> candidates, CompositionExplanation explain) {
+        Set<String> known = manifests == null ? null : manifests.paths(label);
+        List<Fetched> fetched = new ArrayList<>(candidates.size());
+        if (fetchExecutor == null) {
+            for (String candidate : candidates) {
+                fetched.add(isPruned(known, candidate) ? pruned(candidate) : fetch(req, label, candidate));
+            }
+        } else {
+            List<CompletableFuture<Fetched>> futures = new ArrayList<>(candidates.size());
+            for (String candidate : candidates) {
+                futures.add(isPruned(known, candidate) ? CompletableFuture.completedFuture(pruned(candidate))
+                        : CompletableFuture.supplyAsync(() -> fetch(req, label, candidate), fetchExecutor));
+            }
+            for (CompletableFuture<Fetched> f : futures) fetched.add(f.join());
+        }
+
         Map<String, Object> merged = new LinkedHashMap<>();
-        for (String candidate : candidates) {
-            try {
-                MappingSource src;
-                if (candidate.contains("/")) {
-                    String path = candidate + ".yml";
-                    src = new ConfigFileMappingSource(client, path);
-                } else {
-                    src = new ApplicationMappingSource(client, candidate);
-                }
-
-                src.fetch(req, label).ifPresent(fragment -> {
-                    Map<String, Object> nested = unflatten(fragment);
-                    if (nested.containsKey("pdf") && !nested.containsKey("mapping")) {
-                        Object pdfNode = nested.remove("pdf");
-                        Map<String, Object> mappingNode = new LinkedHashMap<>();
-                        mappingNode.put("pdf", pdfNode);
-                        nested.put("mapping", mappingNode);
-                    }
-                    deepMerge(merged, nested);
-                });
-            } catch (Exception ex) {
-                log.warn("Ignoring candidate {} due to error: {}", candidate, ex.toString());
+        Map<String, String> provenance = explain == null ? null : new LinkedHashMap<>();
+        for (Fetched f : fetched) {
+            if (f.fragment != null) {
+                if (provenance != null) recordLeaves("", f.fragment, f.candidate, provenance);
+                MappingTrees.deepMerge(merged, f.fragment);
+            }
+            if (explain != null) {
+                CompositionExplanation.Candidate c = new CompositionExplanation.Candidate();
+                c.setName(f.candidate);
+                c.setLayer(layerOf(f.candidate));
+                c.setOutcome(f.outcome);
+                c.setFetchMillis(f.nanos / 1e6);
+                c.setError(f.error);
+                explain.getCandidates().add(c);
+            }
+        }
+        if (explain != null) {
+            // a later fragment may have replaced a whole subtree; keep only leaves that survived
+            Map<String, String> surviving = new LinkedHashMap<>();
+            recordLeaves("", merged, null, surviving);
+            for (String key : surviving.keySet()) {
+                explain.getProvenance().put(key, provenance.get(key));
             }
         }
         return merged;
     }
 
-    // Unflatten a map with dotted keys into a nested map
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> unflatten(Map<?,?> flat) {
-        Map<String, Object> root = new LinkedHashMap<>();
-        for (Object ko : flat.keySet()) {
-            String k = String.valueOf(ko);
-            Object v = flat.get(ko);
-            String[] parts = k.split("\\.");
-            Map<String, Object> cur = root;
-            for (int i = 0; i < parts.length; i++) {
-                String p = parts[i];
-                if (i == parts.length - 1) {
-                    cur.put(p, v);
-                } else {
-                    Object next = cur.get(p);
-                    if (!(next instanceof Map)) {
-                        Map<String, Object> nm = new LinkedHashMap<>();
-                        cur.put(p, nm);
-                        cur = nm;
-                    } else {
-                        cur = (Map<String, Object>) next;
-                    }
-                }
+    // Application candidates are not files, so the manifest says nothing about them
+    static boolean isPruned(Set<String> known, String candidate) {
+        return known != null && candidate.contains("/") && !known.contains(candidate);
+    }
+
+    private Fetched pruned(String candidate) {
+        Fetched out = new Fetched(candidate);
+        out.outcome = "pruned";
+        metrics.recordFetch(layerOf(candidate), out.outcome, 0);
+        return out;
+    }
+
+    // Fetch and unflatten one candidate; failures are recorded, never thrown
+    private Fetched fetch(GenerateRequest req, String label, String candidate) {
+        Fetched out = new Fetched(candidate);
+        long start = System.nanoTime();
+        try {
+            MappingSource src;
+            if (candidate.contains("/")) {
+                String path = candidate + ".yml";
+                src = new ConfigFileMappingSource(client, path);
+            } else {
+                src = new ApplicationMappingSource(client, candidate);
             }
+
+            Optional<Map<String, Object>> fragment = src.fetch(req, label);
+            if (fragment.isPresent()) {
+                out.outcome = "hit";
+                out.fragment = MappingTrees.wrapRootPdf(MappingTrees.unflatten(fragment.get()));
+            }
+        } catch (Exception ex) {
+            out.outcome = "error";
+            out.error = ex.toString();
+            log.warn("Ignoring candidate {} due to error: {}", candidate, ex.toString());
+        } finally {
+            out.nanos = System.nanoTime() - start;
+            metrics.recordFetch(layerOf(candidate), out.outcome, out.nanos);
+        }
+        return out;
+    }
+
+    private static final class Fetched {
+        final String candidate;
+        String outcome = "missing";
+        String error;
+        long nanos;
+        Map<String, Object> fragment;
+
+        Fetched(String candidate) {
+            this.candidate = candidate;
         }
-        return root;
     }
 
-    // Deep-merge override into base. For Map values, merge recursively; lists are replaced.
     @SuppressWarnings("unchecked")
-    private void deepMerge(Map<String, Object> base, Map<String, Object> override) {
-        for (Map.Entry<String, Object> e : override.entrySet()) {
-            String k = e.getKey();
-            Object v = e.getValue();
-            if (v instanceof Map && base.get(k) instanceof Map) {
-                deepMerge((Map<String, Object>) base.get(k), (Map<String, Object>) v);
+    private static void recordLeaves(String prefix, Map<String, Object> node, String source, Map<String, String> out) {
+        for (Map.Entry<String, Object> e : node.entrySet()) {
+            String key = prefix.isEmpty() ? e.getKey() : prefix + "." + e.getKey();
+            if (e.getValue() instanceof Map) {
+                recordLeaves(key, (Map<String, Object>) e.getValue(), source, out);
             } else {
-                base.put(k, v);
+                out.put(key, source);
             }
         }
     }
+
+    // "mappings/templates/medicare/invoice-v2" -> "mappings/templates": bounded tag values,
+    // whatever product/state the request carried
+    static String layerOf(String candidate) {
+        if (!candidate.contains("/")) return "application";
+        int first = candidate.indexOf('/');
+        int second = candidate.indexOf('/', first + 1);
+        return second < 0 ? candidate : candidate.substring(0, second);
+    }
 }
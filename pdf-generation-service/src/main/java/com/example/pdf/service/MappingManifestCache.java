@@ -0,0 +1,144 @@
+package com.example.pdf.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Per-label copy of config-server's mapping manifest (the {@code mappings/} paths that exist), used
+ * by the composers to skip candidates that would only 404.
+ *
+ * <p>Lookups never wait on the network: {@link #paths(String)} answers from what is held and, once
+ * the entry is older than the refresh interval, revalidates it in the background with a
+ * conditional GET, so the manifest body is only downloaded again after a new commit.
+ *
+ * <p>A held manifest is only used while it is known to describe the commit being served: the
+ * change feed is live and the version it last reported for the label is the manifest's (see
+ * {@link #confirm}). Otherwise, e.g. without the change feed, while it is down, or after a commit
+ * before the manifest caught up, lookups return null and nothing is pruned, so a fragment added
+ * in a new commit is never skipped.
+ */
+public class MappingManifestCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MappingManifestCache.class);
+
+    private final ConfigServerClient client;
+    private final long refreshNanos;
+    private final Executor executor;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    // version per label last reported by the change feed
+    private final Map<String, String> confirmed = new ConcurrentHashMap<>();
+    private volatile boolean changeFeedLive;
+
+    public MappingManifestCache(ConfigServerClient client, Duration refreshInterval, Executor executor) {
+        this.client = client;
+        this.refreshNanos = refreshInterval.toNanos();
+        this.executor = executor;
+    }
+
+    /** Existing mapping paths for {@code label}, or null when no manifest is known to be current. */
+    public Set<String> paths(String label) {
+        Entry e = entries.get(label);
+        if (e == null || System.nanoTime() - e.checkedNanos > refreshNanos) {
+            if (refreshing.add(label)) {
+                try {
+                    executor.execute(() -> {
+                        try {
+                            refresh(label);
+                        } finally {
+                            refreshing.remove(label);
+                        }
+                    });
+                } catch (RuntimeException ex) {
+                    refreshing.remove(label);
+                    log.debug("Could not schedule manifest refresh for {}: {}", label, ex.toString());
+                }
+            }
+        }
+        return e == null || !current(label, e) ? null : e.paths;
+    }
+
+    private boolean current(String label, Entry e) {
+        return changeFeedLive && e.version != null && e.version.equals(confirmed.get(label));
+    }
+
+    /** Commit version of the manifest held for {@code label}, or null when none is held. */
+    public String version(String label) {
+        Entry e = entries.get(label);
+        return e == null ? null : e.version;
+    }
+
+    /** Called as the change feed connects and drops; held manifests are only used while it is live. */
+    public void setChangeFeedLive(boolean live) {
+        this.changeFeedLive = live;
+    }
+
+    /**
+     * Record that the change feed reported {@code label} at {@code version}. When the commit from
+     * {@code unchangedSince} touched no mapping file, a manifest held at {@code unchangedSince} is
+     * still right and moves to {@code version}; pass null when mappings changed or it is unknown.
+     */
+    public void confirm(String label, String version, String unchangedSince) {
+        if (version == null) {
+            confirmed.remove(label);
+            return;
+        }
+        confirmed.put(label, version);
+        if (unchangedSince != null) {
+            entries.computeIfPresent(label, (k, e) -> unchangedSince.equals(e.version) ? new Entry(version, e.paths) : e);
+        }
+    }
+
+    /** Forget every version the change feed reported, for when it cannot say what was missed. */
+    public void forgetConfirmed() {
+        confirmed.clear();
+    }
+
+    /** Forget the manifest for {@code label} and fetch it again in the background. */
+    public void invalidate(String label) {
+        entries.remove(label);
+        paths(label);
+    }
+
+    /** Forget every manifest held and fetch them again in the background. */
+    public void invalidateAll() {
+        for (String label : Set.copyOf(entries.keySet())) invalidate(label);
+    }
+
+    /** Fetch or revalidate the manifest for {@code label} on the calling thread. */
+    public void refresh(String label) {
+        Entry current = entries.get(label);
+        String etag = current == null || current.version == null ? null : "\"" + current.version + "\"";
+        try {
+            ConfigServerClient.MappingManifest m = client.getManifest(label, etag);
+            if (m == null) {
+                current.checkedNanos = System.nanoTime();
+                return;
+            }
+            Set<String> paths = m.paths == null ? Set.of() : Set.copyOf(m.paths);
+            entries.put(label, new Entry(m.version, paths));
+            log.debug("Mapping manifest for label {} now at version {} ({} paths)", label, m.version, paths.size());
+        } catch (Exception ex) {
+            // without a trustworthy manifest every candidate is tried again; retry after the interval
+            entries.put(label, new Entry(null, null));
+            log.debug("Mapping manifest for label {} unavailable: {}", label, ex.toString());
+        }
+    }
+
+    private static final class Entry {
+        final String version;
+        final Set<String> paths;
+        volatile long checkedNanos = System.nanoTime();
+
+        Entry(String version, Set<String> paths) {
+            this.version = version;
+            this.paths = paths;
+        }
+    }
+}
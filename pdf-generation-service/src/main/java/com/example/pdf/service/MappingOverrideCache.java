@@ -0,0 +1,74 @@
+package com.example.pdf.service;
+
+import com.example.pdf.metrics.GenerateMetrics;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of compiled inline {@code mappingOverride} documents, keyed by the SHA-256 of
+ * the override text. Batch callers repeat the same override on every request; a hit costs one
+ * hash of the text instead of a YAML parse, unflatten and {@code convertValue}.
+ *
+ * <p>Compilation runs outside the lock, so two threads missing on the same override may both
+ * compile it; the last one in wins, which is harmless since the results are equal.
+ */
+public class MappingOverrideCache {
+
+    /** Turns override YAML into a compiled mapping on a miss. */
+    @FunctionalInterface
+    public interface Compiler {
+        CompiledMapping compile(String overrideYaml) throws Exception;
+    }
+
+    private final int maxEntries;
+    private final GenerateMetrics metrics;
+    private final Map<String, CompiledMapping> entries;
+
+    public MappingOverrideCache(int maxEntries, GenerateMetrics metrics) {
+        this.maxEntries = maxEntries;
+        this.metrics = metrics;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledMapping> eldest) {
+                return size() > MappingOverrideCache.this.maxEntries;
+            }
+        };
+    }
+
+    public CompiledMapping get(String overrideYaml, Compiler compiler) throws Exception {
+        if (maxEntries <= 0) return compiler.compile(overrideYaml);
+        String key = hash(overrideYaml);
+        CompiledMapping cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        metrics.recordOverrideCache(cached != null);
+        if (cached != null) return cached;
+
+        CompiledMapping compiled = compiler.compile(overrideYaml);
+        synchronized (entries) {
+            entries.put(key, compiled);
+        }
+        return compiled;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    static String hash(String text) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package com.example.pdf.service;
 
+import com.example.pdf.catalog.MappingCatalog;
+import com.example.pdf.metrics.GenerateMetrics;
+import com.example.pdf.model.CompositionExplanation;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 @Service
 public class MappingService {
@@ -17,21 +26,74 @@ public class MappingService {
     private static final Logger log = LoggerFactory.getLogger(MappingService.class);
 
     private final ConfigServerClient configClient;
-    private final ObjectMapper yaml = new ObjectMapper(new YAMLFactory());
-    private final ObjectMapper json = new ObjectMapper();
+    private final GenerateMetrics metrics;
+    private final MappingOverrideCache overrideCache;
+    private final Executor fetchExecutor;
+    private final MappingManifestCache manifests;
+    private final MappingCatalog catalog;
+    private final ObjectMapper yaml = JacksonMappers.YAML;
+    private final ObjectMapper json = JacksonMappers.JSON;
 
     public MappingService() {
-        this.configClient = new ConfigServerClient(null, "http://localhost:8888");
+        this(new ConfigServerClient(null, "http://localhost:8888"));
+    }
+
+    // Constructor used by Spring: base URL comes from config-server.url
+    @Autowired
+    public MappingService(@Value("${config-server.url:http://localhost:8888}") String configServerUrl,
+                          @Value("${pdf.mapping-override-cache.max-entries:256}") int overrideCacheEntries,
+                          GenerateMetrics metrics,
+                          @Qualifier("configFetchExecutor") Executor fetchExecutor,
+                          @Value("${pdf.manifest.refresh-interval:30s}") Duration manifestRefresh,
+                          @Value("${pdf.fragment-cache.ttl:0s}") Duration fragmentTtl,
+                          @Value("${pdf.fragment-cache.max-entries:1000}") int fragmentEntries,
+                          @Value("${pdf.catalog.path:}") String catalogPath,
+                          HedgeProperties hedge,
+                          @Qualifier("configHedgeExecutor") Executor hedgeExecutor) {
+        this.configClient = new ConfigServerClient(null, configServerUrl);
+        this.configClient.holdFor(fragmentTtl);
+        this.configClient.holdAtMost(fragmentEntries);
+        if (hedge.isEnabled()) this.configClient.hedgeWith(new RequestHedger(hedge, hedgeExecutor, metrics));
+        this.metrics = metrics;
+        this.overrideCache = new MappingOverrideCache(overrideCacheEntries, metrics);
+        this.fetchExecutor = fetchExecutor;
+        // a zero interval turns candidate pruning off
+        this.manifests = manifestRefresh.isZero() ? null : new MappingManifestCache(configClient, manifestRefresh, fetchExecutor);
+        this.catalog = openCatalog(catalogPath);
     }
 
     // Constructor for tests or custom RestTemplate
     public MappingService(org.springframework.web.client.RestTemplate rest) {
-        this.configClient = new ConfigServerClient(rest, "http://localhost:8888");
+        this(new ConfigServerClient(rest, "http://localhost:8888"));
     }
 
     // Constructor to inject custom client
     public MappingService(ConfigServerClient client) {
         this.configClient = client == null ? new ConfigServerClient(null, "http://localhost:8888") : client;
+        this.metrics = GenerateMetrics.global();
+        this.overrideCache = new MappingOverrideCache(256, metrics);
+        // fetch sequentially on the caller's thread, every candidate
+        this.fetchExecutor = null;
+        this.manifests = null;
+        this.catalog = null;
+    }
+
+    // A missing or unreadable catalog only costs composing every mapping, so it never fails startup
+    private static MappingCatalog openCatalog(String path) {
+        if (!StringUtils.hasText(path)) return null;
+        Path file = Path.of(path);
+        if (!Files.isRegularFile(file)) {
+            log.warn("Mapping catalog {} not found; composing mappings from config-server", file);
+            return null;
+        }
+        try {
+            MappingCatalog catalog = MappingCatalog.open(file);
+            log.info("Opened mapping catalog {} with {} combinations", file, catalog.size());
+            return catalog;
+        } catch (Exception ex) {
+            log.warn("Mapping catalog {} unreadable; composing mappings from config-server: {}", file, ex.toString());
+            return null;
+        }
     }
 
     // Resolve mapping either from override YAML or from Config Server
@@ -67,17 +129,7 @@ public class MappingService {
     
     public com.example.pdf.model.MappingDocument resolveMappingDocument(com.example.pdf.controller.GenerateRequest req) throws Exception {
         if (StringUtils.hasText(req.getMappingOverride())) {
-            Map<?,?> parsed = yaml.readValue(req.getMappingOverride(), Map.class);
-            Map<String, Object> nested = unflatten(parsed);
-            log.debug("Unflattened inline mapping override:\n{}", yaml.writeValueAsString(nested));
-            if (nested.containsKey("pdf") && !nested.containsKey("mapping")) {
-                Object pdfNode = nested.remove("pdf");
-                Map<String, Object> mappingNode = new LinkedHashMap<>();
-                mappingNode.put("pdf", pdfNode);
-                nested.put("mapping", mappingNode);
-                log.debug("Wrapped root 'pdf' under 'mapping' for inline override\n{}", yaml.writeValueAsString(nested));
-            }
-            return json.convertValue(nested, com.example.pdf.model.MappingDocument.class);
+            return overrideCache.get(req.getMappingOverride(), this::compileOverride).getDocument();
         }
         
         String label = StringUtils.hasText(req.getLabel()) ? req.getLabel() : "main";
@@ -102,18 +154,112 @@ public class MappingService {
             return new com.example.pdf.model.MappingDocument();
         }
 
-        Map<String, Object> nested = unflatten(source);
-        log.debug("Unflattened mapping document:\n{}", yaml.writeValueAsString(nested));
+        Map<String, Object> nested = MappingTrees.unflatten(source);
+        if (log.isDebugEnabled()) log.debug("Unflattened mapping document:\n{}", yaml.writeValueAsString(nested));
 
-        if (nested.containsKey("pdf") && !nested.containsKey("mapping")) {
-            Object pdfNode = nested.remove("pdf");
-            Map<String, Object> mappingNode = new LinkedHashMap<>();
-            mappingNode.put("pdf", pdfNode);
-            nested.put("mapping", mappingNode);
-            log.debug("Wrapped root 'pdf' under 'mapping' for compatibility\n{}", yaml.writeValueAsString(nested));
+        MappingTrees.wrapRootPdf(nested);
+        return json.convertValue(nested, com.example.pdf.model.MappingDocument.class);
+    }
+
+    // Parse an inline override into a document and its field plan; cached by MappingOverrideCache
+    private CompiledMapping compileOverride(String overrideYaml) throws Exception {
+        Map<?,?> parsed = yaml.readValue(overrideYaml, Map.class);
+        Map<String, Object> nested = MappingTrees.unflatten(parsed);
+        if (log.isDebugEnabled()) log.debug("Unflattened inline mapping override:\n{}", yaml.writeValueAsString(nested));
+        MappingTrees.wrapRootPdf(nested);
+        com.example.pdf.model.MappingDocument doc = json.convertValue(nested, com.example.pdf.model.MappingDocument.class);
+        return new CompiledMapping(doc, extractFieldMap(doc));
+    }
+
+    /**
+     * Compose the mapping document for a request together with its field plan. Inline overrides
+     * are served from the override cache, so the returned instance may be shared.
+     */
+    public CompiledMapping compileMapping(com.example.pdf.controller.GenerateRequest req) throws Exception {
+        if (StringUtils.hasText(req.getMappingOverride())) {
+            return overrideCache.get(req.getMappingOverride(), this::compileOverride);
         }
+        CompiledMapping compiled = fromCatalog(req);
+        if (compiled != null) return compiled;
+        com.example.pdf.model.MappingDocument doc = composeMappingDocument(req);
+        return new CompiledMapping(doc, extractFieldMap(doc));
+    }
 
-        return json.convertValue(nested, com.example.pdf.model.MappingDocument.class);
+    /**
+     * The request's mapping from the compiled catalog ({@code pdf.catalog.path}), or null when
+     * there is no catalog, the combination is not in it, or the label's current version is not
+     * known to equal the one it was compiled at. The current version is the one last reported by
+     * the change feed while it is live, otherwise the held manifest's.
+     */
+    public CompiledMapping fromCatalog(com.example.pdf.controller.GenerateRequest req) {
+        if (catalog == null || StringUtils.hasText(req.getMappingOverride())) return null;
+        String label = StringUtils.hasText(req.getLabel()) ? req.getLabel() : "main";
+        String version = catalog.observed(label);
+        if (version == null && manifests != null) {
+            // schedules a fetch when none is held, so a later request can be served
+            manifests.paths(label);
+            version = manifests.version(label);
+        }
+        CompiledMapping compiled = catalog.find(req.getClientService(), req.getTemplateName(), req.getProductType(),
+                req.getMarketCategory(), req.getState(), label, version);
+        metrics.recordCatalog(compiled != null);
+        return compiled;
+    }
+
+    /** Called by {@link ConfigChangeSubscriber} as the change feed connects and drops. */
+    public void onChangeFeed(boolean live) {
+        configClient.setChangeFeedLive(live);
+        if (manifests != null) manifests.setChangeFeedLive(live);
+        // commits may land unseen while the feed is down; fall back to the manifests
+        if (!live && catalog != null) catalog.forgetObserved();
+    }
+
+    /**
+     * Drop what is held for the changed files of a label (everything for it when the paths are
+     * unknown or the event is a reset, everything for every label when there is no label) and
+     * refetch its manifest if mappings changed.
+     */
+    public void onConfigChange(ConfigServerClient.ConfigChange change) {
+        if (change.label == null) {
+            dropAll();
+            return;
+        }
+        List<String> paths = "change".equals(change.type) ? change.paths : null;
+        int dropped = configClient.invalidate(change.label, paths);
+        if (manifests != null) {
+            boolean mappingsChanged = paths == null || paths.stream().anyMatch(p -> p.startsWith("mappings/"));
+            manifests.confirm(change.label, change.version, mappingsChanged ? null : change.from);
+            if (mappingsChanged) manifests.invalidate(change.label);
+        }
+        if (catalog != null) catalog.observe(change.label, change.version);
+        metrics.recordConfigChange(change.type, dropped);
+        log.info("Config change on {} ({} -> {}): dropped {} held responses", change.label, change.from, change.version, dropped);
+    }
+
+    /**
+     * Drop what is held for every label, for when the change feed cannot say what was missed: the
+     * server lost its history (a restart) or the subscriber had no event id to resume from.
+     */
+    public void dropAll() {
+        int dropped = 0;
+        for (String label : configClient.heldLabels()) dropped += configClient.invalidate(label, null);
+        if (manifests != null) {
+            manifests.forgetConfirmed();
+            manifests.invalidateAll();
+        }
+        if (catalog != null) catalog.forgetObserved();
+        metrics.recordConfigChange("reset", dropped);
+        log.info("Config change feed did not resume: dropped {} held responses", dropped);
+    }
+
+    MappingManifestCache manifests() {
+        return manifests;
+    }
+
+    // Typed document and field plan for a merged mapping tree
+    CompiledMapping compileMerged(Map<String, Object> merged) {
+        com.example.pdf.model.MappingDocument doc = json.convertValue(merged, com.example.pdf.model.MappingDocument.class);
+        return new CompiledMapping(doc, extractFieldMap(doc));
     }
 
     /**
@@ -127,13 +273,51 @@ public class MappingService {
         }
 
         String label = StringUtils.hasText(req.getLabel()) ? req.getLabel() : "main";
+        MappingComposer composer = new MappingComposer(configClient, metrics, fetchExecutor, manifests);
+        Map<String, Object> merged = composer.compose(req, label, candidatesFor(req));
+        return json.convertValue(merged, com.example.pdf.model.MappingDocument.class);
+    }
+
+    /**
+     * Dry run of {@link #composeMappingDocument}: reports which candidates were found, missing or
+     * failed, how long each fetch took, which candidate supplied every merged value, and what each
+     * pdf field resolves to against the request payload. Nothing is rendered.
+     */
+    public CompositionExplanation explainComposition(com.example.pdf.controller.GenerateRequest req) throws Exception {
+        CompositionExplanation explain = new CompositionExplanation();
+        String label = StringUtils.hasText(req.getLabel()) ? req.getLabel() : "main";
+        explain.setLabel(label);
 
+        com.example.pdf.model.MappingDocument doc;
+        if (StringUtils.hasText(req.getMappingOverride())) {
+            doc = resolveMappingDocument(req);
+        } else {
+            MappingComposer composer = new MappingComposer(configClient, metrics, fetchExecutor, manifests);
+            Map<String, Object> merged = composer.compose(req, label, candidatesFor(req), explain);
+            doc = json.convertValue(merged, com.example.pdf.model.MappingDocument.class);
+        }
+        explain.setDocument(doc);
+
+        Map<String, Object> payload = req.getPayload() == null ? Map.of() : req.getPayload();
+        Map<String, String> fieldMap = extractFieldMap(doc);
+        for (Map.Entry<String, String> e : fieldMap.entrySet()) {
+            CompositionExplanation.Field f = new CompositionExplanation.Field();
+            f.setPath(e.getValue());
+            f.setSource(StringUtils.hasText(req.getMappingOverride()) ? "mappingOverride" : explain.getProvenance().get("mapping.pdf.field." + e.getKey()));
+            f.setValue(resolvePath(payload, e.getValue()));
+            explain.getFields().put(e.getKey(), f);
+        }
+        return explain;
+    }
+
+    // Candidate fragments from least- to most-specific
+    List<String> candidatesFor(com.example.pdf.controller.GenerateRequest req) {
         String template = req.getTemplateName();
         String product = req.getProductType();
         String market = req.getMarketCategory();
         String state = req.getState();
 
-        List<String> candidates = List.of(
+        return List.of(
                 "mappings/base-application",
                 String.format("mappings/templates/%s", template),
                 String.format("mappings/products/%s", product),
@@ -141,24 +325,6 @@ public class MappingService {
                 String.format("mappings/states/%s", state),
                 String.format("mappings/templates/%s/%s", product, template)
         );
-
-        MappingComposer composer = new MappingComposer(configClient);
-        Map<String, Object> merged = composer.compose(req, label, candidates);
-        return json.convertValue(merged, com.example.pdf.model.MappingDocument.class);
-    }
-
-    // Deep-merge override into base. For Map values, merge recursively; lists are replaced.
-    @SuppressWarnings("unchecked")
-    private void deepMerge(Map<String, Object> base, Map<String, Object> override) {
-        for (Map.Entry<String, Object> e : override.entrySet()) {
-            String k = e.getKey();
-            Object v = e.getValue();
-            if (v instanceof Map && base.get(k) instanceof Map) {
-                deepMerge((Map<String, Object>) base.get(k), (Map<String, Object>) v);
-            } else {
-                base.put(k, v);
-            }
-        }
     }
 
     // Resolve a dotted path into the payload map
@@ -172,7 +338,7 @@ public class MappingService {
             Map m = (Map) cur;
             cur = m.get(p);
         }
-        log.debug("resolvePath: Resolved value: {}", (cur == null ? "null" : cur.toString()));
+        log.debug("resolvePath: Resolved value: {}", cur);
         return cur;
     }
 
@@ -195,33 +361,6 @@ public class MappingService {
         }
     }
     
-    // Unflatten a map with dotted keys into a nested map
-    private Map<String, Object> unflatten(Map<?,?> flat) {
-        Map<String, Object> root = new LinkedHashMap<>();
-        for (Object ko : flat.keySet()) {
-            String k = String.valueOf(ko);
-            Object v = flat.get(ko);
-            String[] parts = k.split("\\.");
-            Map<String, Object> cur = root;
-            for (int i = 0; i < parts.length; i++) {
-                String p = parts[i];
-                if (i == parts.length - 1) {
-                    cur.put(p, v);
-                } else {
-                    Object next = cur.get(p);
-                    if (!(next instanceof Map)) {
-                        Map<String, Object> nm = new LinkedHashMap<>();
-                        cur.put(p, nm);
-                        cur = nm;
-                    } else {
-                        cur = (Map<String, Object>) next;
-                    }
-                }
-            }
-        }
-        return root;
-    }
-    
     // convenience: extract field mapping (pdf.field.*) as flat map of pdfField->payloadPath
     public Map<String, String> extractFieldMap(com.example.pdf.model.MappingDocument doc) {
         if (doc == null || doc.getMapping() == null || doc.getMapping().getPdf() == null) return Map.of();
@@ -0,0 +1,67 @@
+package com.example.pdf.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tree helpers shared by the mapping composition pipeline: turning flat dotted property maps
+ * into nested maps and merging fragments in precedence order.
+ */
+public final class MappingTrees {
+
+    private MappingTrees() {
+    }
+
+    // Unflatten a map with dotted keys into a nested map
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> unflatten(Map<?,?> flat) {
+        Map<String, Object> root = new LinkedHashMap<>();
+        for (Object ko : flat.keySet()) {
+            String k = String.valueOf(ko);
+            Object v = flat.get(ko);
+            String[] parts = k.split("\\.");
+            Map<String, Object> cur = root;
+            for (int i = 0; i < parts.length; i++) {
+                String p = parts[i];
+                if (i == parts.length - 1) {
+                    cur.put(p, v);
+                } else {
+                    Object next = cur.get(p);
+                    if (!(next instanceof Map)) {
+                        Map<String, Object> nm = new LinkedHashMap<>();
+                        cur.put(p, nm);
+                        cur = nm;
+                    } else {
+                        cur = (Map<String, Object>) next;
+                    }
+                }
+            }
+        }
+        return root;
+    }
+
+    // Deep-merge override into base. For Map values, merge recursively; lists are replaced.
+    @SuppressWarnings("unchecked")
+    public static void deepMerge(Map<String, Object> base, Map<String, Object> override) {
+        for (Map.Entry<String, Object> e : override.entrySet()) {
+            String k = e.getKey();
+            Object v = e.getValue();
+            if (v instanceof Map && base.get(k) instanceof Map) {
+                deepMerge((Map<String, Object>) base.get(k), (Map<String, Object>) v);
+            } else {
+                base.put(k, v);
+            }
+        }
+    }
+
+    // Fragments may put 'pdf' at the root; the document model expects it under 'mapping'
+    public static Map<String, Object> wrapRootPdf(Map<String, Object> nested) {
+        if (nested.containsKey("pdf") && !nested.containsKey("mapping")) {
+            Object pdfNode = nested.remove("pdf");
+            Map<String, Object> mappingNode = new LinkedHashMap<>();
+            mappingNode.put("pdf", pdfNode);
+            nested.put("mapping", mappingNode);
+        }
+        return nested;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.pdf.service;
+
+import com.example.pdf.controller.GenerateRequest;
+import com.example.pdf.metrics.GenerateMetrics;
+import com.example.pdf.trace.RequestTrace;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The CPU-bound tail of a generate request: resolve the field plan against the payload, render
+ * the page and serialize the PDF. Shared by the servlet and reactive controllers; everything here
+ * runs on the calling thread.
+ */
+@Component
+public class PdfRenderer {
+
+    private final MappingService mappingService;
+    private final GenerateMetrics metrics;
+
+    public PdfRenderer(MappingService mappingService, GenerateMetrics metrics) {
+        this.mappingService = mappingService;
+        this.metrics = metrics;
+    }
+
+    public byte[] render(GenerateRequest req, CompiledMapping compiled, RequestTrace trace) throws Exception {
+        String template = req.getTemplateName();
+        String clientService = req.getClientService();
+
+        Map<String, Object> resolved = new LinkedHashMap<>();
+        int resolvedCount = 0;
+        Map<String, String> fieldMap = compiled.getFieldMap();
+        try (GenerateMetrics.Stage stage = metrics.stage(GenerateMetrics.RESOLVE, template, clientService)) {
+            // Apply mapping: for each mapping entry, resolve payload path
+            Map<String, Object> payload = req.getPayload() == null ? Map.of() : req.getPayload();
+            List<Map<String, Object>> resolutions = trace.isActive() ? new ArrayList<>() : null;
+            for (Map.Entry<String, String> e : fieldMap.entrySet()) {
+                String pdfField = e.getKey();
+                String payloadPath = e.getValue();
+                Object value = mappingService.resolvePath(payload, payloadPath);
+                if (value != null) resolvedCount++;
+                resolved.put(pdfField, value == null ? "" : value);
+                if (resolutions != null) {
+                    Map<String, Object> r = new LinkedHashMap<>();
+                    r.put("field", pdfField);
+                    r.put("path", payloadPath);
+                    r.put("value", value);
+                    resolutions.add(r);
+                }
+            }
+            trace.event("resolve", resolutions);
+        }
+        metrics.recordFields(template, clientService, fieldMap.size(), resolvedCount);
+
+        // Create a tiny PDF with resolved key-values
+        byte[] pdf;
+        try (PDDocument document = new PDDocument()) {
+            try (GenerateMetrics.Stage stage = metrics.stage(GenerateMetrics.RENDER, template, clientService)) {
+                renderPdf(document, resolved);
+            }
+            try (GenerateMetrics.Stage stage = metrics.stage(GenerateMetrics.SERIALIZE, template, clientService)) {
+                pdf = serialize(document);
+            }
+        }
+        metrics.recordPdfSize(template, clientService, pdf.length);
+        trace.event("render", Map.of("fields", resolved.size(), "bytes", pdf.length));
+        return pdf;
+    }
+
+    private void renderPdf(PDDocument doc, Map<String, Object> data) throws Exception {
+        PDPage page = new PDPage();
+        doc.addPage(page);
+        try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+            cs.beginText();
+            cs.setFont(PDType1Font.HELVETICA, 12);
+            cs.newLineAtOffset(50, 700);
+            for (Map.Entry<String, Object> e : data.entrySet()) {
+                String line = String.format("%s: %s", e.getKey(), String.valueOf(e.getValue()));
+                cs.showText(line);
+                cs.newLineAtOffset(0, -15);
+            }
+            cs.endText();
+        }
+    }
+
+    private byte[] serialize(PDDocument doc) throws Exception {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            doc.save(baos);
+            return baos.toByteArray();
+        }
+    }
+}
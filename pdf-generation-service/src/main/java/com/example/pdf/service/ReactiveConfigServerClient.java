@@ -0,0 +1,44 @@
+package com.example.pdf.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link ConfigServerClient} on {@link WebClient}. Same contract: a
+ * missing file completes empty, an unparseable body completes empty, and transport or server
+ * errors are signalled so callers can tell a missing fragment from a failed fetch.
+ */
+public class ReactiveConfigServerClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveConfigServerClient.class);
+
+    private final WebClient web;
+
+    public ReactiveConfigServerClient(WebClient web) {
+        this.web = web;
+    }
+
+    public Mono<ConfigServerClient.ConfigServerResponse> getApplicationConfig(String application, String profile, String label) {
+        String uri = String.format("/%s/%s/%s", application, profile, label);
+        log.debug("Fetching application config from {}", uri);
+        return web.get().uri(uri)
+                .retrieve()
+                .bodyToMono(ConfigServerClient.ConfigServerResponse.class);
+    }
+
+    public Mono<ConfigServerClient.ConfigServerResponse> getFile(String profile, String label, String pathWithExtension) {
+        String uri = String.format("/application/%s/%s/%s", profile, label, pathWithExtension);
+        log.debug("Fetching file config from {}", uri);
+        return web.get().uri(uri)
+                .retrieve()
+                .bodyToMono(String.class)
+                .onErrorResume(WebClientResponseException.NotFound.class, ex -> {
+                    log.debug("File {} not found on config server", uri);
+                    return Mono.empty();
+                })
+                .flatMap(body -> Mono.justOrEmpty(ConfigServerClient.parseFile(body, pathWithExtension)));
+    }
+}
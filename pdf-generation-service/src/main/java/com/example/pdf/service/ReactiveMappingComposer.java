@@ -0,0 +1,72 @@
+package com.example.pdf.service;
+
+import com.example.pdf.metrics.GenerateMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reactive {@link MappingComposer}: all candidates are fetched concurrently and the resulting
+ * {@code Flux} of fragments is merged in candidate order, so later (more specific) fragments still
+ * override earlier ones. Pruned, missing and failed candidates are skipped, as in the blocking composer.
+ */
+public class ReactiveMappingComposer {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveMappingComposer.class);
+
+    private final ReactiveConfigServerClient client;
+    private final GenerateMetrics metrics;
+    private final MappingManifestCache manifests;
+
+    public ReactiveMappingComposer(ReactiveConfigServerClient client, GenerateMetrics metrics, MappingManifestCache manifests) {
+        this.client = client;
+        this.metrics = metrics;
+        this.manifests = manifests;
+    }
+
+    public Mono<Map<String, Object>> compose(String label, List<String> candidates) {
+        Set<String> known = manifests == null ? null : manifests.paths(label);
+        return Flux.fromIterable(candidates)
+                .filter(candidate -> {
+                    if (!MappingComposer.isPruned(known, candidate)) return true;
+                    metrics.recordFetch(MappingComposer.layerOf(candidate), "pruned", 0);
+                    return false;
+                })
+                .flatMapSequential(candidate -> fetch(candidate, label), Math.max(1, candidates.size()))
+                .reduceWith(LinkedHashMap<String, Object>::new, (merged, fragment) -> {
+                    MappingTrees.deepMerge(merged, fragment);
+                    return merged;
+                })
+                .map(merged -> (Map<String, Object>) merged);
+    }
+
+    private Mono<Map<String, Object>> fetch(String candidate, String label) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            String layer = MappingComposer.layerOf(candidate);
+            Mono<ConfigServerClient.ConfigServerResponse> resp = candidate.contains("/")
+                    ? client.getFile("default", label, candidate + ".yml")
+                    : client.getApplicationConfig(candidate, "default", label);
+            return resp
+                    .flatMap(r -> Mono.justOrEmpty(firstSource(r)))
+                    .map(source -> MappingTrees.wrapRootPdf(MappingTrees.unflatten(source)))
+                    .doOnSuccess(fragment -> metrics.recordFetch(layer, fragment == null ? "missing" : "hit", System.nanoTime() - start))
+                    .onErrorResume(ex -> {
+                        metrics.recordFetch(layer, "error", System.nanoTime() - start);
+                        log.warn("Ignoring candidate {} due to error: {}", candidate, ex.toString());
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    private static Map<String, Object> firstSource(ConfigServerClient.ConfigServerResponse resp) {
+        if (resp.propertySources == null || resp.propertySources.isEmpty()) return null;
+        return resp.propertySources.get(0).source;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.pdf.service;
+
+import com.example.pdf.controller.GenerateRequest;
+import com.example.pdf.metrics.GenerateMetrics;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mapping resolution for the reactive stack. Composition fetches through
+ * {@link ReactiveConfigServerClient} without holding a thread per request; inline overrides go
+ * through {@link MappingService}'s override cache, which never touches the network.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveMappingService {
+
+    private final MappingService mappingService;
+    private final ReactiveMappingComposer composer;
+
+    public ReactiveMappingService(MappingService mappingService, ReactiveConfigServerClient client, GenerateMetrics metrics) {
+        this.mappingService = mappingService;
+        this.composer = new ReactiveMappingComposer(client, metrics, mappingService.manifests());
+    }
+
+    public Mono<CompiledMapping> compileMapping(GenerateRequest req) {
+        if (StringUtils.hasText(req.getMappingOverride())) {
+            return Mono.fromCallable(() -> mappingService.compileMapping(req));
+        }
+        CompiledMapping compiled = mappingService.fromCatalog(req);
+        if (compiled != null) return Mono.just(compiled);
+        String label = StringUtils.hasText(req.getLabel()) ? req.getLabel() : "main";
+        return composer.compose(label, mappingService.candidatesFor(req))
+                .map(mappingService::compileMerged);
+    }
+}
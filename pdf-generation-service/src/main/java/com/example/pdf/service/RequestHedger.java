@@ -0,0 +1,144 @@
+package com.example.pdf.service;
+
+import com.example.pdf.metrics.GenerateMetrics;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests: a call that has not answered within the {@code percentile} of recent latencies
+ * is sent a second time and whichever copy succeeds first is used. A failed copy only decides the
+ * outcome if the other one fails too.
+ *
+ * <p>The delay follows the latencies of first attempts (hedges are not counted, so hedging does
+ * not pull its own trigger earlier), clamped to {@code [minDelay, maxDelay]}. Hedges are paid for
+ * from a budget: every call earns {@code budget} of a hedge and each hedge spends a whole one, so
+ * at most that fraction of calls, plus a burst of {@value #BURST}, is ever sent twice.
+ *
+ * <p>Counted in {@code pdf.config.hedge} by event: {@code call}, {@code sent}, {@code won} (the
+ * hedge answered first) and {@code denied} (slow, but the budget was spent). Hedge rate is
+ * sent/call, win rate won/sent.
+ */
+public class RequestHedger {
+
+    static final int BURST = 10;
+    private static final long TOKEN = 1_000_000;
+    private static final int SAMPLES = 1024;
+    private static final int MIN_SAMPLES = 100;
+    private static final int RECOMPUTE_EVERY = 50;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final long earnPerCall;
+    private final Executor executor;
+    private final GenerateMetrics metrics;
+
+    // budget in millionths of a hedge, starts empty
+    private final AtomicLong tokens = new AtomicLong();
+    private final long[] latencies = new long[SAMPLES];
+    private long recorded;
+    private volatile long delayNanos;
+
+    public RequestHedger(HedgeProperties props, Executor executor, GenerateMetrics metrics) {
+        this.percentile = Math.min(1.0, Math.max(0.0, props.getPercentile()));
+        this.minDelayNanos = props.getMinDelay().toNanos();
+        this.maxDelayNanos = Math.max(minDelayNanos, props.getMaxDelay().toNanos());
+        this.earnPerCall = Math.round(Math.max(0.0, props.getBudget()) * TOKEN);
+        this.executor = executor;
+        this.metrics = metrics;
+        this.delayNanos = maxDelayNanos;
+    }
+
+    /** Run {@code call}, hedging it if it is slow and the budget allows; exceptions are rethrown unwrapped. */
+    public <T> T call(Supplier<T> call) {
+        metrics.recordHedge("call");
+        tokens.updateAndGet(t -> Math.min(BURST * TOKEN, t + earnPerCall));
+
+        long start = System.nanoTime();
+        CompletableFuture<T> primary = CompletableFuture.supplyAsync(call, executor);
+        // the loser of a race is left to finish (cancelling would not stop the request) and still counts
+        primary.whenComplete((r, ex) -> record(System.nanoTime() - start));
+        try {
+            return primary.get(delayNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException slow) {
+            // hedged below
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a hedged call", ex);
+        } catch (ExecutionException ex) {
+            throw rethrow(ex.getCause());
+        }
+
+        if (!spend()) {
+            metrics.recordHedge("denied");
+            return join(primary);
+        }
+        metrics.recordHedge("sent");
+        CompletableFuture<T> hedge = CompletableFuture.supplyAsync(call, executor);
+        CompletableFuture<T> first = new CompletableFuture<>();
+        AtomicBoolean decided = new AtomicBoolean();
+        primary.whenComplete((r, ex) -> settle(first, decided, r, ex, hedge, false));
+        hedge.whenComplete((r, ex) -> settle(first, decided, r, ex, primary, true));
+        return join(first);
+    }
+
+    private <T> void settle(CompletableFuture<T> first, AtomicBoolean decided, T result, Throwable error,
+                            CompletableFuture<T> other, boolean isHedge) {
+        if (error == null) {
+            // counted before completing, so the caller never returns ahead of the count
+            if (decided.compareAndSet(false, true)) {
+                if (isHedge) metrics.recordHedge("won");
+                first.complete(result);
+            }
+        } else if (other.isCompletedExceptionally()) {
+            // both failed; a success of the other completes first through its own callback
+            first.completeExceptionally(error);
+        }
+    }
+
+    private boolean spend() {
+        while (true) {
+            long t = tokens.get();
+            if (t < TOKEN) return false;
+            if (tokens.compareAndSet(t, t - TOKEN)) return true;
+        }
+    }
+
+    long delayNanos() {
+        return delayNanos;
+    }
+
+    // Ring of recent first-attempt latencies; the delay is recomputed from a sorted copy now and then
+    synchronized void record(long nanos) {
+        latencies[(int) (recorded++ % SAMPLES)] = nanos;
+        if (recorded < MIN_SAMPLES || recorded % RECOMPUTE_EVERY != 0) return;
+        int n = (int) Math.min(recorded, SAMPLES);
+        long[] sorted = Arrays.copyOf(latencies, n);
+        Arrays.sort(sorted);
+        long p = sorted[Math.max(0, Math.min(n - 1, (int) Math.ceil(percentile * n) - 1))];
+        delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, p));
+    }
+
+    private static <T> T join(CompletableFuture<T> f) {
+        try {
+            return f.join();
+        } catch (CompletionException ex) {
+            throw rethrow(ex.getCause());
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) throw (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        throw new IllegalStateException(t);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.pdf.trace;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stage events captured for one sampled generate request. Events hold references to the request's
+ * objects rather than serialized copies; serialization happens on the tracer's own thread after
+ * {@link #finish()}, so captured objects must not be mutated once recorded.
+ *
+ * <p>Unsampled requests get {@link #NOOP}, whose methods do nothing.
+ */
+public class RequestTrace {
+
+    public static final RequestTrace NOOP = new RequestTrace(null, null, null) {
+        @Override
+        public boolean isActive() {
+            return false;
+        }
+
+        @Override
+        public void event(String stage, Object data) {
+        }
+
+        @Override
+        public void finish() {
+        }
+    };
+
+    private final RequestTracer tracer;
+    private final String id;
+    private final String reason;
+    private final long startNanos = System.nanoTime();
+    private final List<Event> events = new ArrayList<>();
+
+    RequestTrace(RequestTracer tracer, String id, String reason) {
+        this.tracer = tracer;
+        this.id = id;
+        this.reason = reason;
+    }
+
+    @JsonIgnore
+    public boolean isActive() {
+        return true;
+    }
+
+    public void event(String stage, Object data) {
+        events.add(new Event(stage, (System.nanoTime() - startNanos) / 1_000, data));
+    }
+
+    public void finish() {
+        tracer.publish(this);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    public static class Event {
+        private final String stage;
+        private final long offsetMicros;
+        private final Object data;
+
+        Event(String stage, long offsetMicros, Object data) {
+            this.stage = stage;
+            this.offsetMicros = offsetMicros;
+            this.data = data;
+        }
+
+        public String getStage() {
+            return stage;
+        }
+
+        public long getOffsetMicros() {
+            return offsetMicros;
+        }
+
+        public Object getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.pdf.trace;
+
+import com.example.pdf.controller.GenerateRequest;
+import com.example.pdf.service.JacksonMappers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides per request whether to record a trace and writes recorded traces to the
+ * {@code com.example.pdf.trace} logger as one JSON document each.
+ *
+ * <p>A request is traced when it carries {@code X-Trace: true}, when its clientService is on the
+ * {@code pdf.trace.client-services} allow-list, or when it falls into the {@code pdf.trace.sample-rate}
+ * fraction. Serialization runs on a single background thread with a bounded queue; when the queue
+ * is full traces are dropped rather than slowing requests down.
+ */
+@Component
+public class RequestTracer {
+
+    public static final String TRACE_HEADER = "X-Trace";
+
+    private static final Logger traceLog = LoggerFactory.getLogger("com.example.pdf.trace");
+    private static final Logger log = LoggerFactory.getLogger(RequestTracer.class);
+
+    private final double sampleRate;
+    private final Set<String> clientServices;
+    private final ObjectMapper mapper = JacksonMappers.JSON;
+    private final ThreadPoolExecutor writer;
+
+    public RequestTracer(@Value("${pdf.trace.sample-rate:0}") double sampleRate,
+                         @Value("${pdf.trace.client-services:}") Set<String> clientServices) {
+        this.sampleRate = sampleRate;
+        this.clientServices = clientServices;
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1_000), r -> {
+            Thread t = new Thread(r, "request-trace-writer");
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    public RequestTrace begin(GenerateRequest req, String traceHeader) {
+        String reason = null;
+        if ("true".equalsIgnoreCase(traceHeader) || "1".equals(traceHeader)) {
+            reason = "header";
+        } else if (req != null && req.getClientService() != null && clientServices.contains(req.getClientService())) {
+            reason = "client-service";
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            reason = "sampled";
+        }
+        if (reason == null) return RequestTrace.NOOP;
+        return new RequestTrace(this, UUID.randomUUID().toString(), reason);
+    }
+
+    void publish(RequestTrace trace) {
+        writer.execute(() -> {
+            try {
+                traceLog.info(mapper.writeValueAsString(trace));
+            } catch (Exception ex) {
+                log.warn("Failed to write trace {}: {}", trace.getId(), ex.toString());
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
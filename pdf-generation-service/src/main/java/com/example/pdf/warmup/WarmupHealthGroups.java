@@ -0,0 +1,82 @@
+package com.example.pdf.warmup;
+
+import org.springframework.boot.actuate.endpoint.SecurityContext;
+import org.springframework.boot.actuate.health.AdditionalHealthEndpointPath;
+import org.springframework.boot.actuate.health.HealthEndpointGroup;
+import org.springframework.boot.actuate.health.HealthEndpointGroups;
+import org.springframework.boot.actuate.health.HealthEndpointGroupsPostProcessor;
+import org.springframework.boot.actuate.health.HttpCodeStatusMapper;
+import org.springframework.boot.actuate.health.StatusAggregator;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Keeps the {@code warmup} contributor ({@link WarmupHealthIndicator}) out of the primary health
+ * group. {@code /actuator/health} stays UP while warm-up runs; only the readiness group, which
+ * application.yml has include it, reports OUT_OF_SERVICE.
+ */
+@Component
+public class WarmupHealthGroups implements HealthEndpointGroupsPostProcessor {
+
+    static final String CONTRIBUTOR = "warmup";
+
+    @Override
+    public HealthEndpointGroups postProcessHealthEndpointGroups(HealthEndpointGroups groups) {
+        HealthEndpointGroup primary = new WithoutWarmup(groups.getPrimary());
+        return new HealthEndpointGroups() {
+            @Override
+            public HealthEndpointGroup getPrimary() {
+                return primary;
+            }
+
+            @Override
+            public Set<String> getNames() {
+                return groups.getNames();
+            }
+
+            @Override
+            public HealthEndpointGroup get(String name) {
+                return groups.get(name);
+            }
+        };
+    }
+
+    private static final class WithoutWarmup implements HealthEndpointGroup {
+        private final HealthEndpointGroup delegate;
+
+        WithoutWarmup(HealthEndpointGroup delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean isMember(String name) {
+            return !CONTRIBUTOR.equals(name) && delegate.isMember(name);
+        }
+
+        @Override
+        public boolean showComponents(SecurityContext securityContext) {
+            return delegate.showComponents(securityContext);
+        }
+
+        @Override
+        public boolean showDetails(SecurityContext securityContext) {
+            return delegate.showDetails(securityContext);
+        }
+
+        @Override
+        public StatusAggregator getStatusAggregator() {
+            return delegate.getStatusAggregator();
+        }
+
+        @Override
+        public HttpCodeStatusMapper getHttpCodeStatusMapper() {
+            return delegate.getHttpCodeStatusMapper();
+        }
+
+        @Override
+        public AdditionalHealthEndpointPath getAdditionalPath() {
+            return delegate.getAdditionalPath();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.pdf.warmup;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code warmup} health contributor: OUT_OF_SERVICE while {@link WarmupRunner} is still within its
+ * time budget. application.yml adds it to the readiness group ({@code /actuator/health/readiness})
+ * and not to liveness, and {@link WarmupHealthGroups} keeps it out of {@code /actuator/health}, so a
+ * long warm-up holds traffic back without getting the pod restarted or failing plain health checks.
+ */
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private final WarmupRunner warmup;
+
+    public WarmupHealthIndicator(WarmupRunner warmup) {
+        this.warmup = warmup;
+    }
+
+    @Override
+    public Health health() {
+        return (warmup.isReady() ? Health.up() : Health.outOfService()).withDetails(warmup.details()).build();
+    }
+}
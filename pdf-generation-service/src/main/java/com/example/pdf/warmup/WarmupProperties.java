@@ -0,0 +1,57 @@
+package com.example.pdf.warmup;
+
+import com.example.pdf.controller.GenerateRequest;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for {@link WarmupRunner}, bound from {@code pdf.warmup.*}.
+ */
+@Component
+@ConfigurationProperties(prefix = "pdf.warmup")
+public class WarmupProperties {
+
+    private boolean enabled = true;
+    // readiness turns UP after this long even if warm-up has not finished
+    private Duration timeBudget = Duration.ofSeconds(60);
+    // synthetic /generate calls per hot template after its mapping is composed
+    private int rendersPerTemplate = 50;
+    // hot templates; requests without a payload get one built from their field plan
+    private List<GenerateRequest> requests = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    public void setTimeBudget(Duration timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    public int getRendersPerTemplate() {
+        return rendersPerTemplate;
+    }
+
+    public void setRendersPerTemplate(int rendersPerTemplate) {
+        this.rendersPerTemplate = rendersPerTemplate;
+    }
+
+    public List<GenerateRequest> getRequests() {
+        return requests;
+    }
+
+    public void setRequests(List<GenerateRequest> requests) {
+        this.requests = requests;
+    }
+}
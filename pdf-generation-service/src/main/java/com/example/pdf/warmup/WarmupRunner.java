@@ -0,0 +1,184 @@
+package com.example.pdf.warmup;
+
+import com.example.pdf.admission.AdmissionController;
+import com.example.pdf.controller.GenerateRequest;
+import com.example.pdf.service.CompiledMapping;
+import com.example.pdf.service.JacksonMappers;
+import com.example.pdf.service.MappingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pays the cold costs of the hot templates listed in {@code pdf.warmup.requests} before the pod
+ * takes traffic: config-server fetches and Jackson introspection while composing each mapping,
+ * then {@code renders-per-template} synthetic {@code POST /generate} calls to this instance, so
+ * request binding, the controller, PDFBox and the render pool are loaded and JIT-compiled on the
+ * same path real requests take. Requests without a payload get one with a placeholder at every
+ * path of their field plan.
+ *
+ * <p>Runs on its own thread once the application is ready; {@link WarmupHealthIndicator} keeps the
+ * readiness group OUT_OF_SERVICE until it finishes or {@code time-budget} has passed, whichever
+ * comes first. Failures are logged and skipped: warm-up never keeps a pod from becoming ready.
+ * Warm-up calls are sent as batch so admission keeps its interactive slots free, and they show up
+ * in the generate metrics like any other request.
+ */
+@Component
+public class WarmupRunner implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+
+    private final WarmupProperties props;
+    private final MappingService mappingService;
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    private volatile boolean started;
+    private volatile boolean finished;
+    private volatile long startNanos;
+    private volatile long deadlineNanos;
+    private volatile int warmed;
+    private volatile int failed;
+    private volatile int renders;
+
+    public WarmupRunner(WarmupProperties props, MappingService mappingService) {
+        this.props = props;
+        this.mappingService = mappingService;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        start(generateUri(event.getApplicationContext().getEnvironment()));
+    }
+
+    // this instance's /generate, under the servlet context path or WebFlux base path if one is set
+    static URI generateUri(Environment env) {
+        String port = env.getProperty("local.server.port");
+        if (port == null) return null;
+        String base = env.getProperty("server.servlet.context-path", env.getProperty("spring.webflux.base-path", ""));
+        if (base.endsWith("/")) base = base.substring(0, base.length() - 1);
+        if (!base.isEmpty() && !base.startsWith("/")) base = "/" + base;
+        return URI.create("http://localhost:" + port + base + "/generate");
+    }
+
+    void start(URI generate) {
+        startNanos = System.nanoTime();
+        deadlineNanos = startNanos + props.getTimeBudget().toNanos();
+        started = true;
+        List<GenerateRequest> requests = props.getRequests();
+        if (!props.isEnabled() || requests == null || requests.isEmpty()) {
+            finished = true;
+            return;
+        }
+        Thread thread = new Thread(() -> run(requests, generate), "pdf-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** True once warm-up has finished, was not configured, or has used up its time budget. */
+    public boolean isReady() {
+        return finished || (started && System.nanoTime() - deadlineNanos >= 0);
+    }
+
+    public Map<String, Object> details() {
+        Map<String, Object> d = new LinkedHashMap<>();
+        d.put("state", finished ? "finished" : !started ? "pending" : isReady() ? "budget-exhausted" : "running");
+        d.put("templates", props.getRequests() == null ? 0 : props.getRequests().size());
+        d.put("warmed", warmed);
+        d.put("failed", failed);
+        d.put("renders", renders);
+        if (started) d.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return d;
+    }
+
+    private void run(List<GenerateRequest> requests, URI generate) {
+        log.info("Warming up {} templates within {}", requests.size(), props.getTimeBudget());
+        try {
+            for (GenerateRequest req : requests) {
+                if (expired()) break;
+                try {
+                    warm(req, generate);
+                    warmed++;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception ex) {
+                    failed++;
+                    log.warn("Warm-up of {}/{} failed: {}", req.getClientService(), req.getTemplateName(), ex.toString());
+                }
+            }
+        } finally {
+            finished = true;
+            log.info("Warm-up {} after {} ms: {} templates warmed, {} failed, {} renders",
+                    expired() ? "stopped at its time budget" : "finished",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), warmed, failed, renders);
+        }
+    }
+
+    private void warm(GenerateRequest req, URI generate) throws Exception {
+        CompiledMapping compiled = mappingService.compileMapping(req);
+        if (generate == null) return;
+
+        GenerateRequest synthetic = copy(req);
+        if (synthetic.getPayload() == null) synthetic.setPayload(syntheticPayload(compiled.getFieldMap()));
+        HttpRequest post = HttpRequest.newBuilder(generate)
+                .header("Content-Type", "application/json")
+                .header(AdmissionController.REQUEST_CLASS_HEADER, "batch")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(JacksonMappers.JSON.writeValueAsBytes(synthetic)))
+                .build();
+        for (int i = 0; i < props.getRendersPerTemplate() && !expired(); i++) {
+            HttpResponse<Void> resp = http.send(post, HttpResponse.BodyHandlers.discarding());
+            if (resp.statusCode() != 200) throw new IllegalStateException("POST /generate returned " + resp.statusCode());
+            renders++;
+        }
+    }
+
+    private boolean expired() {
+        return System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    private static GenerateRequest copy(GenerateRequest req) {
+        GenerateRequest c = new GenerateRequest();
+        c.setClientService(req.getClientService());
+        c.setTemplateName(req.getTemplateName());
+        c.setLabel(req.getLabel());
+        c.setProductType(req.getProductType());
+        c.setMarketCategory(req.getMarketCategory());
+        c.setState(req.getState());
+        c.setMappingOverride(req.getMappingOverride());
+        c.setPayload(req.getPayload());
+        return c;
+    }
+
+    /** A payload with a placeholder value at every dotted path of the field plan. */
+    static Map<String, Object> syntheticPayload(Map<String, String> fieldPlan) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        for (Map.Entry<String, String> e : fieldPlan.entrySet()) {
+            if (e.getValue() == null || e.getValue().isEmpty()) continue;
+            String[] parts = e.getValue().split("\\.");
+            Map<String, Object> cur = payload;
+            for (int i = 0; i < parts.length - 1 && cur != null; i++) {
+                Object next = cur.computeIfAbsent(parts[i], k -> new LinkedHashMap<String, Object>());
+                // a path that runs through another field's value is left unresolved
+                @SuppressWarnings("unchecked")
+                Map<String, Object> m = next instanceof Map ? (Map<String, Object>) next : null;
+                cur = m;
+            }
+            if (cur != null) cur.putIfAbsent(parts[parts.length - 1], "warmup-" + e.getKey());
+        }
+        return payload;
+    }
+}
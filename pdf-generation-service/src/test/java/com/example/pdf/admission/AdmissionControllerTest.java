@@ -0,0 +1,244 @@
+package com.example.pdf.admission;
+
+import com.example.pdf.metrics.MetricTags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class AdmissionControllerTest {
+
+    private static AdmissionProperties props(int maxConcurrent, int reserved, int perClient) {
+        AdmissionProperties p = new AdmissionProperties();
+        p.setMaxConcurrent(maxConcurrent);
+        p.setInteractiveReserved(reserved);
+        p.setPerClientMaxConcurrent(perClient);
+        p.setQueueTarget(Duration.ofMillis(5));
+        p.setQueueInterval(Duration.ofMillis(20));
+        p.setBatchClientServices(Set.of("batch-service"));
+        return p;
+    }
+
+    @Test
+    void perClientConcurrencyQuotaRejectsOnlyThatClient() throws Exception {
+        AdmissionController admission = new AdmissionController(props(10, 0, 1), new SimpleMeterRegistry(), new MetricTags());
+
+        AdmissionController.Permit held = admission.admit("order-service", null);
+        AdmissionRejectedException ex = Assertions.assertThrows(AdmissionRejectedException.class,
+                () -> admission.admit("order-service", null));
+        Assertions.assertEquals("concurrency", ex.getReason());
+        Assertions.assertTrue(ex.getRetryAfterSeconds() >= 1);
+
+        admission.admit("billing-service", null).close();
+        held.close();
+        admission.admit("order-service", null).close();
+    }
+
+    @Test
+    void reservedSlotsAreOnlyForInteractiveTraffic() throws Exception {
+        AdmissionController admission = new AdmissionController(props(2, 1, 10), new SimpleMeterRegistry(), new MetricTags());
+
+        AdmissionController.Permit batch = admission.admit("batch-service", null);
+        AdmissionRejectedException ex = Assertions.assertThrows(AdmissionRejectedException.class,
+                () -> admission.admit("batch-service", null));
+        Assertions.assertEquals("queue", ex.getReason());
+
+        AdmissionController.Permit interactive = admission.admit("order-service", null);
+        // the header can demote a request to batch, but not promote a batch clientService
+        Assertions.assertThrows(AdmissionRejectedException.class, () -> admission.admit("order-service", "batch"));
+        Assertions.assertThrows(AdmissionRejectedException.class, () -> admission.admit("batch-service", "interactive"));
+
+        interactive.close();
+        batch.close();
+    }
+
+    @Test
+    void rateQuotaRefusesOnceTheBurstIsSpent() throws Exception {
+        AdmissionProperties p = props(10, 0, 10);
+        p.setPerClientRate(1);
+        p.setPerClientBurst(2);
+        AdmissionController admission = new AdmissionController(p, new SimpleMeterRegistry(), new MetricTags());
+
+        admission.admit("order-service", null).close();
+        admission.admit("order-service", null).close();
+        AdmissionRejectedException ex = Assertions.assertThrows(AdmissionRejectedException.class,
+                () -> admission.admit("order-service", null));
+        Assertions.assertEquals("rate", ex.getReason());
+    }
+
+    @Test
+    void idleQuotasAreDroppedAndUnlistedClientsTaggedOther() throws Exception {
+        AdmissionProperties p = props(10, 0, 10);
+        p.setMaxClients(2);
+        MetricTags tags = new MetricTags();
+        tags.setClientServices(Set.of("order-service"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionController admission = new AdmissionController(p, registry, tags);
+
+        AdmissionController.Permit held = admission.admit("order-service", null);
+        for (int i = 0; i < 100; i++) admission.admit("client-" + i, null).close();
+
+        Assertions.assertTrue(admission.trackedClients() <= 2);
+        Assertions.assertEquals(100, registry.counter(AdmissionController.ADMISSION,
+                "clientService", "other", "class", "interactive", "outcome", "admitted").count());
+        // the busy quota was kept
+        AdmissionRejectedException ex = Assertions.assertThrows(AdmissionRejectedException.class, () -> {
+            for (int i = 0; i < 10; i++) admission.admit("order-service", null);
+        });
+        Assertions.assertEquals("concurrency", ex.getReason());
+        held.close();
+    }
+
+    @Test
+    void rateTokenIsOnlySpentOnAdmission() throws Exception {
+        AdmissionProperties p = props(10, 0, 1);
+        p.setPerClientRate(0.001);
+        p.setPerClientBurst(2);
+        AdmissionController admission = new AdmissionController(p, new SimpleMeterRegistry(), new MetricTags());
+
+        AdmissionController.Permit held = admission.admit("order-service", null);
+        Assertions.assertEquals("concurrency", Assertions.assertThrows(AdmissionRejectedException.class,
+                () -> admission.admit("order-service", null)).getReason());
+        held.close();
+
+        // the rejected request gave its token back
+        admission.admit("order-service", null).close();
+        Assertions.assertEquals("rate", Assertions.assertThrows(AdmissionRejectedException.class,
+                () -> admission.admit("order-service", null)).getReason());
+    }
+
+    @Test
+    void freedSlotGoesToTheQueueAheadOfNewArrivals() throws Exception {
+        AdmissionProperties p = props(2, 1, 10);
+        p.setQueueTarget(Duration.ofMillis(250));
+        p.setQueueInterval(Duration.ofMillis(500));
+        AdmissionController admission = new AdmissionController(p, new SimpleMeterRegistry(), new MetricTags());
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            AdmissionController.Permit batch = admission.admit("batch-service", null);
+            AdmissionController.Permit interactive = admission.admit("order-service", null);
+
+            Future<AdmissionController.Permit> queuedBatch = pool.submit(() -> admission.admit("batch-service", null));
+            awaitQueued(admission, 1);
+            Future<AdmissionController.Permit> queuedInteractive = pool.submit(() -> admission.admit("billing-service", null));
+            awaitQueued(admission, 2);
+
+            // a reserved slot skips the batch request at the head for the interactive one behind it
+            interactive.close();
+            queuedInteractive.get(1, TimeUnit.SECONDS).close();
+            Assertions.assertFalse(queuedBatch.isDone());
+
+            // a freed shared slot is handed to the head of the queue, not taken by a new arrival
+            batch.close();
+            Assertions.assertEquals("queue", Assertions.assertThrows(AdmissionRejectedException.class,
+                    () -> admission.admit("order-service", "batch")).getReason());
+            queuedBatch.get(1, TimeUnit.SECONDS).close();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void queueThatNobodyLeavesIsShedAfterTheTarget() throws Exception {
+        AdmissionProperties p = props(1, 0, 100);
+        p.setQueueTarget(Duration.ofMillis(20));
+        p.setQueueInterval(Duration.ofMillis(300));
+        AdmissionController admission = new AdmissionController(p, new SimpleMeterRegistry(), new MetricTags());
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            // overload: the only slot stays taken, so nothing that queues gets in
+            AdmissionController.Permit held = admission.admit("order-service", null);
+
+            // before the queue has stood for an interval, waiters get the whole interval
+            List<Long> firstWave = waitsUntilRejected(admission, pool, 4);
+            for (long waited : firstWave) Assertions.assertTrue(waited >= 250, "waited " + waited + "ms");
+
+            // from then on the excess is shed at about the target
+            List<Long> secondWave = waitsUntilRejected(admission, pool, 4);
+            for (long waited : secondWave) {
+                Assertions.assertTrue(waited >= 15 && waited < 150, "waited " + waited + "ms");
+            }
+
+            // a free slot ends the standing queue
+            held.close();
+            admission.admit("order-service", null).close();
+            long start = System.nanoTime();
+            held = admission.admit("order-service", null);
+            List<Long> afterRecovery = waitsUntilRejected(admission, pool, 1);
+            Assertions.assertTrue(afterRecovery.get(0) >= 250, "waited " + afterRecovery.get(0) + "ms");
+            Assertions.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 250);
+            held.close();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void overloadIsShedAtTheTargetWhileClientsKeepComingBack() throws Exception {
+        AdmissionProperties p = props(1, 0, 100);
+        p.setQueueTarget(Duration.ofMillis(20));
+        p.setQueueInterval(Duration.ofMillis(200));
+        AdmissionController admission = new AdmissionController(p, new SimpleMeterRegistry(), new MetricTags());
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            // eight clients on one slot, each admitted request holding it for 50ms and asking again at once
+            long begin = System.nanoTime();
+            long settled = begin + TimeUnit.MILLISECONDS.toNanos(500);
+            long end = begin + TimeUnit.MILLISECONDS.toNanos(1500);
+            List<Future<List<Long>>> clients = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                clients.add(pool.submit(() -> {
+                    List<Long> rejectedWaits = new ArrayList<>();
+                    while (System.nanoTime() < end) {
+                        long start = System.nanoTime();
+                        try (AdmissionController.Permit permit = admission.admit("order-service", null)) {
+                            Thread.sleep(50);
+                        } catch (AdmissionRejectedException ex) {
+                            if (start > settled) rejectedWaits.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                        }
+                    }
+                    return rejectedWaits;
+                }));
+            }
+            List<Long> rejectedWaits = new ArrayList<>();
+            for (Future<List<Long>> c : clients) rejectedWaits.addAll(c.get(5, TimeUnit.SECONDS));
+
+            // a request that frees its slot and asks again does not reset the bound for those queued
+            Assertions.assertFalse(rejectedWaits.isEmpty());
+            for (long waited : rejectedWaits) Assertions.assertTrue(waited < 100, "waited " + waited + "ms");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // millis each of n concurrent requests waited before being rejected for the queue
+    private static List<Long> waitsUntilRejected(AdmissionController admission, ExecutorService pool, int n) throws Exception {
+        List<Future<Long>> waits = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            waits.add(pool.submit(() -> {
+                long start = System.nanoTime();
+                AdmissionRejectedException ex = Assertions.assertThrows(AdmissionRejectedException.class,
+                        () -> admission.admit("order-service", null));
+                Assertions.assertEquals("queue", ex.getReason());
+                return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            }));
+        }
+        List<Long> millis = new ArrayList<>();
+        for (Future<Long> w : waits) millis.add(w.get(5, TimeUnit.SECONDS));
+        return millis;
+    }
+
+    private static void awaitQueued(AdmissionController admission, int n) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (admission.queued() < n && System.nanoTime() < deadline) Thread.sleep(1);
+        Assertions.assertEquals(n, admission.queued());
+    }
+}
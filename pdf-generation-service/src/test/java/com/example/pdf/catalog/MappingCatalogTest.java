@@ -0,0 +1,102 @@
+package com.example.pdf.catalog;
+
+import com.example.pdf.model.MappingDocument;
+import com.example.pdf.service.CompiledMapping;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class MappingCatalogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void servesWrittenMappingsFromTheMappedFile() throws Exception {
+        MappingCatalogWriter writer = new MappingCatalogWriter();
+        writer.labelVersion("main", "abc123");
+        for (int i = 0; i < 500; i++) {
+            writer.add("order-service", "invoice-" + i, "medicare", "group", i % 2 == 0 ? "CA" : null, "main", mapping(i));
+        }
+        writer.add("order-service", "invoice-\u00e9", "medicare", "group", "CA", "main", mapping(7));
+        Path file = dir.resolve("mappings.catalog");
+        writer.write(file);
+
+        MappingCatalog catalog = MappingCatalog.open(file);
+        Assertions.assertEquals(501, catalog.size());
+        Assertions.assertEquals("abc123", catalog.version("main"));
+
+        CompiledMapping hit = catalog.find("order-service", "invoice-42", "medicare", "group", "CA", "main", "abc123");
+        Assertions.assertNotNull(hit);
+        Assertions.assertEquals(List.of("customerName", "total42"), List.copyOf(hit.getFieldMap().keySet()));
+        Assertions.assertEquals("customer.name", hit.getFieldMap().get("customerName"));
+        Assertions.assertEquals("order.total", hit.getFieldMap().get("total42"));
+
+        MappingDocument doc = hit.getDocument();
+        Assertions.assertEquals("https://example.com/invoice-42.pdf", doc.getTemplate().getUrl());
+        Assertions.assertEquals("payload.customer.name", doc.getMapping().getPdf().getField().get("customerName"));
+        Assertions.assertEquals(Map.of("version", "v42", "pages", 2), doc.getMetadata());
+
+        Assertions.assertNotNull(catalog.find("order-service", "invoice-43", "medicare", "group", null, "main", "abc123"));
+        Assertions.assertNotNull(catalog.find("order-service", "invoice-\u00e9", "medicare", "group", "CA", "main", "abc123"));
+        Assertions.assertNull(catalog.find("order-service", "invoice-43", "medicare", "group", "CA", "main", "abc123"));
+        Assertions.assertNull(catalog.find("order-service", "invoice-42", "medicare", "group", "CA", "release", "abc123"));
+    }
+
+    @Test
+    void servedOnlyWhileTheCurrentVersionIsKnownAndMatches() throws Exception {
+        MappingCatalogWriter writer = new MappingCatalogWriter();
+        writer.labelVersion("main", "abc123");
+        writer.add("order-service", "invoice", null, null, null, "main", mapping(1));
+        writer.add("order-service", "invoice", null, null, null, "release", mapping(2));
+        Path file = dir.resolve("stale.catalog");
+        writer.write(file);
+        MappingCatalog catalog = MappingCatalog.open(file);
+
+        Assertions.assertNull(catalog.find("order-service", "invoice", null, null, null, "main", null));
+        Assertions.assertNull(catalog.find("order-service", "invoice", null, null, null, "main", "def456"));
+        // no recorded version for release: never known to be current
+        Assertions.assertNull(catalog.find("order-service", "invoice", null, null, null, "release", "def456"));
+
+        catalog.observe("main", "abc123");
+        Assertions.assertEquals("abc123", catalog.observed("main"));
+        catalog.observe("main", "def456");
+        Assertions.assertEquals("def456", catalog.observed("main"));
+        // a revert to the compiled commit makes the entries current again
+        catalog.observe("main", "abc123");
+        Assertions.assertNotNull(catalog.find("order-service", "invoice", null, null, null, "main", catalog.observed("main")));
+
+        catalog.observe(null, null);
+        Assertions.assertNull(catalog.observed("main"));
+        catalog.observe("main", "abc123");
+        catalog.forgetObserved();
+        Assertions.assertNull(catalog.observed("main"));
+    }
+
+    private static CompiledMapping mapping(int i) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("customerName", "payload.customer.name");
+        fields.put("total" + i, "$.order.total");
+        MappingDocument.Mapping.Pdf pdf = new MappingDocument.Mapping.Pdf();
+        pdf.setField(fields);
+        MappingDocument.Mapping m = new MappingDocument.Mapping();
+        m.setPdf(pdf);
+        MappingDocument.Template t = new MappingDocument.Template();
+        t.setUrl("https://example.com/invoice-" + i + ".pdf");
+        t.setType("acroform");
+        MappingDocument doc = new MappingDocument();
+        doc.setTemplate(t);
+        doc.setMapping(m);
+        doc.setMetadata(Map.of("version", "v" + i, "pages", 2));
+
+        Map<String, String> plan = new LinkedHashMap<>();
+        plan.put("customerName", "customer.name");
+        plan.put("total" + i, "order.total");
+        return new CompiledMapping(doc, plan);
+    }
+}
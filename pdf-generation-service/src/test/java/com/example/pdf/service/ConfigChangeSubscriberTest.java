@@ -0,0 +1,124 @@
+package com.example.pdf.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+class ConfigChangeSubscriberTest {
+
+    // what the feed told MappingService, in order
+    private final BlockingQueue<String> calls = new LinkedBlockingQueue<>();
+    private final MappingService mappings = new MappingService() {
+        @Override
+        public void onChangeFeed(boolean live) {
+            calls.add(live ? "live" : "down");
+        }
+
+        @Override
+        public void onConfigChange(ConfigServerClient.ConfigChange change) {
+            calls.add(change.type + " " + change.label + " " + change.version);
+        }
+
+        @Override
+        public void dropAll() {
+            calls.add("drop");
+        }
+    };
+    // one response body per connection; later connections get 503
+    private final ConcurrentLinkedQueue<String> script = new ConcurrentLinkedQueue<>();
+    private final List<String> lastEventIds = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private ConfigChangeSubscriber subscriber;
+
+    @AfterEach
+    void stop() {
+        if (subscriber != null) subscriber.stop();
+        if (server != null) server.stop(0);
+    }
+
+    @Test
+    void resumesFromTheLastEventWithoutDroppingAnything() throws Exception {
+        script.add(reset("r1.0", null, null) + reset("r1.0", "main", "v1") + change("r1.1", "main", "v1", "v2"));
+        script.add(change("r1.2", "main", "v2", "v3"));
+        start();
+
+        // nothing is known before the first connection, so everything held goes
+        Assertions.assertEquals(List.of("drop", "live", "reset main v1", "change main v2", "down"), next(5));
+        Assertions.assertEquals(List.of("live", "change main v3", "down"), next(3));
+        Assertions.assertEquals(List.of("-", "r1.1"), lastEventIds.subList(0, 2));
+    }
+
+    @Test
+    void dropsEverythingWhenTheServerCannotResume() throws Exception {
+        // a server without labels yet only sends the label-less reset, which still gives a position
+        script.add(reset("r1.0", null, null));
+        // restarted: the old position is unknown, so it starts over
+        script.add(reset("r2.0", null, null) + reset("r2.0", "main", "v5"));
+        start();
+
+        Assertions.assertEquals(List.of("drop", "live", "down"), next(3));
+        Assertions.assertEquals(List.of("live", "drop", "reset main v5", "down"), next(4));
+        Assertions.assertEquals(List.of("-", "r1.0"), lastEventIds.subList(0, 2));
+    }
+
+    private void start() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/changes", exchange -> {
+            String id = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+            lastEventIds.add(id == null ? "-" : id);
+            String body = script.poll();
+            if (body == null) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        server.start();
+        subscriber = new ConfigChangeSubscriber(mappings, "http://127.0.0.1:" + server.getAddress().getPort());
+        subscriber.start();
+    }
+
+    private List<String> next(int n) throws InterruptedException {
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            String call = calls.poll(5, TimeUnit.SECONDS);
+            if (call == null) break;
+            out.add(call);
+        }
+        return out;
+    }
+
+    private static String reset(String id, String label, String version) {
+        return event(id, "reset", "{\"type\":\"reset\",\"label\":" + quoted(label) + ",\"version\":" + quoted(version) + "}");
+    }
+
+    private static String change(String id, String label, String from, String version) {
+        return event(id, "change", "{\"type\":\"change\",\"label\":\"" + label + "\",\"from\":\"" + from
+                + "\",\"version\":\"" + version + "\",\"paths\":[\"mappings/base-application.yml\"]}");
+    }
+
+    private static String event(String id, String name, String data) {
+        return "id:" + id + "\nevent:" + name + "\ndata:" + data + "\n\n";
+    }
+
+    private static String quoted(String s) {
+        return s == null ? "null" : "\"" + s + "\"";
+    }
+}
@@ -2,15 +2,20 @@ package com.example.pdf.service;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
 
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 class ConfigServerClientTest {
@@ -143,4 +148,87 @@ class ConfigServerClientTest {
         Assertions.assertNull(resp);
         srv.verify();
     }
+
+    @Test
+    void getFile_revalidatesWithEtagAndReusesBodyOnNotModified() throws Exception {
+        RestTemplate rt = new RestTemplate();
+        MockRestServiceServer srv = MockRestServiceServer.createServer(rt);
+
+        String path = "mappings/base-application.yml";
+        String url = "http://localhost:8888/application/default/main/" + path;
+        HttpHeaders etag = new HttpHeaders();
+        etag.setETag("\"abc\"");
+
+        srv.expect(requestTo(url))
+                .andRespond(withSuccess("mapping.pdf.field.issuedDate: invoiceDate\n", MediaType.TEXT_PLAIN).headers(etag));
+        srv.expect(requestTo(url))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"abc\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED).headers(etag));
+
+        ConfigServerClient client = new ConfigServerClient(rt, "http://localhost:8888");
+        client.getFile("default", "main", path);
+        ConfigServerClient.ConfigServerResponse resp = client.getFile("default", "main", path);
+
+        Assertions.assertNotNull(resp);
+        Assertions.assertEquals("invoiceDate", resp.propertySources.get(0).source.get("mapping.pdf.field.issuedDate"));
+        srv.verify();
+    }
+
+    @Test
+    void getFile_reusesHeldBodyWhileChangeFeedIsLiveUntilInvalidated() throws Exception {
+        RestTemplate rt = new RestTemplate();
+        MockRestServiceServer srv = MockRestServiceServer.createServer(rt);
+
+        String path = "mappings/base-application.yml";
+        String url = "http://localhost:8888/application/default/main/" + path;
+        HttpHeaders etag = new HttpHeaders();
+        etag.setETag("\"abc\"");
+
+        // one request for the first two reads, a second after the change feed invalidates the file
+        srv.expect(requestTo(url))
+                .andRespond(withSuccess("mapping.pdf.field.issuedDate: invoiceDate\n", MediaType.TEXT_PLAIN).headers(etag));
+        srv.expect(requestTo(url))
+                .andRespond(withSuccess("mapping.pdf.field.issuedDate: issueDate\n", MediaType.TEXT_PLAIN));
+
+        ConfigServerClient client = new ConfigServerClient(rt, "http://localhost:8888");
+        client.holdFor(Duration.ofHours(1));
+        client.setChangeFeedLive(true);
+        client.getFile("default", "main", path);
+        client.getFile("default", "main", path);
+
+        Assertions.assertEquals(0, client.invalidate("main", List.of("mappings/other.yml")));
+        Assertions.assertEquals(1, client.invalidate("main", List.of(path)));
+        ConfigServerClient.ConfigServerResponse resp = client.getFile("default", "main", path);
+
+        Assertions.assertEquals("issueDate", resp.propertySources.get(0).source.get("mapping.pdf.field.issuedDate"));
+        srv.verify();
+    }
+
+    @Test
+    void heldBodiesAreBoundedLeastRecentlyUsedFirst() throws Exception {
+        RestTemplate rt = new RestTemplate();
+        MockRestServiceServer srv = MockRestServiceServer.createServer(rt);
+        HttpHeaders etag = new HttpHeaders();
+        etag.setETag("\"abc\"");
+        String a = "http://localhost:8888/a-invoice/default/main";
+        String b = "http://localhost:8888/b-invoice/default/main";
+        String c = "http://localhost:8888/c-invoice/default/main";
+
+        srv.expect(requestTo(a)).andRespond(withSuccess("{\"name\":\"a-invoice\"}", MediaType.APPLICATION_JSON).headers(etag));
+        srv.expect(requestTo(b)).andRespond(withSuccess("{\"name\":\"b-invoice\"}", MediaType.APPLICATION_JSON).headers(etag));
+        srv.expect(requestTo(a)).andExpect(header("If-None-Match", "\"abc\"")).andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+        srv.expect(requestTo(c)).andRespond(withSuccess("{\"name\":\"c-invoice\"}", MediaType.APPLICATION_JSON).headers(etag));
+        // b was used longest ago, so holding c dropped it
+        srv.expect(requestTo(b)).andExpect(headerDoesNotExist("If-None-Match"))
+                .andRespond(withSuccess("{\"name\":\"b-invoice\"}", MediaType.APPLICATION_JSON).headers(etag));
+
+        ConfigServerClient client = new ConfigServerClient(rt, "http://localhost:8888");
+        client.holdAtMost(2);
+        for (String app : List.of("a-invoice", "b-invoice", "a-invoice", "c-invoice", "b-invoice")) {
+            Assertions.assertEquals(app, client.getApplicationConfig(app, "default", "main").name);
+        }
+
+        Assertions.assertEquals(2, client.heldCount());
+        srv.verify();
+    }
 }
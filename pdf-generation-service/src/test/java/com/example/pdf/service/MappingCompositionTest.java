@@ -1,18 +1,28 @@
 package com.example.pdf.service;
 
 import com.example.pdf.controller.GenerateRequest;
+import com.example.pdf.metrics.GenerateMetrics;
+import com.example.pdf.model.CompositionExplanation;
 import com.example.pdf.model.MappingDocument;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 class MappingCompositionTest {
@@ -63,4 +73,169 @@ class MappingCompositionTest {
 
         srv.verify();
     }
+
+    @Test
+    void parallelFetchStillMergesInCandidateOrder() throws Exception {
+        RestTemplate rt = new RestTemplate();
+        MockRestServiceServer srv = MockRestServiceServer.bindTo(rt).ignoreExpectOrder(true).build();
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        try {
+            MappingComposer composer = new MappingComposer(new ConfigServerClient(rt, "http://localhost:8888"),
+                    new GenerateMetrics(new SimpleMeterRegistry()), pool);
+
+            // both fragments set the same field; the later candidate must win whichever answers first
+            srv.expect(requestTo("http://localhost:8888/application/default/main/mappings/base-application.yml"))
+                    .andRespond(withSuccess("mapping.pdf.field.customerName: base.name\n", MediaType.TEXT_PLAIN));
+            srv.expect(requestTo("http://localhost:8888/application/default/main/mappings/templates/invoice-v2.yml"))
+                    .andRespond(withSuccess("mapping.pdf.field.customerName: customer.name\n", MediaType.TEXT_PLAIN));
+
+            GenerateRequest req = new GenerateRequest();
+            req.setTemplateName("invoice-v2");
+            Map<String, Object> merged = composer.compose(req, "main",
+                    List.of("mappings/base-application", "mappings/templates/invoice-v2"));
+
+            Map<?, ?> field = (Map<?, ?>) ((Map<?, ?>) ((Map<?, ?>) merged.get("mapping")).get("pdf")).get("field");
+            Assertions.assertEquals("customer.name", field.get("customerName"));
+            srv.verify();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void candidatesMissingFromManifestAreNotFetched() {
+        RestTemplate rt = new RestTemplate();
+        MockRestServiceServer srv = MockRestServiceServer.createServer(rt);
+        ConfigServerClient client = new ConfigServerClient(rt, "http://localhost:8888");
+        MappingManifestCache manifests = new MappingManifestCache(client, Duration.ofMinutes(1), Runnable::run);
+        MappingComposer composer = new MappingComposer(client, new GenerateMetrics(new SimpleMeterRegistry()), null, manifests);
+
+        srv.expect(requestTo("http://localhost:8888/mappings-manifest/main"))
+                .andRespond(withSuccess("{\"label\":\"main\",\"version\":\"abc\",\"paths\":[\"mappings/base-application\"]}", MediaType.APPLICATION_JSON));
+        srv.expect(requestTo("http://localhost:8888/application/default/main/mappings/base-application.yml"))
+                .andRespond(withSuccess("mapping.pdf.field.customerName: customer.name\n", MediaType.TEXT_PLAIN));
+
+        manifests.refresh("main");
+        manifests.setChangeFeedLive(true);
+        manifests.confirm("main", "abc", null);
+        CompositionExplanation explain = new CompositionExplanation();
+        composer.compose(new GenerateRequest(), "main",
+                List.of("mappings/base-application", "mappings/templates/invoice-v2"), explain);
+
+        Assertions.assertEquals("hit", explain.getCandidates().get(0).getOutcome());
+        Assertions.assertEquals("pruned", explain.getCandidates().get(1).getOutcome());
+        srv.verify();
+    }
+
+    @Test
+    void candidatesAreFetchedUnlessTheManifestIsKnownToBeCurrent() {
+        RestTemplate rt = new RestTemplate();
+        MockRestServiceServer srv = MockRestServiceServer.createServer(rt);
+        ConfigServerClient client = new ConfigServerClient(rt, "http://localhost:8888");
+        MappingManifestCache manifests = new MappingManifestCache(client, Duration.ofMinutes(1), Runnable::run);
+        MappingComposer composer = new MappingComposer(client, new GenerateMetrics(new SimpleMeterRegistry()), null, manifests);
+        List<String> candidates = List.of("mappings/base-application", "mappings/templates/invoice-v2");
+        String base = "http://localhost:8888/application/default/main/mappings/base-application.yml";
+        String invoice = "http://localhost:8888/application/default/main/mappings/templates/invoice-v2.yml";
+
+        srv.expect(requestTo("http://localhost:8888/mappings-manifest/main"))
+                .andRespond(withSuccess("{\"label\":\"main\",\"version\":\"abc\",\"paths\":[\"mappings/base-application\"]}", MediaType.APPLICATION_JSON));
+        srv.expect(requestTo(base)).andRespond(withSuccess("mapping.pdf.field.customerName: customer.id\n", MediaType.TEXT_PLAIN));
+        srv.expect(requestTo(invoice)).andRespond(withSuccess("mapping.pdf.field.customerName: customer.name\n", MediaType.TEXT_PLAIN));
+        srv.expect(requestTo(base)).andRespond(withSuccess("mapping.pdf.field.customerName: customer.id\n", MediaType.TEXT_PLAIN));
+        srv.expect(requestTo(base)).andRespond(withSuccess("mapping.pdf.field.customerName: customer.id\n", MediaType.TEXT_PLAIN));
+        srv.expect(requestTo(invoice)).andRespond(withSuccess("mapping.pdf.field.customerName: customer.name\n", MediaType.TEXT_PLAIN));
+        manifests.refresh("main");
+
+        // no change feed: the held manifest may predate the commit that added invoice-v2
+        CompositionExplanation explain = new CompositionExplanation();
+        composer.compose(new GenerateRequest(), "main", candidates, explain);
+        Assertions.assertEquals("hit", explain.getCandidates().get(1).getOutcome());
+
+        // the feed reports a commit that touched no mapping file: the manifest is still right for it
+        manifests.setChangeFeedLive(true);
+        manifests.confirm("main", "def", "abc");
+        Assertions.assertEquals("def", manifests.version("main"));
+        explain = new CompositionExplanation();
+        composer.compose(new GenerateRequest(), "main", candidates, explain);
+        Assertions.assertEquals("pruned", explain.getCandidates().get(1).getOutcome());
+
+        // a commit that changed mappings: fetch everything until the manifest catches up
+        manifests.confirm("main", "ghi", null);
+        explain = new CompositionExplanation();
+        composer.compose(new GenerateRequest(), "main", candidates, explain);
+        Assertions.assertEquals("hit", explain.getCandidates().get(1).getOutcome());
+
+        manifests.confirm("main", "def", null);
+        manifests.setChangeFeedLive(false);
+        Assertions.assertNull(manifests.paths("main"));
+        srv.verify();
+    }
+
+    @Test
+    void composeRecordsFetchOutcomePerLayer() {
+        RestTemplate rt = new RestTemplate();
+        MockRestServiceServer srv = MockRestServiceServer.createServer(rt);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MappingComposer composer = new MappingComposer(new ConfigServerClient(rt, "http://localhost:8888"), new GenerateMetrics(registry));
+
+        srv.expect(requestTo("http://localhost:8888/application/default/main/mappings/base-application.yml"))
+                .andRespond(withSuccess("mapping:\n  pdf:\n    field:\n      issuedDate: invoiceDate\n", MediaType.TEXT_PLAIN));
+        srv.expect(requestTo("http://localhost:8888/application/default/main/mappings/states/NOPE.yml"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+        srv.expect(requestTo("http://localhost:8888/application/default/main/mappings/markets/group.yml"))
+                .andRespond(withStatus(HttpStatus.INTERNAL_SERVER_ERROR));
+
+        Map<String, Object> merged = composer.compose(new GenerateRequest(), "main",
+                List.of("mappings/base-application", "mappings/states/NOPE", "mappings/markets/group"));
+
+        Assertions.assertTrue(merged.containsKey("mapping"));
+        Assertions.assertEquals(1, registry.get(GenerateMetrics.FETCH_TIMER).tags("layer", "mappings/base-application", "outcome", "hit").timer().count());
+        Assertions.assertEquals(1, registry.get(GenerateMetrics.FETCH_TIMER).tags("layer", "mappings/states", "outcome", "missing").timer().count());
+        Assertions.assertEquals(1, registry.get(GenerateMetrics.FETCH_TIMER).tags("layer", "mappings/markets", "outcome", "error").timer().count());
+        srv.verify();
+    }
+
+    @Test
+    void explainReportsCandidatesAndFieldProvenance() throws Exception {
+        RestTemplate rt = new RestTemplate();
+        MockRestServiceServer srv = MockRestServiceServer.createServer(rt);
+        MappingService svc = new MappingService(rt);
+
+        srv.expect(requestTo("http://localhost:8888/application/default/main/mappings/base-application.yml"))
+                .andRespond(withSuccess("mapping:\n  pdf:\n    field:\n      issuedDate: invoiceDate\n      customerName: customer.id\n", MediaType.TEXT_PLAIN));
+        srv.expect(requestTo("http://localhost:8888/application/default/main/mappings/templates/invoice-v2.yml"))
+                .andRespond(withSuccess("mapping:\n  pdf:\n    field:\n      customerName: customer.name\n", MediaType.TEXT_PLAIN));
+        srv.expect(requestTo("http://localhost:8888/application/default/main/mappings/products/medicare.yml"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+        srv.expect(requestTo("http://localhost:8888/application/default/main/mappings/markets/group.yml"))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        srv.expect(requestTo("http://localhost:8888/application/default/main/mappings/states/CA.yml"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+        srv.expect(requestTo("http://localhost:8888/application/default/main/mappings/templates/medicare/invoice-v2.yml"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        GenerateRequest req = new GenerateRequest();
+        req.setTemplateName("invoice-v2");
+        req.setProductType("medicare");
+        req.setMarketCategory("group");
+        req.setState("CA");
+        req.setPayload(Map.of("customer", Map.of("name", "Acme")));
+
+        CompositionExplanation explain = svc.explainComposition(req);
+
+        Assertions.assertEquals(6, explain.getCandidates().size());
+        Assertions.assertEquals("hit", explain.getCandidates().get(0).getOutcome());
+        Assertions.assertEquals("missing", explain.getCandidates().get(2).getOutcome());
+        Assertions.assertEquals("error", explain.getCandidates().get(3).getOutcome());
+        Assertions.assertNotNull(explain.getCandidates().get(3).getError());
+
+        CompositionExplanation.Field customerName = explain.getFields().get("customerName");
+        Assertions.assertEquals("mappings/templates/invoice-v2", customerName.getSource());
+        Assertions.assertEquals("customer.name", customerName.getPath());
+        Assertions.assertEquals("Acme", customerName.getValue());
+        Assertions.assertEquals("mappings/base-application", explain.getFields().get("issuedDate").getSource());
+        Assertions.assertNull(explain.getFields().get("issuedDate").getValue());
+        srv.verify();
+    }
 }
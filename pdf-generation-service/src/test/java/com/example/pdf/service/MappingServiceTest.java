@@ -27,6 +27,26 @@ class MappingServiceTest {
         Assertions.assertEquals("customer.name", doc.getMapping().getPdf().getField().get("customerName"));
     }
 
+    @Test
+    void repeatedOverrideIsCompiledOnce() throws Exception {
+        String yaml = "mapping:\n  pdf:\n    field:\n      customerName: payload.customer.name\n";
+
+        GenerateRequest first = new GenerateRequest();
+        first.setMappingOverride(yaml);
+        GenerateRequest second = new GenerateRequest();
+        second.setMappingOverride(new String(yaml));
+
+        CompiledMapping a = service.compileMapping(first);
+        CompiledMapping b = service.compileMapping(second);
+
+        Assertions.assertSame(a, b);
+        Assertions.assertEquals(Map.of("customerName", "customer.name"), a.getFieldMap());
+
+        GenerateRequest other = new GenerateRequest();
+        other.setMappingOverride(yaml + "      total: total\n");
+        Assertions.assertNotSame(a, service.compileMapping(other));
+    }
+
     @Test
     void resolvePathSimple() {
         Map<String, Object> payload = Map.of(
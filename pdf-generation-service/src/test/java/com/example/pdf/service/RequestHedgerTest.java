@@ -0,0 +1,124 @@
+package com.example.pdf.service;
+
+import com.example.pdf.metrics.GenerateMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RequestHedgerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private RequestHedger hedger(double budget, Duration delay) {
+        HedgeProperties props = new HedgeProperties();
+        props.setEnabled(true);
+        props.setBudget(budget);
+        props.setMinDelay(delay);
+        props.setMaxDelay(delay);
+        return new RequestHedger(props, executor, new GenerateMetrics(registry));
+    }
+
+    private double count(String event) {
+        return registry.counter(GenerateMetrics.HEDGE, "event", event).count();
+    }
+
+    // First attempt sleeps for firstMillis, every later one answers at once
+    private static String attempt(AtomicInteger attempts, long firstMillis) {
+        int n = attempts.incrementAndGet();
+        if (n == 1) {
+            try {
+                Thread.sleep(firstMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return "attempt-" + n;
+    }
+
+    @Test
+    void slowCallIsHedgedAndTheFasterCopyWins() {
+        RequestHedger hedger = hedger(1.0, Duration.ofMillis(20));
+        AtomicInteger attempts = new AtomicInteger();
+
+        long start = System.nanoTime();
+        String result = hedger.call(() -> attempt(attempts, 2000));
+
+        Assertions.assertEquals("attempt-2", result);
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1000));
+        Assertions.assertEquals(1, count("sent"));
+        Assertions.assertEquals(1, count("won"));
+    }
+
+    @Test
+    void fastCallIsNotHedged() {
+        RequestHedger hedger = hedger(1.0, Duration.ofMillis(500));
+        AtomicInteger attempts = new AtomicInteger();
+
+        Assertions.assertEquals("attempt-1", hedger.call(() -> attempt(attempts, 0)));
+        Assertions.assertEquals(1, attempts.get());
+        Assertions.assertEquals(1, count("call"));
+        Assertions.assertEquals(0, count("sent"));
+    }
+
+    @Test
+    void spentBudgetLetsTheSlowCallFinish() {
+        RequestHedger hedger = hedger(0.0, Duration.ofMillis(10));
+        AtomicInteger attempts = new AtomicInteger();
+
+        Assertions.assertEquals("attempt-1", hedger.call(() -> attempt(attempts, 100)));
+        Assertions.assertEquals(1, attempts.get());
+        Assertions.assertEquals(1, count("denied"));
+    }
+
+    @Test
+    void failureOfOneCopyIsIgnoredWhileTheOtherSucceeds() {
+        RequestHedger hedger = hedger(1.0, Duration.ofMillis(20));
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedger.call(() -> {
+            if (attempts.incrementAndGet() == 2) throw new IllegalStateException("hedge failed");
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "primary";
+        });
+
+        Assertions.assertEquals("primary", result);
+        Assertions.assertEquals(0, count("won"));
+
+        IllegalStateException ex = Assertions.assertThrows(IllegalStateException.class,
+                () -> hedger.call(() -> { throw new IllegalStateException("down"); }));
+        Assertions.assertEquals("down", ex.getMessage());
+    }
+
+    @Test
+    void delayFollowsThePercentileOfRecentLatencies() {
+        HedgeProperties props = new HedgeProperties();
+        props.setPercentile(0.9);
+        props.setMinDelay(Duration.ofMillis(5));
+        props.setMaxDelay(Duration.ofSeconds(1));
+        RequestHedger hedger = new RequestHedger(props, executor, new GenerateMetrics(registry));
+        Assertions.assertEquals(TimeUnit.SECONDS.toNanos(1), hedger.delayNanos());
+
+        for (int i = 1; i <= 200; i++) hedger.record(TimeUnit.MILLISECONDS.toNanos(i));
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(180), hedger.delayNanos());
+
+        for (int i = 0; i < 1024; i++) hedger.record(TimeUnit.MICROSECONDS.toNanos(100));
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(5), hedger.delayNanos());
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.pdf.trace;
+
+import com.example.pdf.controller.GenerateRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+class RequestTracerTest {
+
+    @Test
+    void unsampledRequestsGetTheNoopTrace() {
+        RequestTracer tracer = new RequestTracer(0.0, Set.of());
+        GenerateRequest req = new GenerateRequest();
+        req.setClientService("order-service");
+
+        RequestTrace trace = tracer.begin(req, null);
+
+        Assertions.assertSame(RequestTrace.NOOP, trace);
+        Assertions.assertFalse(trace.isActive());
+        trace.event("request", req);
+        trace.finish();
+    }
+
+    @Test
+    void headerAndAllowListActivateTracing() {
+        RequestTracer tracer = new RequestTracer(0.0, Set.of("billing-service"));
+        GenerateRequest req = new GenerateRequest();
+        req.setClientService("order-service");
+
+        RequestTrace byHeader = tracer.begin(req, "true");
+        Assertions.assertTrue(byHeader.isActive());
+        Assertions.assertEquals("header", byHeader.getReason());
+
+        req.setClientService("billing-service");
+        RequestTrace byClient = tracer.begin(req, null);
+        Assertions.assertTrue(byClient.isActive());
+        Assertions.assertEquals("client-service", byClient.getReason());
+
+        byClient.event("request", req);
+        Assertions.assertEquals(1, byClient.getEvents().size());
+        Assertions.assertSame(req, byClient.getEvents().get(0).getData());
+    }
+
+    @Test
+    void fullSampleRateTracesEverything() {
+        RequestTracer tracer = new RequestTracer(1.0, Set.of());
+
+        Assertions.assertEquals("sampled", tracer.begin(new GenerateRequest(), null).getReason());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.pdf.warmup;
+
+import com.example.pdf.controller.GenerateRequest;
+import com.example.pdf.service.ConfigServerClient;
+import com.example.pdf.service.MappingService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class WarmupRunnerTest {
+
+    // answers every fragment with "not found", so composing never touches the network
+    private final MappingService service = new MappingService(new ConfigServerClient(null, "http://localhost:0") {
+        @Override
+        public ConfigServerResponse getFile(String profile, String label, String pathWithExtension) {
+            return null;
+        }
+
+        @Override
+        public ConfigServerResponse getApplicationConfig(String application, String profile, String label) {
+            return null;
+        }
+    });
+
+    @Test
+    void readyAtOnceWithoutHotTemplates() {
+        WarmupRunner runner = new WarmupRunner(new WarmupProperties(), service);
+        Assertions.assertFalse(runner.isReady());
+
+        runner.start(null);
+
+        Assertions.assertTrue(runner.isReady());
+        Assertions.assertEquals("finished", runner.details().get("state"));
+    }
+
+    @Test
+    void readyWhenWarmupFinishesEvenIfRendersFail() throws Exception {
+        WarmupProperties props = new WarmupProperties();
+        props.setTimeBudget(Duration.ofMinutes(1));
+        props.setRequests(List.of(request("invoice-v2"), request("statement")));
+        WarmupRunner runner = new WarmupRunner(props, service);
+
+        // nothing listens on port 1, so every render fails fast
+        runner.start(URI.create("http://localhost:1/generate"));
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!runner.isReady() && System.nanoTime() < deadline) Thread.sleep(10);
+
+        Assertions.assertTrue(runner.isReady());
+        Assertions.assertEquals("finished", runner.details().get("state"));
+        Assertions.assertEquals(2, runner.details().get("failed"));
+    }
+
+    @Test
+    void readyOnceTheTimeBudgetIsSpent() {
+        WarmupProperties props = new WarmupProperties();
+        props.setTimeBudget(Duration.ZERO);
+        props.setRequests(List.of(request("invoice-v2")));
+        WarmupRunner runner = new WarmupRunner(props, service);
+
+        runner.start(URI.create("http://localhost:1/generate"));
+
+        Assertions.assertTrue(runner.isReady());
+    }
+
+    @Test
+    void generateUriFollowsTheContextPath() {
+        MockEnvironment env = new MockEnvironment();
+        Assertions.assertNull(WarmupRunner.generateUri(env));
+
+        env.setProperty("local.server.port", "8081");
+        Assertions.assertEquals(URI.create("http://localhost:8081/generate"), WarmupRunner.generateUri(env));
+
+        env.setProperty("server.servlet.context-path", "/pdf/");
+        Assertions.assertEquals(URI.create("http://localhost:8081/pdf/generate"), WarmupRunner.generateUri(env));
+    }
+
+    @Test
+    void syntheticPayloadHasAValueAtEveryPath() {
+        Map<String, String> plan = new LinkedHashMap<>();
+        plan.put("customerName", "customer.name");
+        plan.put("customerCity", "customer.address.city");
+        plan.put("total", "order.total");
+        plan.put("nested", "order.total.currency");
+
+        Map<String, Object> payload = WarmupRunner.syntheticPayload(plan);
+
+        Assertions.assertEquals("warmup-customerName", service.resolvePath(payload, "customer.name"));
+        Assertions.assertEquals("warmup-customerCity", service.resolvePath(payload, "customer.address.city"));
+        Assertions.assertEquals("warmup-total", service.resolvePath(payload, "order.total"));
+        Assertions.assertNull(service.resolvePath(payload, "order.total.currency"));
+    }
+
+    private static GenerateRequest request(String template) {
+        GenerateRequest req = new GenerateRequest();
+        req.setClientService("order-service");
+        req.setTemplateName(template);
+        return req;
+    }
+}